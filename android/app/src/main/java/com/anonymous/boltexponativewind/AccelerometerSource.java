@@ -0,0 +1,92 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Debug;
+import android.os.Trace;
+
+import com.anonymous.boltexponativewind.core.DetectionConfig;
+import com.anonymous.boltexponativewind.core.SensorSource;
+
+/**
+ * SensorManager accelerometer, SENSOR_DELAY_UI unless configured otherwise, stamped with
+ * wall-clock time like the heartbeat expects.
+ */
+public class AccelerometerSource implements SensorSource {
+    private final SensorManager sensorManager;
+    private final Sensor accelerometer;
+    private Listener listener;
+    private int samplingPeriodUs = DetectionConfig.DEFAULT_SAMPLING_US;
+    // Only the current registration's samples reach the listener
+    private volatile Registration current;
+
+    public AccelerometerSource(Context context) {
+        sensorManager = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
+        accelerometer = sensorManager != null ? sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER) : null;
+    }
+
+    public boolean isAvailable() {
+        return accelerometer != null;
+    }
+
+    @Override
+    public synchronized boolean start(Listener listener) {
+        if (accelerometer == null) return false;
+        this.listener = listener;
+        return register();
+    }
+
+    @Override
+    public synchronized void stop() {
+        Registration registration = current;
+        current = null;
+        if (registration != null) sensorManager.unregisterListener(registration);
+    }
+
+    /**
+     * Changes the sampling period while running. The new registration is made before the old one
+     * is dropped, so there is no gap in samples; the old one's stragglers are ignored.
+     */
+    public synchronized void setSamplingPeriod(int periodUs) {
+        if (periodUs == samplingPeriodUs) return;
+        samplingPeriodUs = periodUs;
+        Registration previous = current;
+        if (previous == null) return; // not started: start() uses the new period
+        if (register()) {
+            sensorManager.unregisterListener(previous);
+        } else {
+            current = previous;
+        }
+    }
+
+    private boolean register() {
+        Registration registration = new Registration();
+        if (!sensorManager.registerListener(registration, accelerometer, samplingPeriodUs)) return false;
+        current = registration;
+        return true;
+    }
+
+    private final class Registration implements SensorEventListener {
+        @Override
+        public void onSensorChanged(SensorEvent event) {
+            if (current != this || event.sensor.getType() != Sensor.TYPE_ACCELEROMETER || listener == null) return;
+            // Platform trace only: minutes of samples would push the alert out of AlertTrace's ring
+            Trace.beginSection(AlertTrace.SENSOR);
+            long cpuBefore = Debug.threadCpuTimeNanos();
+            try {
+                listener.onAcceleration(System.currentTimeMillis(), event.values[0], event.values[1], event.values[2]);
+            } finally {
+                Trace.endSection();
+                ResourceStats.onSensorEvent(cpuBefore < 0 ? -1 : Debug.threadCpuTimeNanos() - cpuBefore);
+            }
+        }
+
+        @Override
+        public void onAccuracyChanged(Sensor sensor, int accuracy) {
+            // Not used
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.anonymous.boltexponativewind;
+
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.List;
+
+/**
+ * Exposes the native AlertHistoryStore to JS with cursor-based pagination.
+ */
+public class AlertHistoryModule extends ReactContextBaseJavaModule {
+    private static final String TAG = "AlertHistoryModule";
+
+    public AlertHistoryModule(ReactApplicationContext context) {
+        super(context);
+    }
+
+    @Override
+    public String getName() {
+        return "AlertHistory";
+    }
+
+    /**
+     * Resolves with { alerts, nextCursor }. Pass the previous nextCursor (or 0 for the newest
+     * page); nextCursor is null once there is nothing older.
+     */
+    @ReactMethod
+    public void getAlerts(double cursor, int limit, Promise promise) {
+        try {
+            long before = cursor > 0 ? (long) cursor : Long.MAX_VALUE;
+            List<AlertHistoryStore.Alert> alerts =
+                    AlertHistoryStore.get(getReactApplicationContext()).queryAlerts(before, Math.max(1, limit));
+
+            WritableArray array = Arguments.createArray();
+            for (AlertHistoryStore.Alert alert : alerts) {
+                WritableMap map = Arguments.createMap();
+                map.putDouble("id", alert.id);
+                map.putDouble("createdAt", alert.createdAt);
+                if (alert.latitude != null) {
+                    map.putDouble("latitude", alert.latitude);
+                    map.putDouble("longitude", alert.longitude);
+                } else {
+                    map.putNull("latitude");
+                    map.putNull("longitude");
+                }
+                map.putString("address", alert.address);
+                map.putString("source", alert.source);
+                map.putString("status", alert.status);
+                map.putBoolean("synced", alert.synced);
+                map.putString("trail", alert.trail);
+                WritableArray recipients = Arguments.createArray();
+                for (AlertHistoryStore.Recipient recipient : alert.recipients) {
+                    WritableMap r = Arguments.createMap();
+                    r.putString("phone", recipient.phone);
+                    r.putString("status", recipient.status);
+                    r.putDouble("updatedAt", recipient.updatedAt);
+                    r.putString("channel", recipient.channel);
+                    r.putInt("tier", recipient.tier);
+                    if (recipient.queuePosition >= 0) {
+                        r.putInt("queuePosition", recipient.queuePosition);
+                    } else {
+                        r.putNull("queuePosition");
+                    }
+                    if (recipient.confirmedMs >= 0) {
+                        r.putDouble("confirmedMs", recipient.confirmedMs);
+                    } else {
+                        r.putNull("confirmedMs");
+                    }
+                    recipients.pushMap(r);
+                }
+                map.putArray("recipients", recipients);
+                array.pushMap(map);
+            }
+
+            WritableMap result = Arguments.createMap();
+            result.putArray("alerts", array);
+            if (alerts.size() == limit) {
+                result.putDouble("nextCursor", alerts.get(alerts.size() - 1).id);
+            } else {
+                result.putNull("nextCursor");
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to query alert history", e);
+            promise.reject("E_HISTORY", e);
+        }
+    }
+
+    @ReactMethod
+    public void getUnsyncedCount(Promise promise) {
+        try {
+            promise.resolve((double) AlertHistoryStore.get(getReactApplicationContext()).countUnsynced());
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to count unsynced alerts", e);
+            promise.reject("E_HISTORY", e);
+        }
+    }
+}
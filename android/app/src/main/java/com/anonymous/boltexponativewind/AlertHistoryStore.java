@@ -0,0 +1,404 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.anonymous.boltexponativewind.core.Outbox;
+import com.anonymous.boltexponativewind.core.TieredContacts;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Native alert history: one row per alert plus a normalized recipient table, so alerts sent
+ * while the JS app is dead are still recorded. WAL mode keeps writers (dispatch, SMS status
+ * callbacks) from blocking readers (history screen, sync). Hot statements are compiled once
+ * and reused; multi-row writes run in a single transaction.
+ *
+ * The database lives in device-protected storage so alerts sent before the first unlock
+ * are recorded too.
+ */
+public class AlertHistoryStore extends SQLiteOpenHelper {
+    private static final String TAG = "AlertHistoryStore";
+    private static final String DB_NAME = "safeher_alerts.db";
+    private static final int DB_VERSION = 1;
+
+    public static final String STATUS_SENDING = "sending";
+    public static final String STATUS_SENT = "sent";
+    public static final String STATUS_FAILED = "failed";
+
+    // Recipient states are the Outbox state machine's
+    public static final String RECIPIENT_PENDING = Outbox.PENDING;
+    // Waiting for SMS quota behind higher tiers; queue_position says where
+    public static final String RECIPIENT_QUEUED = Outbox.QUEUED;
+    public static final String RECIPIENT_SUBMITTED = Outbox.SUBMITTED;
+    public static final String RECIPIENT_SENT = Outbox.SENT;
+    public static final String RECIPIENT_DELIVERED = Outbox.DELIVERED;
+    public static final String RECIPIENT_FAILED = Outbox.FAILED;
+    // Not sent because the send job was cancelled
+    public static final String RECIPIENT_CANCELLED = Outbox.CANCELLED;
+
+    private static AlertHistoryStore instance;
+
+    private SQLiteStatement insertAlertStmt;
+    private SQLiteStatement insertRecipientStmt;
+    private SQLiteStatement updateRecipientStmt;
+    private SQLiteStatement updatePendingRecipientStmt;
+    private SQLiteStatement updateAlertStatusStmt;
+    private SQLiteStatement markSyncedStmt;
+    private SQLiteStatement recordConfirmationStmt;
+    private SQLiteStatement markDirtyStmt;
+
+    public static synchronized AlertHistoryStore get(Context context) {
+        if (instance == null) {
+            instance = new AlertHistoryStore(context.getApplicationContext().createDeviceProtectedStorageContext());
+        }
+        return instance;
+    }
+
+    private AlertHistoryStore(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.setForeignKeyConstraintsEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE alerts ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "created_at INTEGER NOT NULL, "
+                + "latitude REAL, "
+                + "longitude REAL, "
+                + "address TEXT, "
+                + "source TEXT NOT NULL, "
+                + "status TEXT NOT NULL, "
+                + "synced INTEGER NOT NULL DEFAULT 0, "
+                + "trail TEXT, "
+                // Bumped by every change; an upload only marks the version it sent as synced
+                + "version INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE TABLE alert_recipients ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "alert_id INTEGER NOT NULL REFERENCES alerts(id) ON DELETE CASCADE, "
+                + "phone TEXT NOT NULL, "
+                + "status TEXT NOT NULL, "
+                + "updated_at INTEGER NOT NULL, "
+                + "channel TEXT, "
+                + "confirmed_ms INTEGER, "
+                + "tier INTEGER NOT NULL DEFAULT 1, "
+                + "queue_position INTEGER)");
+        db.execSQL("CREATE INDEX idx_alerts_created ON alerts(created_at)");
+        db.execSQL("CREATE INDEX idx_alerts_synced ON alerts(synced, created_at)");
+        db.execSQL("CREATE UNIQUE INDEX idx_recipients_alert_phone ON alert_recipients(alert_id, phone)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Version 1 is the first released schema; later changes add steps here
+    }
+
+    private void compileStatements(SQLiteDatabase db) {
+        if (insertAlertStmt != null) return;
+        insertAlertStmt = db.compileStatement(
+                "INSERT INTO alerts (created_at, latitude, longitude, address, source, status, trail) VALUES (?, ?, ?, ?, ?, ?, ?)");
+        insertRecipientStmt = db.compileStatement(
+                "INSERT OR IGNORE INTO alert_recipients (alert_id, phone, status, updated_at, tier, queue_position) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)");
+        updateRecipientStmt = db.compileStatement(
+                "UPDATE alert_recipients SET status = ?, updated_at = ? WHERE alert_id = ? AND phone = ?");
+        updatePendingRecipientStmt = db.compileStatement(
+                "UPDATE alert_recipients SET status = ?, updated_at = ? WHERE alert_id = ? AND phone = ? AND status IN ('"
+                        + RECIPIENT_PENDING + "', '" + RECIPIENT_QUEUED + "')");
+        updateAlertStatusStmt = db.compileStatement(
+                "UPDATE alerts SET status = ? WHERE id = ?");
+        markSyncedStmt = db.compileStatement("UPDATE alerts SET synced = 1 WHERE id = ? AND version = ?");
+        recordConfirmationStmt = db.compileStatement(
+                "UPDATE alert_recipients SET channel = ?, confirmed_ms = ? WHERE alert_id = ? AND phone = ? AND channel IS NULL");
+        // Changes need to go up again, also while an upload of the old version is in flight;
+        // the backend upserts by id
+        markDirtyStmt = db.compileStatement("UPDATE alerts SET synced = 0, version = version + 1 WHERE id = ?");
+    }
+
+    /**
+     * Records an alert and all of its recipients in one transaction.
+     * Returns the alert id, or -1 if it could not be written.
+     */
+    public long insertAlert(long createdAt, Double latitude, Double longitude, String address,
+                            String source, List<String> recipients) {
+        return insertAlert(createdAt, latitude, longitude, address, source, recipients, null, null);
+    }
+
+    /**
+     * As above, with the breadcrumb trail (encoded polyline) leading up to the alert, and each
+     * recipient's tier. Recipients are given in send order; those past tier 1 start out queued.
+     * Coordinates are null when there was no fix, and stay NULL in the row.
+     */
+    public synchronized long insertAlert(long createdAt, Double latitude, Double longitude, String address,
+                                         String source, List<String> recipients, String trail, int[] tiers) {
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            compileStatements(db);
+            db.beginTransactionNonExclusive();
+            try {
+                insertAlertStmt.clearBindings();
+                insertAlertStmt.bindLong(1, createdAt);
+                if (latitude != null && longitude != null) {
+                    insertAlertStmt.bindDouble(2, latitude);
+                    insertAlertStmt.bindDouble(3, longitude);
+                } else {
+                    insertAlertStmt.bindNull(2);
+                    insertAlertStmt.bindNull(3);
+                }
+                if (address != null) insertAlertStmt.bindString(4, address); else insertAlertStmt.bindNull(4);
+                insertAlertStmt.bindString(5, source);
+                insertAlertStmt.bindString(6, STATUS_SENDING);
+                if (trail != null) insertAlertStmt.bindString(7, trail); else insertAlertStmt.bindNull(7);
+                long alertId = insertAlertStmt.executeInsert();
+
+                for (int i = 0; i < recipients.size(); i++) {
+                    int tier = tiers != null ? tiers[i] : TieredContacts.TIER_IMMEDIATE;
+                    insertRecipientStmt.bindLong(1, alertId);
+                    insertRecipientStmt.bindString(2, recipients.get(i));
+                    insertRecipientStmt.bindString(3,
+                            tier > TieredContacts.TIER_IMMEDIATE ? RECIPIENT_QUEUED : RECIPIENT_PENDING);
+                    insertRecipientStmt.bindLong(4, createdAt);
+                    insertRecipientStmt.bindLong(5, tier);
+                    insertRecipientStmt.bindLong(6, i);
+                    insertRecipientStmt.executeInsert();
+                }
+                db.setTransactionSuccessful();
+                return alertId;
+            } finally {
+                db.endTransaction();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to record alert", e);
+            return -1;
+        }
+    }
+
+    public synchronized void updateRecipientStatus(long alertId, String phone, String status) {
+        if (alertId <= 0 || phone == null) return;
+        try {
+            compileStatements(getWritableDatabase());
+            updateRecipientStmt.bindString(1, status);
+            updateRecipientStmt.bindLong(2, System.currentTimeMillis());
+            updateRecipientStmt.bindLong(3, alertId);
+            updateRecipientStmt.bindString(4, phone);
+            if (updateRecipientStmt.executeUpdateDelete() > 0) {
+                markDirtyStmt.bindLong(1, alertId);
+                markDirtyStmt.executeUpdateDelete();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to update recipient status", e);
+        }
+    }
+
+    /**
+     * Records the submit outcome for several recipients of one alert in a single transaction.
+     * Only rows still pending are touched, so a SMS_SENT callback that already landed wins.
+     */
+    public synchronized void updatePendingRecipients(long alertId, Map<String, String> statusByPhone) {
+        if (alertId <= 0 || statusByPhone.isEmpty()) return;
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            compileStatements(db);
+            long now = System.currentTimeMillis();
+            db.beginTransactionNonExclusive();
+            try {
+                int updated = 0;
+                for (Map.Entry<String, String> entry : statusByPhone.entrySet()) {
+                    updatePendingRecipientStmt.bindString(1, entry.getValue());
+                    updatePendingRecipientStmt.bindLong(2, now);
+                    updatePendingRecipientStmt.bindLong(3, alertId);
+                    updatePendingRecipientStmt.bindString(4, entry.getKey());
+                    updated += updatePendingRecipientStmt.executeUpdateDelete();
+                }
+                if (updated > 0) {
+                    markDirtyStmt.bindLong(1, alertId);
+                    markDirtyStmt.executeUpdateDelete();
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to update recipient statuses", e);
+        }
+    }
+
+    /** Stores which channel confirmed a recipient first and how long it took. */
+    public synchronized void recordConfirmation(long alertId, String phone, String channel, long confirmedMs) {
+        if (alertId <= 0) return;
+        try {
+            compileStatements(getWritableDatabase());
+            recordConfirmationStmt.bindString(1, channel);
+            recordConfirmationStmt.bindLong(2, confirmedMs);
+            recordConfirmationStmt.bindLong(3, alertId);
+            recordConfirmationStmt.bindString(4, phone);
+            if (recordConfirmationStmt.executeUpdateDelete() > 0) {
+                markDirtyStmt.bindLong(1, alertId);
+                markDirtyStmt.executeUpdateDelete();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to record confirmation", e);
+        }
+    }
+
+    public synchronized void updateAlertStatus(long alertId, String status) {
+        if (alertId <= 0) return;
+        try {
+            compileStatements(getWritableDatabase());
+            updateAlertStatusStmt.bindString(1, status);
+            updateAlertStatusStmt.bindLong(2, alertId);
+            updateAlertStatusStmt.executeUpdateDelete();
+            markDirtyStmt.bindLong(1, alertId);
+            markDirtyStmt.executeUpdateDelete();
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to update alert status", e);
+        }
+    }
+
+    /**
+     * Newest-first page of alerts with id below {@code beforeId} (pass Long.MAX_VALUE for the
+     * first page). Ids grow with insertion time, and keyset pagination on the rowid keeps
+     * every page a range scan no matter how much history has accumulated.
+     */
+    public List<Alert> queryAlerts(long beforeId, int limit) {
+        return loadAlerts("WHERE id < ? ORDER BY id DESC LIMIT ?",
+                new String[] { String.valueOf(beforeId), String.valueOf(limit) });
+    }
+
+    /** Oldest unsynced alerts first, served by idx_alerts_synced. */
+    public List<Alert> loadUnsyncedBatch(int limit) {
+        return loadAlerts("WHERE synced = 0 ORDER BY created_at LIMIT ?",
+                new String[] { String.valueOf(limit) });
+    }
+
+    /**
+     * Marks an uploaded batch synced in one transaction, each alert only if it is still at the
+     * version that was uploaded. Returns how many were marked; the rest changed meanwhile and
+     * stay unsynced for the next batch.
+     */
+    public synchronized int markSynced(long[] alertIds, long[] versions) {
+        if (alertIds.length == 0) return 0;
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            compileStatements(db);
+            db.beginTransactionNonExclusive();
+            try {
+                int marked = 0;
+                for (int i = 0; i < alertIds.length; i++) {
+                    markSyncedStmt.bindLong(1, alertIds[i]);
+                    markSyncedStmt.bindLong(2, versions[i]);
+                    marked += markSyncedStmt.executeUpdateDelete();
+                }
+                db.setTransactionSuccessful();
+                return marked;
+            } finally {
+                db.endTransaction();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to mark alerts synced", e);
+            return 0;
+        }
+    }
+
+    /**
+     * The alert rows are read before their recipients, and every recipient change bumps the
+     * alert's version after writing the row, so the recipients read are never older than the
+     * version read.
+     */
+    private List<Alert> loadAlerts(String clause, String[] args) {
+        List<Alert> alerts = new ArrayList<>();
+        Map<Long, Alert> byId = new HashMap<>();
+        SQLiteDatabase db = getReadableDatabase();
+        try (Cursor c = db.rawQuery(
+                "SELECT id, created_at, latitude, longitude, address, source, status, synced, trail, version FROM alerts "
+                        + clause,
+                args)) {
+            while (c.moveToNext()) {
+                Alert alert = new Alert();
+                alert.id = c.getLong(0);
+                alert.createdAt = c.getLong(1);
+                alert.latitude = c.isNull(2) ? null : c.getDouble(2);
+                alert.longitude = c.isNull(3) ? null : c.getDouble(3);
+                alert.address = c.getString(4);
+                alert.source = c.getString(5);
+                alert.status = c.getString(6);
+                alert.synced = c.getInt(7) != 0;
+                alert.trail = c.getString(8);
+                alert.version = c.getLong(9);
+                alerts.add(alert);
+                byId.put(alert.id, alert);
+            }
+        }
+        if (alerts.isEmpty()) return alerts;
+
+        StringBuilder in = new StringBuilder();
+        for (Alert alert : alerts) {
+            if (in.length() > 0) in.append(',');
+            in.append(alert.id);
+        }
+        try (Cursor c = db.rawQuery(
+                "SELECT alert_id, phone, status, updated_at, channel, confirmed_ms, tier, queue_position "
+                        + "FROM alert_recipients WHERE alert_id IN (" + in + ") ORDER BY queue_position",
+                null)) {
+            while (c.moveToNext()) {
+                Alert alert = byId.get(c.getLong(0));
+                if (alert == null) continue;
+                Recipient recipient = new Recipient();
+                recipient.phone = c.getString(1);
+                recipient.status = c.getString(2);
+                recipient.updatedAt = c.getLong(3);
+                recipient.channel = c.getString(4);
+                recipient.confirmedMs = c.isNull(5) ? -1 : c.getLong(5);
+                recipient.tier = c.getInt(6);
+                recipient.queuePosition = c.isNull(7) ? -1 : c.getInt(7);
+                alert.recipients.add(recipient);
+            }
+        }
+        return alerts;
+    }
+
+    public long countUnsynced() {
+        SQLiteDatabase db = getReadableDatabase();
+        try (Cursor c = db.rawQuery("SELECT COUNT(*) FROM alerts WHERE synced = 0", null)) {
+            return c.moveToFirst() ? c.getLong(0) : 0;
+        }
+    }
+
+    public static class Alert {
+        public long id;
+        public long createdAt;
+        // Null when the alert had no fix
+        public Double latitude;
+        public Double longitude;
+        public String address;
+        public String source;
+        public String status;
+        public boolean synced;
+        public String trail;
+        public long version;
+        public final List<Recipient> recipients = new ArrayList<>();
+    }
+
+    public static class Recipient {
+        public String phone;
+        public String status;
+        public long updatedAt;
+        public String channel;
+        public long confirmedMs;
+        public int tier;
+        public int queuePosition;
+    }
+}
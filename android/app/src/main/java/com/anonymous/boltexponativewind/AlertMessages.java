@@ -0,0 +1,70 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.anonymous.boltexponativewind.core.AlertComposer;
+import com.anonymous.boltexponativewind.core.AlertTemplate;
+
+import org.json.JSONObject;
+
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * The AlertComposer for this device, built from "alert_template" and "alert_note" in the shared
+ * config. The template is either one text for every language or a JSON object of texts keyed by
+ * language tag ("hi-IN", "hi", ..., with "default" as the catch-all). The composer is rebuilt
+ * only when the template, note, locale or time zone changes, so sends don't re-parse anything.
+ * A template that doesn't compile is logged and the built-in one for the locale is used instead.
+ */
+public class AlertMessages {
+    private static final String TAG = "AlertMessages";
+    private static final String DEFAULT_LANGUAGE = "default";
+
+    private static AlertComposer cached;
+    private static String cachedSource;
+    private static String cachedNote;
+    private static Locale cachedLocale;
+    private static TimeZone cachedTimeZone;
+
+    public static synchronized AlertComposer composer(Context context) {
+        SharedStateFile config = SharedStateFile.get(context, SharedStateFile.CONFIG);
+        String source = config.getString(DirectBoot.KEY_ALERT_TEMPLATE, "");
+        String note = config.getString(DirectBoot.KEY_ALERT_NOTE, "");
+        Locale locale = Locale.getDefault();
+        TimeZone timeZone = TimeZone.getDefault();
+        if (cached != null && source.equals(cachedSource) && note.equals(cachedNote)
+                && locale.equals(cachedLocale) && timeZone.equals(cachedTimeZone)) {
+            return cached;
+        }
+
+        cached = new AlertComposer(compile(source, locale), locale, timeZone, note);
+        cachedSource = source;
+        cachedNote = note;
+        cachedLocale = locale;
+        cachedTimeZone = timeZone;
+        Log.d(TAG, "Alert template compiled for " + locale.toLanguageTag());
+        return cached;
+    }
+
+    private static AlertTemplate compile(String source, Locale locale) {
+        try {
+            String text = forLocale(source, locale);
+            if (text != null && !text.isEmpty()) return AlertTemplate.compile(text);
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Ignoring invalid alert template: " + e.getMessage());
+        }
+        return AlertComposer.builtIn(locale);
+    }
+
+    private static String forLocale(String source, Locale locale) throws Exception {
+        if (!source.trim().startsWith("{\"")) return source; // one text for every language
+        JSONObject byLanguage = new JSONObject(source);
+        for (String key : new String[] { locale.toLanguageTag(), locale.getLanguage(), DEFAULT_LANGUAGE }) {
+            String text = byLanguage.optString(key, null);
+            if (text != null && !text.isEmpty()) return text;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,179 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One emergency = one alert session, whichever path triggered it (notification YES, a JS
+ * sendEmergencyAlert, a repeated shake). begin() either opens a new session or coalesces
+ * the trigger into the open one, so only the first trigger dispatches. Later triggers
+ * count as escalations of that session. The state lives in a SharedStateFile and is
+ * changed under a file lock, because the UI and detector processes both trigger.
+ *
+ * A session stays open while its dispatch and live location run. After it ends, triggers
+ * still coalesce for COOLDOWN_MS. A cancel closes it with no cooldown. If a process dies
+ * mid-session, the session expires STALE_MS after its last activity.
+ */
+public class AlertSessionManager {
+    private static final String TAG = "AlertSessionManager";
+    public static final String EXTRA_SESSION_ID = "alert_session_id";
+
+    private static final long COOLDOWN_MS = 2 * 60 * 1000L;
+    private static final long STALE_MS = 45 * 60 * 1000L;
+
+    private static final String KEY_ID = "session_id";
+    private static final String KEY_STATE = "state";
+    private static final String KEY_SOURCE = "source";
+    private static final String KEY_STARTED_AT = "started_at";
+    private static final String KEY_UPDATED_AT = "updated_at";
+    private static final String KEY_ENDED_AT = "ended_at";
+    private static final String KEY_TRIGGERS = "triggers";
+    private static final String KEY_COALESCED_TOTAL = "coalesced_total";
+
+    private static final String STATE_ACTIVE = "active";
+    private static final String STATE_ENDED = "ended";
+    private static final String STATE_CANCELLED = "cancelled";
+
+    // FileLock is per process; this serialises threads within it
+    private static final Object processLock = new Object();
+
+    public static class Decision {
+        public final String sessionId;
+        /** True for the trigger that opened the session and should dispatch. */
+        public final boolean isNew;
+
+        Decision(String sessionId, boolean isNew) {
+            this.sessionId = sessionId;
+            this.isNew = isNew;
+        }
+    }
+
+    private interface Update {
+        Decision apply(SharedStateFile file, long now, Map<String, String> changes);
+    }
+
+    /** Opens a session, or joins the one already open. */
+    public static Decision begin(Context context, String source) {
+        Decision decision = locked(context, (file, now, changes) -> {
+            String id = file.getString(KEY_ID, null);
+            if (id != null && isOpen(file, now)) {
+                changes.put(KEY_TRIGGERS, String.valueOf(file.getLong(KEY_TRIGGERS, 1) + 1));
+                changes.put(KEY_COALESCED_TOTAL, String.valueOf(file.getLong(KEY_COALESCED_TOTAL, 0) + 1));
+                changes.put(KEY_UPDATED_AT, String.valueOf(now));
+                return new Decision(id, false);
+            }
+            String newId = UUID.randomUUID().toString();
+            changes.put(KEY_ID, newId);
+            changes.put(KEY_STATE, STATE_ACTIVE);
+            changes.put(KEY_SOURCE, source);
+            changes.put(KEY_STARTED_AT, String.valueOf(now));
+            changes.put(KEY_UPDATED_AT, String.valueOf(now));
+            changes.put(KEY_ENDED_AT, null);
+            changes.put(KEY_TRIGGERS, "1");
+            return new Decision(newId, true);
+        });
+        if (decision == null) {
+            // Lock or file trouble must never block an alert
+            return new Decision(UUID.randomUUID().toString(), true);
+        }
+        Log.d(TAG, decision.isNew
+                ? "🆕 Alert session opened by " + source
+                : "🔗 Trigger from " + source + " coalesced into the open session");
+        return decision;
+    }
+
+    /**
+     * Coalesces the trigger into an open session and returns it, or returns null when none is
+     * open. For triggers such as a shake, which should not open a session on their own.
+     */
+    public static Decision joinIfOpen(Context context, String source) {
+        Decision decision = locked(context, (file, now, changes) -> {
+            String id = file.getString(KEY_ID, null);
+            if (id == null || !isOpen(file, now)) return null;
+            changes.put(KEY_TRIGGERS, String.valueOf(file.getLong(KEY_TRIGGERS, 1) + 1));
+            changes.put(KEY_COALESCED_TOTAL, String.valueOf(file.getLong(KEY_COALESCED_TOTAL, 0) + 1));
+            changes.put(KEY_UPDATED_AT, String.valueOf(now));
+            return new Decision(id, false);
+        });
+        if (decision != null) Log.d(TAG, "🔗 Trigger from " + source + " coalesced into the open session");
+        return decision;
+    }
+
+    /** True while the session is open (or in its cooldown); false once it expired or was cancelled. */
+    public static boolean isCurrent(Context context, String sessionId) {
+        SharedStateFile file = SharedStateFile.get(context, SharedStateFile.ALERT_SESSION);
+        return sessionId != null && sessionId.equals(file.getString(KEY_ID, null))
+                && isOpen(file, System.currentTimeMillis());
+    }
+
+    /** Marks activity, so a long-running dispatch or live location session doesn't go stale. */
+    public static void touch(Context context, String sessionId) {
+        transition(context, sessionId, null);
+    }
+
+    /** Dispatch and follow-ups are done; triggers still coalesce during the cooldown. */
+    public static void end(Context context, String sessionId) {
+        transition(context, sessionId, STATE_ENDED);
+    }
+
+    /** The user is safe: close the session immediately, so the next trigger alerts again. */
+    public static void cancel(Context context) {
+        transition(context, null, STATE_CANCELLED);
+    }
+
+    private static void transition(Context context, String sessionId, String state) {
+        locked(context, (file, now, changes) -> {
+            String id = file.getString(KEY_ID, null);
+            if (id == null || (sessionId != null && !sessionId.equals(id))) return null;
+            if (!STATE_ACTIVE.equals(file.getString(KEY_STATE, null))) return null;
+            changes.put(KEY_UPDATED_AT, String.valueOf(now));
+            if (state != null) {
+                changes.put(KEY_STATE, state);
+                changes.put(KEY_ENDED_AT, String.valueOf(now));
+            }
+            return null;
+        });
+    }
+
+    private static boolean isOpen(SharedStateFile file, long now) {
+        String state = file.getString(KEY_STATE, null);
+        if (STATE_ACTIVE.equals(state)) {
+            return now - file.getLong(KEY_UPDATED_AT, 0) < STALE_MS;
+        }
+        if (STATE_ENDED.equals(state)) {
+            return now - file.getLong(KEY_ENDED_AT, 0) < COOLDOWN_MS;
+        }
+        return false;
+    }
+
+    public static Map<String, String> readState(Context context) {
+        return SharedStateFile.get(context, SharedStateFile.ALERT_SESSION).snapshot();
+    }
+
+    private static Decision locked(Context context, Update update) {
+        synchronized (processLock) {
+            File lockFile = new File(SharedStateFile.sharedDir(context), "alert_session.lock");
+            try (RandomAccessFile raf = new RandomAccessFile(lockFile, "rw");
+                 FileChannel channel = raf.getChannel();
+                 FileLock ignored = channel.lock()) {
+                SharedStateFile file = SharedStateFile.get(context, SharedStateFile.ALERT_SESSION);
+                file.invalidate(); // another process may have written within our mtime granularity
+                Map<String, String> changes = new HashMap<>();
+                Decision decision = update.apply(file, System.currentTimeMillis(), changes);
+                if (!changes.isEmpty()) file.putAll(changes);
+                return decision;
+            } catch (Exception e) {
+                Log.e(TAG, "Alert session state unavailable", e);
+                return null;
+            }
+        }
+    }
+}
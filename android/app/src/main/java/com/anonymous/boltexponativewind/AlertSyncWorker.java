@@ -0,0 +1,264 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Drains unsynced rows from AlertHistoryStore to the backend in size-bounded batches:
+ * one gzipped POST per batch, then the batch marked synced in one transaction. Each row is
+ * only marked if its version is still the one uploaded: a recipient status that lands while
+ * the request is in flight leaves the alert unsynced, and it goes up again in a later batch.
+ * Runs under WorkManager with a network constraint, so it works without the JS app;
+ * transient failures are retried with WorkManager's exponential backoff.
+ *
+ * The endpoint is API_BASE from services/api.ts (mirrored as "api_base"), so pointing it
+ * at a local HTTP server is enough to exercise it (see AlertSyncWorkerTest).
+ */
+public class AlertSyncWorker extends Worker {
+    private static final String TAG = "AlertSyncWorker";
+    private static final String PREFS_NAME = "SafeHerPrefs";
+    private static final String UNIQUE_WORK = "safeher_alert_sync";
+    private static final String UNIQUE_PERIODIC_WORK = "safeher_alert_sync_periodic";
+    private static final String SYNC_PATH = "/api/alerts/sync";
+
+    public static final String KEY_API_BASE = DirectBoot.KEY_API_BASE;
+    public static final String KEY_AUTH_TOKEN = "auth_token";
+
+    private static final int MAX_ALERTS_PER_BATCH = 50;
+    private static final int MAX_BATCH_BYTES = 64 * 1024;
+    private static final int MAX_BATCHES_PER_RUN = 10;
+    private static final int MAX_ATTEMPTS = 8;
+    private static final int TIMEOUT_MS = 15000;
+
+    public AlertSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /** Schedules a sync as soon as there is network; later requests are appended, not dropped. */
+    public static void enqueue(Context context) {
+        if (!DirectBoot.isUserUnlocked(context)) return; // WorkManager's database is credential-protected
+        try {
+            OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(AlertSyncWorker.class)
+                    .setConstraints(networkConstraint())
+                    .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                    .build();
+            WorkManager.getInstance(context)
+                    .enqueueUniqueWork(UNIQUE_WORK, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to enqueue alert sync", e);
+        }
+    }
+
+    /** Safety net for alerts whose one-time sync gave up. */
+    public static void schedulePeriodic(Context context) {
+        if (!DirectBoot.isUserUnlocked(context)) return;
+        try {
+            PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(AlertSyncWorker.class, 6, TimeUnit.HOURS)
+                    .setConstraints(networkConstraint())
+                    .build();
+            WorkManager.getInstance(context)
+                    .enqueueUniquePeriodicWork(UNIQUE_PERIODIC_WORK, ExistingPeriodicWorkPolicy.KEEP, request);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to schedule periodic alert sync", e);
+        }
+    }
+
+    private static Constraints networkConstraint() {
+        return new Constraints.Builder().setRequiredNetworkType(NetworkType.CONNECTED).build();
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        SharedPreferences prefs = getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String apiBase = prefs.getString(KEY_API_BASE, "");
+        if (apiBase.isEmpty()) {
+            Log.w(TAG, "No api_base configured; skipping sync");
+            return Result.success();
+        }
+        String token = prefs.getString(KEY_AUTH_TOKEN, "");
+        AlertHistoryStore store = AlertHistoryStore.get(getApplicationContext());
+
+        for (int batchNo = 0; batchNo < MAX_BATCHES_PER_RUN; batchNo++) {
+            if (!AppTasks.yieldToEmergencies(getApplicationContext())) return Result.retry();
+            List<AlertHistoryStore.Alert> batch = store.loadUnsyncedBatch(MAX_ALERTS_PER_BATCH);
+            if (batch.isEmpty()) return Result.success();
+
+            long[] ids;
+            long[] versions;
+            byte[] body;
+            try {
+                JSONArray alerts = new JSONArray();
+                int approxBytes = 0;
+                int count = 0;
+                for (AlertHistoryStore.Alert alert : batch) {
+                    JSONObject json = toJson(alert);
+                    approxBytes += json.toString().length();
+                    // Always send at least one alert, however big
+                    if (count > 0 && approxBytes > MAX_BATCH_BYTES) break;
+                    alerts.put(json);
+                    count++;
+                }
+                ids = new long[count];
+                versions = new long[count];
+                for (int i = 0; i < count; i++) {
+                    ids[i] = batch.get(i).id;
+                    versions[i] = batch.get(i).version;
+                }
+                body = gzip(new JSONObject().put("alerts", alerts).toString());
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to encode sync batch", e);
+                return Result.failure();
+            }
+
+            int code;
+            try {
+                code = post(apiBase + SYNC_PATH, token, body, idempotencyKey(ids, versions));
+            } catch (IOException e) {
+                Log.w(TAG, "Sync request failed: " + e.getMessage());
+                return retryOrFail();
+            }
+
+            if (code >= 200 && code < 300) {
+                int marked = store.markSynced(ids, versions);
+                Log.d(TAG, "Synced " + ids.length + " alert(s), " + body.length + " bytes gzipped"
+                        + (marked < ids.length ? "; " + (ids.length - marked) + " changed meanwhile" : ""));
+            } else if (code == 408 || code == 429 || code >= 500) {
+                Log.w(TAG, "Sync got retryable HTTP " + code);
+                return retryOrFail();
+            } else {
+                // 4xx: retrying the same payload won't help; the periodic sync picks these up again
+                Log.e(TAG, "Sync rejected with HTTP " + code);
+                return Result.failure();
+            }
+        }
+        // More left than one run should take; continue in a fresh run
+        enqueue(getApplicationContext());
+        return Result.success();
+    }
+
+    private Result retryOrFail() {
+        return getRunAttemptCount() + 1 < MAX_ATTEMPTS ? Result.retry() : Result.failure();
+    }
+
+    private static JSONObject toJson(AlertHistoryStore.Alert alert) throws Exception {
+        JSONObject json = new JSONObject();
+        json.put("id", alert.id);
+        json.put("createdAt", alert.createdAt);
+        // No fix: sent as null, not as a position at 0,0
+        json.put("latitude", alert.latitude != null ? alert.latitude : JSONObject.NULL);
+        json.put("longitude", alert.longitude != null ? alert.longitude : JSONObject.NULL);
+        json.put("address", alert.address);
+        json.put("source", alert.source);
+        json.put("status", alert.status);
+        json.put("trail", alert.trail);
+        JSONArray recipients = new JSONArray();
+        for (AlertHistoryStore.Recipient recipient : alert.recipients) {
+            recipients.put(new JSONObject()
+                    .put("phone", recipient.phone)
+                    .put("status", recipient.status)
+                    .put("updatedAt", recipient.updatedAt)
+                    .put("channel", recipient.channel)
+                    .put("tier", recipient.tier)
+                    .put("queuePosition", recipient.queuePosition >= 0 ? recipient.queuePosition : JSONObject.NULL)
+                    .put("confirmedMs", recipient.confirmedMs >= 0 ? recipient.confirmedMs : JSONObject.NULL));
+        }
+        json.put("recipients", recipients);
+        return json;
+    }
+
+    private static byte[] gzip(String json) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length() / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(bytes)) {
+            gz.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Same alerts at the same versions give the same key, so a batch re-sent after a lost ack is
+     * dropped as a duplicate; a changed alert gets a new key and its update is stored.
+     */
+    static String idempotencyKey(long[] ids, long[] versions) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer pair = ByteBuffer.allocate(16);
+            for (int i = 0; i < ids.length; i++) {
+                pair.clear();
+                digest.update(pair.putLong(ids[i]).putLong(versions[i]).array());
+            }
+            byte[] hash = digest.digest();
+            StringBuilder key = new StringBuilder("alerts-");
+            for (int i = 0; i < 16; i++) key.append(String.format(Locale.US, "%02x", hash[i]));
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private static int post(String url, String token, byte[] body, String idempotencyKey) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            conn.setRequestMethod("POST");
+            conn.setConnectTimeout(TIMEOUT_MS);
+            conn.setReadTimeout(TIMEOUT_MS);
+            conn.setDoOutput(true);
+            conn.setFixedLengthStreamingMode(body.length);
+            conn.setRequestProperty("Content-Type", "application/json");
+            conn.setRequestProperty("Content-Encoding", "gzip");
+            // Lets the backend drop a batch it already stored when our ack got lost
+            conn.setRequestProperty("Idempotency-Key", idempotencyKey);
+            if (!token.isEmpty()) {
+                conn.setRequestProperty("Authorization", "Bearer " + token);
+            }
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(body);
+            }
+            int code = conn.getResponseCode();
+            drain(code < 400 ? conn.getInputStream() : conn.getErrorStream());
+            return code;
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private static void drain(InputStream in) {
+        if (in == null) return;
+        try (InputStream stream = in) {
+            byte[] buf = new byte[512];
+            while (stream.read(buf) != -1) { /* keep-alive needs the body consumed */ }
+        } catch (IOException ignored) {
+        }
+    }
+}
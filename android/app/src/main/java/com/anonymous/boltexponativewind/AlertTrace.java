@@ -0,0 +1,139 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Process;
+import android.os.Trace;
+import android.util.Log;
+
+import com.anonymous.boltexponativewind.core.TraceRecorder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Trace sections around each stage of the alert pipeline. Every section goes to
+ * android.os.Trace, so it shows up in a Perfetto capture, and into an in-process TraceRecorder
+ * ring, so a slow alert in the field can still be diagnosed after the fact. Each process flushes
+ * its ring into the shared directory when a dispatch ends; export() merges those files into one
+ * trace that ui.perfetto.dev opens.
+ */
+public final class AlertTrace {
+    private static final String TAG = "AlertTrace";
+
+    // Stage names, as they appear in both the platform trace and the exported file
+    public static final String SENSOR = "SafeHer:sensor";
+    public static final String TRIGGER = "SafeHer:trigger";
+    public static final String NOTIFY = "SafeHer:notify";
+    public static final String CONFIRMATION = "SafeHer:awaiting_confirmation";
+    public static final String RECEIVER = "SafeHer:receiver";
+    public static final String SERVICE_START = "SafeHer:service_start";
+    public static final String DISPATCH = "SafeHer:dispatch";
+    public static final String LOCATION = "SafeHer:location";
+    public static final String PREWARM_FIX = "SafeHer:prewarm_fix";
+    public static final String GEOCODE = "SafeHer:geocode";
+    public static final String COMPOSE = "SafeHer:compose";
+    public static final String SUBMIT = "SafeHer:submit";
+    public static final String SMS = "SafeHer:sms";
+
+    /** Only one confirmation is ever showing, so its async section needs no real cookie. */
+    public static final int CONFIRMATION_COOKIE = 1002;
+
+    private static final int CAPACITY = 2048;
+    private static final String FILE_PREFIX = "alert_trace_";
+    private static final String EXPORT_NAME = "safeher-alert-trace.json";
+
+    private static final TraceRecorder recorder = new TraceRecorder(AndroidClock.INSTANCE, CAPACITY);
+
+    private AlertTrace() {
+    }
+
+    public static void begin(String stage) {
+        Trace.beginSection(stage);
+        recorder.begin(stage, Process.myTid());
+    }
+
+    /** Ends the innermost section begun on this thread. */
+    public static void end() {
+        recorder.end(Process.myTid());
+        Trace.endSection();
+    }
+
+    /** A stage that ends on another thread or component; {@code cookie} pairs the two calls. */
+    public static void beginAsync(String stage, int cookie) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) Trace.beginAsyncSection(stage, cookie);
+        recorder.beginAsync(stage, cookie);
+    }
+
+    public static void endAsync(String stage, int cookie) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) Trace.endAsyncSection(stage, cookie);
+        recorder.endAsync(stage, cookie);
+    }
+
+    /** Cookie for one recipient's send on one SIM. */
+    public static int sendCookie(long alertId, String phone, int subscriptionId) {
+        return (int) (alertId * 31 + phone.hashCode()) * 31 + subscriptionId;
+    }
+
+    /** Writes this process's ring into the shared directory, replacing its previous flush. */
+    public static void flush(Context context) {
+        String process = DetectorProcess.isDetectorProcess(context) ? "detector" : "app";
+        File target = new File(SharedStateFile.sharedDir(context), FILE_PREFIX + process + ".json");
+        try {
+            write(target, recorder.toJson(Process.myPid(), process));
+        } catch (IOException e) {
+            Log.w(TAG, "Could not flush alert trace: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Flushes this process and merges every process's last flush into one trace file in the
+     * cache directory, ready to share.
+     */
+    public static File export(Context context) throws IOException {
+        flush(context);
+        StringBuilder merged = new StringBuilder("{\"traceEvents\":[");
+        File[] flushed = SharedStateFile.sharedDir(context).listFiles(
+                (dir, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(".json"));
+        boolean first = true;
+        if (flushed != null) {
+            for (File file : flushed) {
+                String json = read(file);
+                // Our own toJson output: the events sit between the first '[' and the last ']'
+                int start = json.indexOf('[') + 1, end = json.lastIndexOf(']');
+                if (start <= 0 || end <= start) continue;
+                if (!first) merged.append(',');
+                merged.append(json, start, end);
+                first = false;
+            }
+        }
+        merged.append("],\"displayTimeUnit\":\"ms\"}");
+        File export = new File(context.getCacheDir(), EXPORT_NAME);
+        write(export, merged.toString());
+        return export;
+    }
+
+    private static String read(File file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) file.length());
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) bytes.write(buffer, 0, n);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void write(File target, String json) throws IOException {
+        File tmp = new File(target.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        if (!tmp.renameTo(target)) throw new IOException("rename failed for " + target);
+    }
+}
@@ -0,0 +1,28 @@
+package com.anonymous.boltexponativewind;
+
+import android.os.SystemClock;
+
+import com.anonymous.boltexponativewind.core.Clock;
+
+/** SystemClock-backed Clock for the core classes; elapsedRealtime keeps counting in deep sleep. */
+public final class AndroidClock implements Clock {
+    public static final AndroidClock INSTANCE = new AndroidClock();
+
+    private AndroidClock() {
+    }
+
+    @Override
+    public long elapsedRealtime() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public long elapsedRealtimeNanos() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+}
@@ -0,0 +1,45 @@
+package com.anonymous.boltexponativewind;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.location.LocationManager;
+
+import androidx.core.content.ContextCompat;
+
+import com.anonymous.boltexponativewind.core.LocationSource;
+
+/** Last known GPS fix, else the last network fix; never waits for a new one. */
+public class AndroidLocationSource implements LocationSource {
+    private final Context context;
+    private Location lastLocation;
+
+    public AndroidLocationSource(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public Fix lastKnownFix() {
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED) {
+            return null;
+        }
+        LocationManager lm = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+        if (lm == null) return null;
+        Location lastKnown = lm.getLastKnownLocation(LocationManager.GPS_PROVIDER);
+        if (lastKnown == null) lastKnown = lm.getLastKnownLocation(LocationManager.NETWORK_PROVIDER);
+        lastLocation = lastKnown;
+        return toFix(lastKnown);
+    }
+
+    /** The platform object behind the last lastKnownFix(), for LiveLocationSession. */
+    public Location lastLocation() {
+        return lastLocation;
+    }
+
+    public static Fix toFix(Location location) {
+        if (location == null) return null;
+        return new Fix(location.getLatitude(), location.getLongitude(), location.getAccuracy(), location.getTime());
+    }
+}
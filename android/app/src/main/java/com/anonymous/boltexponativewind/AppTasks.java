@@ -0,0 +1,57 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import com.anonymous.boltexponativewind.core.TaskRuntime;
+
+/**
+ * The process-wide TaskRuntime (see there). Dispatch, alert and SMS-job work goes to EMERGENCY,
+ * lower tiers streaming out under the SMS quota to PACED, config and upload scheduling to SYNC,
+ * stats snapshots to HOUSEKEEPING; the sync and upload workers wait out emergencies between
+ * requests, in this process and the detector process. Looper-bound work
+ * (live location, prewarm) keeps its HandlerThreads, and evidence capture keeps its own threads
+ * because it runs for the whole recording.
+ */
+public class AppTasks {
+    private static final TaskRuntime INSTANCE = new TaskRuntime(AndroidClock.INSTANCE);
+
+    private static final long EMERGENCY_WAIT_MS = 60 * 1000L;
+    private static final long DISPATCH_POLL_MS = 1000;
+
+    public static TaskRuntime get() {
+        return INSTANCE;
+    }
+
+    /**
+     * For WorkManager workers, which run outside the lanes: blocks while this process has
+     * emergency work in flight, or the status page shows a dispatch running in the detector
+     * process. False when that outlasted the wait; the worker should retry.
+     */
+    public static boolean yieldToEmergencies(Context context) {
+        long end = SystemClock.elapsedRealtime() + EMERGENCY_WAIT_MS;
+        try {
+            if (!INSTANCE.awaitEmergencyIdle(EMERGENCY_WAIT_MS)) return false;
+            // The detector's lanes are out of reach from here; its status page isn't
+            ServiceStatusPage statusPage = ServiceStatusPage.get(context);
+            while (statusPage != null && isDispatching(statusPage.read())) {
+                if (SystemClock.elapsedRealtime() >= end) return false;
+                Thread.sleep(DISPATCH_POLL_MS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * A dispatch left "started" by a process that died, or older than its deadline, doesn't count;
+     * neither does a page that couldn't be read (null).
+     */
+    private static boolean isDispatching(ServiceStatusPage.Snapshot status) {
+        return status != null && status.valid && status.dispatchState == ServiceStatusPage.DISPATCH_STARTED
+                && System.currentTimeMillis() - status.lastDispatchId < EmergencyDispatchService.DISPATCH_TIMEOUT_MS
+                && status.isWriterAlive();
+    }
+}
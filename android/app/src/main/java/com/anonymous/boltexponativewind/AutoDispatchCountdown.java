@@ -0,0 +1,211 @@
+package com.anonymous.boltexponativewind;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Countdown mode for the triple-shake confirmation. With "auto_dispatch_seconds" set, the alert
+ * goes out on its own unless NO is tapped first, so a user who can't touch the phone still gets
+ * help within a bounded time. DispatchPrewarm readies the dispatch path while the countdown runs.
+ *
+ * The timer is a main-looper handler in the detector process, where ShakeService keeps the
+ * process in the foreground, with a wake lock so it also runs with the screen off. An alarm at
+ * the same deadline is the backstop for a process that dies meanwhile. It is exact when the
+ * user allows exact alarms; otherwise Doze may defer it, which Settings points out
+ * (exactAlarmsAllowed). The armed countdown lives in a SharedStateFile because the alarm may be
+ * delivered to a freshly started process, and whichever of the two fires first consumes it.
+ */
+public class AutoDispatchCountdown {
+    private static final String TAG = "AutoDispatchCountdown";
+
+    public static final String ACTION_AUTO_DISPATCH = "com.anonymous.boltexponativewind.ACTION_AUTO_DISPATCH";
+    /** elapsedRealtime of the trigger, passed on to EmergencyDispatchService for latency stats. */
+    public static final String EXTRA_TRIGGERED_AT = "auto_dispatch_triggered_at";
+
+    private static final int MAX_SECONDS = 120;
+    private static final int REQUEST_CODE = 4;
+    // Past the deadline, so the receiver runs before the CPU may sleep again
+    private static final long WAKE_LOCK_MARGIN_MS = 10 * 1000L;
+    private static final String EXTRA_FROM_TIMER = "auto_dispatch_from_timer";
+
+    private static final String KEY_TRIGGERED_AT = "triggered_at";
+    private static final String KEY_DEADLINE = "deadline";
+
+    private static final Handler timer = new Handler(Looper.getMainLooper());
+    private static Runnable pendingFire;
+    private static PowerManager.WakeLock wakeLock;
+
+    /** Configured countdown in seconds; 0 keeps the confirmation waiting for an answer. */
+    public static int configuredSeconds(Context context) {
+        String value = SharedStateFile.get(context, SharedStateFile.CONFIG)
+                .getString(DirectBoot.KEY_AUTO_DISPATCH_SECONDS, null);
+        if (value == null) return 0;
+        try {
+            return Math.max(0, Math.min(MAX_SECONDS, Integer.parseInt(value.trim())));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Arms the countdown and returns its deadline in elapsedRealtime. A trigger while a countdown
+     * is already running keeps the earlier deadline rather than pushing it back.
+     */
+    public static long start(Context context, int seconds) {
+        SharedStateFile state = SharedStateFile.get(context, SharedStateFile.AUTO_DISPATCH);
+        long now = SystemClock.elapsedRealtime();
+        long deadline = state.getLong(KEY_DEADLINE, -1);
+        long triggeredAt = state.getLong(KEY_TRIGGERED_AT, -1);
+        if (deadline > now && triggeredAt >= 0 && triggeredAt <= now) return deadline;
+
+        deadline = now + seconds * 1000L;
+        Map<String, String> update = new HashMap<>();
+        update.put(KEY_TRIGGERED_AT, String.valueOf(now));
+        update.put(KEY_DEADLINE, String.valueOf(deadline));
+        state.putAll(update);
+
+        startTimer(context.getApplicationContext(), deadline - now);
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            Log.e(TAG, "AlarmManager not available; only the in-process timer can fire");
+            return deadline;
+        }
+        PendingIntent pendingIntent = alarmPendingIntent(context);
+        if (!exactAlarmsAllowed(context)) {
+            // Only matters if the process dies before the timer fires; then it may be late
+            Log.w(TAG, "⚠️ Exact alarm permission denied; the backstop alarm is inexact");
+            alarmManager.setAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, deadline, pendingIntent);
+        } else {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, deadline, pendingIntent);
+        }
+        Log.d(TAG, "⏳ Auto-dispatch in " + seconds + " s unless cancelled");
+        return deadline;
+    }
+
+    /** False when the backstop alarm can only be inexact, so Doze may defer it. */
+    public static boolean exactAlarmsAllowed(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S) return true;
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        return alarmManager != null && alarmManager.canScheduleExactAlarms();
+    }
+
+    private static synchronized void startTimer(Context context, long delayMs) {
+        stopTimer();
+        if (wakeLock == null) {
+            PowerManager pm = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+            if (pm != null) {
+                wakeLock = pm.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "SafeHer:AutoDispatchCountdown");
+                wakeLock.setReferenceCounted(false);
+            }
+        }
+        if (wakeLock != null) wakeLock.acquire(delayMs + WAKE_LOCK_MARGIN_MS);
+        pendingFire = () -> {
+            // Same path as the alarm, so EmergencyActionReceiver handles both alike
+            Intent intent = new Intent(context, EmergencyActionReceiver.class);
+            intent.setAction(ACTION_AUTO_DISPATCH);
+            intent.putExtra(EXTRA_FROM_TIMER, true);
+            context.sendBroadcast(intent);
+        };
+        timer.postDelayed(pendingFire, delayMs);
+    }
+
+    private static synchronized void stopTimer() {
+        if (pendingFire != null) {
+            timer.removeCallbacks(pendingFire);
+            pendingFire = null;
+        }
+        if (wakeLock != null && wakeLock.isHeld()) wakeLock.release();
+    }
+
+    /**
+     * Disarms the countdown after YES or NO; safe to call when none is running. The prewarm is
+     * left alone so YES can still use it; NO stops it separately.
+     */
+    public static void cancel(Context context) {
+        stopTimer();
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) alarmManager.cancel(alarmPendingIntent(context));
+        clear(context);
+    }
+
+    /**
+     * Consumes the countdown when its timer or alarm fires. Returns the trigger's elapsedRealtime,
+     * or -1 when it was answered meanwhile, the other one fired first, or it belongs to an earlier boot.
+     */
+    public static long onAlarm(Context context, Intent intent) {
+        boolean fromTimer = intent.getBooleanExtra(EXTRA_FROM_TIMER, false);
+        stopTimer();
+        if (fromTimer) {
+            AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+            if (alarmManager != null) alarmManager.cancel(alarmPendingIntent(context));
+        }
+        SharedStateFile state = SharedStateFile.get(context, SharedStateFile.AUTO_DISPATCH);
+        long triggeredAt = state.getLong(KEY_TRIGGERED_AT, -1);
+        long deadline = state.getLong(KEY_DEADLINE, -1);
+        clear(context);
+        long now = SystemClock.elapsedRealtime();
+        if (triggeredAt < 0 || triggeredAt > now) return -1;
+
+        long lateMs = Math.max(0, now - deadline);
+        SharedStateFile.get(context, SharedStateFile.AUTO_DISPATCH_STATS).merge(current -> {
+            Map<String, String> update = new HashMap<>();
+            update.put("auto_dispatches",
+                    String.valueOf(SharedStateFile.parseLong(current.get("auto_dispatches"), 0) + 1));
+            update.put("last_alarm_late_ms", String.valueOf(lateMs));
+            update.put("max_alarm_late_ms", String.valueOf(
+                    Math.max(lateMs, SharedStateFile.parseLong(current.get("max_alarm_late_ms"), 0))));
+            update.put("last_trigger_to_dispatch_ms", String.valueOf(now - triggeredAt));
+            if (!fromTimer) {
+                update.put("alarm_fallbacks",
+                        String.valueOf(SharedStateFile.parseLong(current.get("alarm_fallbacks"), 0) + 1));
+            }
+            return update;
+        });
+        Log.d(TAG, "⏰ Countdown expired unanswered; " + (fromTimer ? "timer" : "alarm") + " " + lateMs + " ms late");
+        return triggeredAt;
+    }
+
+    /** Time from trigger to the first SMS handed to the radio, the number users actually feel. */
+    public static void recordFirstSend(Context context, long triggeredAt) {
+        long latencyMs = SystemClock.elapsedRealtime() - triggeredAt;
+        SharedStateFile.get(context, SharedStateFile.AUTO_DISPATCH_STATS).merge(current -> {
+            Map<String, String> update = new HashMap<>();
+            update.put("last_trigger_to_first_sms_ms", String.valueOf(latencyMs));
+            update.put("max_trigger_to_first_sms_ms", String.valueOf(
+                    Math.max(latencyMs, SharedStateFile.parseLong(current.get("max_trigger_to_first_sms_ms"), 0))));
+            return update;
+        });
+    }
+
+    /** Countdown stats, plus whether the backstop alarm can be exact right now. */
+    public static Map<String, String> readStats(Context context) {
+        Map<String, String> stats = SharedStateFile.get(context, SharedStateFile.AUTO_DISPATCH_STATS).snapshot();
+        stats.put("exact_alarms_allowed", String.valueOf(exactAlarmsAllowed(context)));
+        return stats;
+    }
+
+    private static void clear(Context context) {
+        Map<String, String> update = new HashMap<>();
+        update.put(KEY_TRIGGERED_AT, null);
+        update.put(KEY_DEADLINE, null);
+        SharedStateFile.get(context, SharedStateFile.AUTO_DISPATCH).putAll(update);
+    }
+
+    private static PendingIntent alarmPendingIntent(Context context) {
+        Intent intent = new Intent(context, EmergencyActionReceiver.class);
+        intent.setAction(ACTION_AUTO_DISPATCH);
+        return PendingIntent.getBroadcast(context, REQUEST_CODE, intent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+}
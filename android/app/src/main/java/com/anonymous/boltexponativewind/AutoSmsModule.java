@@ -1,26 +1,76 @@
-
 package com.anonymous.boltexponativewind;
 
 import android.Manifest;
 import android.content.Context;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
-import android.telephony.SmsManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.widget.Toast;
 
 import androidx.core.content.ContextCompat;
 
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import com.anonymous.boltexponativewind.core.AlertDispatcher;
+import com.anonymous.boltexponativewind.core.Outbox;
+import com.anonymous.boltexponativewind.core.TaskRuntime;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Sends SMS for the JS emergency flow. sendSms() resolves with a job id at once. The send
+ * loop runs on a native executor, and each recipient's progress is streamed to JS as
+ * "onSmsJobEvent": submitted, then sent/delivered/failed from the radio callbacks. The job
+ * ends with "done" or "cancelled". cancelSmsJob() stops a job before its remaining recipients.
+ */
 public class AutoSmsModule extends ReactContextBaseJavaModule {
     
     private static final String MODULE_NAME = "AutoSmsModule";
+    public static final String EVENT_SMS_JOB = "onSmsJobEvent";
+
+    // A job is paced by the SMS quota, so it can legitimately take minutes
+    private static final long JOB_TIMEOUT_MS = 10 * 60 * 1000L;
+    private static final AtomicInteger jobCounter = new AtomicInteger();
+
+    private final Map<String, SmsJob> jobs = new ConcurrentHashMap<>();
+    // alertId -> job, so radio callbacks can be attributed
+    private final Map<Long, SmsJob> jobsByAlert = new ConcurrentHashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private SmsStatusReceiver statusReceiver;
+    private SmsStatusReceiver.Listener statusListener;
+
+    private static class SmsJob {
+        final String id;
+        final List<String> recipients;
+        final String message;
+        final String sessionId;
+        final Outbox outbox;
+        volatile TaskRuntime.Task task;
+        volatile long alertId = -1;
+
+        SmsJob(String id, List<String> recipients, String message, String sessionId) {
+            this.id = id;
+            this.recipients = recipients;
+            this.message = message;
+            this.sessionId = sessionId;
+            this.outbox = Outbox.untiered(recipients);
+        }
+    }
 
     public AutoSmsModule(ReactApplicationContext context) {
         super(context);
@@ -31,6 +81,7 @@ public class AutoSmsModule extends ReactContextBaseJavaModule {
         return MODULE_NAME;
     }
 
+    /** Resolves with a job id (null when coalesced into an alert already going out). */
     @ReactMethod
     public void sendSms(ReadableArray phoneNumbers, String message, Promise promise) {
         Context context = getReactApplicationContext();
@@ -42,52 +93,153 @@ public class AutoSmsModule extends ReactContextBaseJavaModule {
             return;
         }
         
+        // The native dispatch (or an earlier call) may already be alerting everyone
+        AlertSessionManager.Decision session = AlertSessionManager.begin(context, "js");
+        if (!session.isNew) {
+            Log.d(MODULE_NAME, "Emergency already in progress; coalescing instead of sending again");
+            promise.resolve(null);
+            return;
+        }
+
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < phoneNumbers.size(); i++) {
+            String phoneNumber = phoneNumbers.getString(i);
+            if (phoneNumber != null && !phoneNumber.isEmpty()) recipients.add(phoneNumber);
+        }
+        SmsJob job = new SmsJob("sms-" + System.currentTimeMillis() + "-" + jobCounter.incrementAndGet(),
+                recipients, message, session.sessionId);
+        jobs.put(job.id, job);
+        ensureStatusReceiver();
+        job.task = AppTasks.get().submit(TaskRuntime.Lane.EMERGENCY, "sms_job", JOB_TIMEOUT_MS, task -> runJob(job));
+        promise.resolve(job.id);
+    }
+
+    @ReactMethod
+    public void cancelSmsJob(String jobId, Promise promise) {
+        SmsJob job = jobs.get(jobId);
+        if (job != null) {
+            job.outbox.cancel();
+            // Interrupts a wait for SMS quota; a job not started yet sees the cancelled outbox
+            // and still runs, so it reports "cancelled" and ends its session
+            TaskRuntime.Task task = job.task;
+            if (task != null && task.state() == TaskRuntime.RUNNING) task.cancel();
+        }
+        promise.resolve(job != null);
+    }
+
+    private void runJob(SmsJob job) {
+        Context context = getReactApplicationContext();
+        AlertHistoryStore history = AlertHistoryStore.get(context);
+        int successCount = 0;
         try {
-            SmsManager smsManager = SmsManager.getDefault();
-            ArrayList<String> parts = smsManager.divideMessage(message);
-            int successCount = 0;
-
-            for (int i = 0; i < phoneNumbers.size(); i++) {
-                String phoneNumber = phoneNumbers.getString(i);
-                
-                if (phoneNumber != null && !phoneNumber.isEmpty()) {
-                    try {
-                        // Send SMS silently without user interaction
-                        if (parts.size() == 1) {
-                            smsManager.sendTextMessage(
-                                phoneNumber,
-                                null,
-                                message,
-                                null,
-                                null
-                            );
-                        } else {
-                            smsManager.sendMultipartTextMessage(
-                                phoneNumber,
-                                null,
-                                parts,
-                                null,
-                                null
-                            );
+            long alertId = history.insertAlert(System.currentTimeMillis(), null, null, null, "js", job.recipients);
+            job.alertId = alertId;
+            if (alertId > 0) jobsByAlert.put(alertId, job);
+
+            SmsSender smsSender = PlatformSmsSender.create(context);
+            SimRouter router = SimRouter.start(context, alertId, smsSender);
+            ArrayList<String> parts = smsSender.divideMessage(job.message);
+
+            successCount = new AlertDispatcher(router, SmsSendScheduler.get()).dispatch(job.outbox, parts,
+                    new AlertDispatcher.Listener() {
+                        @Override
+                        public boolean isAlreadyReached(String phone) {
+                            return false;
                         }
-                        Log.d(MODULE_NAME, "SMS sent successfully to: " + phoneNumber);
-                        successCount++;
-                    } catch (Exception e) {
-                        Log.e(MODULE_NAME, "Failed to send SMS to " + phoneNumber + ": " + e.getMessage());
-                    }
-                }
-            }
-            
+
+                        @Override
+                        public void onTierStarted(int tier, int queued, long etaMs) {
+                            // JS jobs are a single tier
+                        }
+
+                        @Override
+                        public void onRecipientResult(String phone, String status) {
+                            if (AlertHistoryStore.RECIPIENT_FAILED.equals(status)) {
+                                Log.e(MODULE_NAME, "Failed to send SMS");
+                            }
+                            history.updatePendingRecipients(alertId, Collections.singletonMap(phone, status));
+                            emitJobEvent(job, status, phone);
+                        }
+                    });
+            // A cancel interrupts the send loop; the bookkeeping below must still get through
+            // (file locks and the like fail on an interrupted thread)
+            Thread.interrupted();
+
+            history.updateAlertStatus(alertId,
+                    successCount > 0 ? AlertHistoryStore.STATUS_SENT : AlertHistoryStore.STATUS_FAILED);
+            AlertSyncWorker.enqueue(context);
+            router.finish();
+
             if (successCount > 0) {
-                Toast.makeText(context, "🚨 Emergency Alert Sent to " + successCount + " contacts", Toast.LENGTH_SHORT).show();
-                promise.resolve("SMS sent to " + successCount + " contacts");
-            } else {
-                promise.reject("SEND_FAILED", "Failed to send SMS to any contact");
+                final int count = successCount;
+                mainHandler.post(() -> Toast.makeText(context,
+                        "🚨 Emergency Alert Sent to " + count + " contacts", Toast.LENGTH_SHORT).show());
             }
-
         } catch (Exception e) {
-            Log.e(MODULE_NAME, "SMS sending failed: " + e.getMessage());
-            promise.reject("SEND_ERROR", "Error sending SMS: " + e.getMessage());
+            Log.e(MODULE_NAME, "SMS job failed: " + e.getMessage());
+        } finally {
+            AlertSessionManager.end(context, job.sessionId);
+            jobs.remove(job.id);
+            WritableMap done = Arguments.createMap();
+            done.putInt("submitted", successCount);
+            done.putInt("total", job.recipients.size());
+            emitJobEvent(job, job.outbox.isCancelled() ? "cancelled" : "done", null, done);
+            // Delivery reports can trail the job by minutes; keep attributing them for a while
+            long alertId = job.alertId;
+            mainHandler.postDelayed(() -> jobsByAlert.remove(alertId), 10 * 60 * 1000L);
+        }
+    }
+
+    /**
+     * Radio callbacks for JS-sent alerts arrive here, in the UI process. The receiver is for when
+     * that isn't the detector process, which has the manifest one; in the default layout both run
+     * here and SmsStatusReceiver handles each result once.
+     */
+    private synchronized void ensureStatusReceiver() {
+        if (statusReceiver != null) return;
+        statusListener = (alertId, recipient, status) -> {
+            SmsJob job = jobsByAlert.get(alertId);
+            // The outbox drops stale callbacks, e.g. a late part's "sent" after "delivered"
+            if (job != null && job.outbox.transition(recipient, status)) emitJobEvent(job, status, recipient);
+        };
+        SmsStatusReceiver.addListener(statusListener);
+        statusReceiver = new SmsStatusReceiver();
+        IntentFilter filter = new IntentFilter();
+        filter.addAction("SMS_SENT");
+        filter.addAction("SMS_DELIVERED");
+        Context app = getReactApplicationContext().getApplicationContext();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            app.registerReceiver(statusReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
+        } else {
+            app.registerReceiver(statusReceiver, filter);
+        }
+    }
+
+    private void emitJobEvent(SmsJob job, String type, String phone) {
+        emitJobEvent(job, type, phone, Arguments.createMap());
+    }
+
+    private void emitJobEvent(SmsJob job, String type, String phone, WritableMap event) {
+        ReactApplicationContext context = getReactApplicationContext();
+        if (!context.hasActiveReactInstance()) return;
+        event.putString("jobId", job.id);
+        event.putString("type", type);
+        event.putString("phone", phone);
+        event.putDouble("alertId", job.alertId);
+        context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(EVENT_SMS_JOB, event);
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        if (statusReceiver != null) {
+            try {
+                getReactApplicationContext().getApplicationContext().unregisterReceiver(statusReceiver);
+            } catch (Exception ignored) {
+            }
+            statusReceiver = null;
+            SmsStatusReceiver.removeListener(statusListener);
+            statusListener = null;
         }
     }
 
@@ -98,4 +250,4 @@ public class AutoSmsModule extends ReactContextBaseJavaModule {
             == PackageManager.PERMISSION_GRANTED;
         promise.resolve(hasPermission);
     }
-}
\ No newline at end of file
+}
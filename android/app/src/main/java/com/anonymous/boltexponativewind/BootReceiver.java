@@ -7,15 +7,19 @@ import android.os.Build;
 import android.util.Log;
 
 /**
- * Starts ShakeService automatically when device boots
+ * Starts ShakeService automatically when device boots.
+ * LOCKED_BOOT_COMPLETED arms detection before the first unlock; BOOT_COMPLETED follows
+ * after unlock and is a no-op for an already running service.
  */
 public class BootReceiver extends BroadcastReceiver {
     private static final String TAG = "BootReceiver";
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        if (Intent.ACTION_BOOT_COMPLETED.equals(intent.getAction())) {
-            Log.d(TAG, "Device boot completed - starting ShakeService");
+        String action = intent.getAction();
+        if (Intent.ACTION_LOCKED_BOOT_COMPLETED.equals(action) || Intent.ACTION_BOOT_COMPLETED.equals(action)) {
+            Log.d(TAG, "Device boot completed (" + action + ") - starting ShakeService");
+            DirectBoot.recordBootBroadcast(context, action);
             
             Intent serviceIntent = new Intent(context, ShakeService.class);
             serviceIntent.putExtra("source", "boot_receiver");
@@ -29,4 +33,4 @@ public class BootReceiver extends BroadcastReceiver {
             Log.d(TAG, "ShakeService start requested from boot");
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,134 @@
+package com.anonymous.boltexponativewind;
+
+import android.location.Location;
+import android.location.LocationListener;
+import android.os.Bundle;
+import android.os.SystemClock;
+
+import java.util.Locale;
+
+/**
+ * Fixed-size ring of recent coarse fixes, fed by the passive location provider from
+ * ShakeService, so it only sees fixes other apps already paid for. Points are stored as
+ * short offsets from an origin in 1e-5 degrees (about 1 m) plus int seconds, so memory
+ * stays constant. EmergencyDispatchService reads it from the same process when an alert goes out.
+ */
+public class BreadcrumbTrail implements LocationListener {
+    public static final long PASSIVE_MIN_TIME_MS = 30 * 1000L;
+    public static final float PASSIVE_MIN_DISTANCE_M = 20f;
+
+    private static final int CAPACITY = 64;
+    private static final long WINDOW_MS = 15 * 60 * 1000L;
+    private static final int LINK_MAX_POINTS = 5;
+
+    private static final BreadcrumbTrail INSTANCE = new BreadcrumbTrail();
+
+    private final short[] dLat = new short[CAPACITY];
+    private final short[] dLon = new short[CAPACITY];
+    private final int[] seconds = new int[CAPACITY];
+    private int originLatE5, originLonE5;
+    private long originElapsed;
+    private int head; // next write slot
+    private int size;
+
+    public static BreadcrumbTrail get() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void onLocationChanged(Location location) {
+        // Passive fixes arrive as they are produced, so receipt time is close enough
+        add(location.getLatitude(), location.getLongitude(), SystemClock.elapsedRealtime());
+    }
+
+    public synchronized void add(double latitude, double longitude, long elapsedMs) {
+        int latE5 = (int) Math.round(latitude * 1e5);
+        int lonE5 = (int) Math.round(longitude * 1e5);
+        if (size == 0 || !fits(latE5 - originLatE5) || !fits(lonE5 - originLonE5)) {
+            // A jump beyond ~36 km means the old points are no use for this path anyway
+            size = 0;
+            head = 0;
+            originLatE5 = latE5;
+            originLonE5 = lonE5;
+            originElapsed = elapsedMs;
+        }
+        dLat[head] = (short) (latE5 - originLatE5);
+        dLon[head] = (short) (lonE5 - originLonE5);
+        seconds[head] = (int) ((elapsedMs - originElapsed) / 1000L);
+        head = (head + 1) % CAPACITY;
+        if (size < CAPACITY) size++;
+    }
+
+    private static boolean fits(int delta) {
+        return delta >= Short.MIN_VALUE && delta <= Short.MAX_VALUE;
+    }
+
+    /** Points within the window, oldest first, as {latE5, lonE5} pairs. */
+    private int[] recentE5() {
+        long cutoff = SystemClock.elapsedRealtime() - WINDOW_MS;
+        int[] out = new int[size * 2];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = (head - size + i + CAPACITY) % CAPACITY;
+            if (originElapsed + seconds[slot] * 1000L < cutoff) continue;
+            out[n++] = originLatE5 + dLat[slot];
+            out[n++] = originLonE5 + dLon[slot];
+        }
+        int[] trimmed = new int[n];
+        System.arraycopy(out, 0, trimmed, 0, n);
+        return trimmed;
+    }
+
+    /** Recent path as a Google encoded polyline (precision 5), or null with fewer than two points. */
+    public synchronized String encodedPolyline() {
+        int[] points = recentE5();
+        if (points.length < 4) return null;
+        StringBuilder sb = new StringBuilder(points.length * 3);
+        int prevLat = 0, prevLon = 0;
+        for (int i = 0; i < points.length; i += 2) {
+            encodeSigned(points[i] - prevLat, sb);
+            encodeSigned(points[i + 1] - prevLon, sb);
+            prevLat = points[i];
+            prevLon = points[i + 1];
+        }
+        return sb.toString();
+    }
+
+    /** Short directions link through a few evenly spaced points of the recent path, or null. */
+    public synchronized String trailLink() {
+        int[] points = recentE5();
+        int count = points.length / 2;
+        if (count < 2) return null;
+        int shown = Math.min(count, LINK_MAX_POINTS);
+        StringBuilder sb = new StringBuilder("https://www.google.com/maps/dir");
+        for (int i = 0; i < shown; i++) {
+            // Always include the oldest and the newest point
+            int index = shown == 1 ? 0 : (int) Math.round(i * (count - 1) / (double) (shown - 1));
+            sb.append('/').append(String.format(Locale.US, "%.4f,%.4f",
+                    points[index * 2] / 1e5, points[index * 2 + 1] / 1e5));
+        }
+        return sb.toString();
+    }
+
+    private static void encodeSigned(int value, StringBuilder sb) {
+        int v = value < 0 ? ~(value << 1) : value << 1;
+        while (v >= 0x20) {
+            sb.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>>= 5;
+        }
+        sb.append((char) (v + 63));
+    }
+
+    @Override
+    public void onStatusChanged(String provider, int status, Bundle extras) {
+        // Deprecated; required before API 29
+    }
+
+    @Override
+    public void onProviderEnabled(String provider) {
+    }
+
+    @Override
+    public void onProviderDisabled(String provider) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.os.FileObserver;
+import android.util.Log;
+
+import com.anonymous.boltexponativewind.core.DetectionConfig;
+
+/**
+ * Delivers DetectionConfig changes to a running ShakeService. The keys are written through
+ * SafeHerStorage and mirrored into the CONFIG shared file, which is replaced by rename on every
+ * write; a FileObserver on the shared directory sees that rename in either process and hands the
+ * re-read config to the listener. Nothing is polled and the sensor stays registered.
+ */
+public class DetectionSettings {
+    private static final String TAG = "DetectionSettings";
+
+    public interface Listener {
+        /** Called on the observer's thread. */
+        void onDetectionConfig(DetectionConfig config);
+    }
+
+    public static DetectionConfig load(Context context) {
+        return DetectionConfig.from(SharedStateFile.get(context, SharedStateFile.CONFIG).snapshot());
+    }
+
+    /** Starts watching; the caller keeps the returned observer referenced and stops it when done. */
+    @SuppressWarnings("deprecation") // FileObserver(File, int) needs API 29
+    public static FileObserver watch(Context context, Listener listener) {
+        Context appContext = context.getApplicationContext();
+        String configFile = SharedStateFile.fileName(SharedStateFile.CONFIG);
+        FileObserver observer = new FileObserver(SharedStateFile.sharedDir(appContext).getPath(),
+                FileObserver.MOVED_TO) {
+            @Override
+            public void onEvent(int event, String path) {
+                if (!configFile.equals(path)) return;
+                DetectionConfig config = load(appContext);
+                Log.d(TAG, "Detection config reloaded: " + config);
+                listener.onDetectionConfig(config);
+            }
+        };
+        observer.startWatching();
+        return observer;
+    }
+}
@@ -0,0 +1,105 @@
+package com.anonymous.boltexponativewind;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Knows whether we are running in the optional isolated ":detector" process
+ * (see safeher.isolatedDetectorProcess in gradle.properties) and reports how big
+ * that process is and how often it gets restarted.
+ */
+public class DetectorProcess {
+    private static final String TAG = "DetectorProcess";
+    public static final String PROCESS_SUFFIX = ":detector";
+
+    private static String processName;
+
+    public static String processName(Context context) {
+        if (processName == null) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                processName = Application.getProcessName();
+            } else {
+                processName = readCmdline(context);
+            }
+        }
+        return processName;
+    }
+
+    public static boolean isDetectorProcess(Context context) {
+        String name = processName(context);
+        return name != null && name.endsWith(PROCESS_SUFFIX);
+    }
+
+    /** Called once per process start from MainApplication. */
+    public static void recordStart(Context context) {
+        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+        // Both processes usually start together; the counts are taken under the file's lock
+        SharedStateFile.get(context, SharedStateFile.DETECTOR_STATS).merge(current -> {
+            long startsToday = today.equals(current.get("starts_day"))
+                    ? SharedStateFile.parseLong(current.get("starts_today"), 0) + 1 : 1;
+            Map<String, String> update = new HashMap<>();
+            update.put("process_name", String.valueOf(processName(context)));
+            update.put("starts_day", today);
+            update.put("starts_today", String.valueOf(startsToday));
+            update.put("starts_total", String.valueOf(SharedStateFile.parseLong(current.get("starts_total"), 0) + 1));
+            update.put("last_start_ms", String.valueOf(System.currentTimeMillis()));
+            return update;
+        });
+        Log.d(TAG, "Process start recorded: " + processName(context));
+    }
+
+    /** Samples VmRSS and keeps the latest and peak value; cheap enough to call after arming. */
+    public static void recordResidentMemory(Context context) {
+        long rssKb = readRssKb();
+        if (rssKb <= 0) return;
+        SharedStateFile.get(context, SharedStateFile.DETECTOR_STATS).merge(current -> {
+            Map<String, String> update = new HashMap<>();
+            update.put("rss_kb", String.valueOf(rssKb));
+            update.put("rss_peak_kb", String.valueOf(
+                    Math.max(rssKb, SharedStateFile.parseLong(current.get("rss_peak_kb"), 0))));
+            update.put("rss_sampled_ms", String.valueOf(System.currentTimeMillis()));
+            return update;
+        });
+        Log.d(TAG, "Resident memory: " + rssKb + " kB");
+    }
+
+    public static Map<String, String> readStats(Context context) {
+        return SharedStateFile.get(context, SharedStateFile.DETECTOR_STATS).snapshot();
+    }
+
+    static long readRssKb() {
+        try (BufferedReader reader = new BufferedReader(new FileReader("/proc/self/status"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring(6).replace("kB", "").trim());
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Could not read VmRSS: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    private static String readCmdline(Context context) {
+        try (BufferedReader reader = new BufferedReader(new FileReader("/proc/self/cmdline"))) {
+            String line = reader.readLine();
+            if (line != null) {
+                return line.trim().replace("\u0000", "");
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Could not read process name: " + e.getMessage());
+        }
+        return context.getPackageName();
+    }
+}
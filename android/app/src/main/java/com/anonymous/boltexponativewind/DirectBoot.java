@@ -0,0 +1,109 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.os.UserManager;
+import android.util.Log;
+
+import com.anonymous.boltexponativewind.core.DetectionConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Direct-boot support: lets ShakeService and the dispatch path run before the first unlock.
+ * Only the minimum configuration they need is mirrored from the credential-protected
+ * SafeHerPrefs into device-protected storage, and boot-to-armed time is measured.
+ */
+public class DirectBoot {
+    private static final String TAG = "DirectBoot";
+    private static final String PREFS_NAME = "SafeHerPrefs";
+
+    public static final String KEY_EMERGENCY_CONTACTS = "emergency_contacts";
+    public static final String KEY_ALERT_TEMPLATE = "alert_template";
+    public static final String KEY_ALERT_NOTE = "alert_note";
+    public static final String KEY_API_BASE = "api_base";
+    public static final String KEY_AUTO_DISPATCH_SECONDS = "auto_dispatch_seconds";
+    public static final String KEY_RECORD_EVIDENCE = "record_evidence";
+
+    /** Keys the detector needs before unlock; everything else stays in credential storage. */
+    private static final String[] MIRRORED_KEYS = {
+            KEY_EMERGENCY_CONTACTS, KEY_ALERT_TEMPLATE, KEY_ALERT_NOTE, KEY_API_BASE, KEY_AUTO_DISPATCH_SECONDS,
+            KEY_RECORD_EVIDENCE,
+            DetectionConfig.KEY_THRESHOLD_G, DetectionConfig.KEY_SLOP_MS, DetectionConfig.KEY_RESET_MS,
+            DetectionConfig.KEY_COUNT, DetectionConfig.KEY_MODE, DetectionConfig.KEY_SAMPLING_US };
+
+    public static boolean isMirroredKey(String key) {
+        for (String mirrored : MIRRORED_KEYS) {
+            if (mirrored.equals(key)) return true;
+        }
+        return false;
+    }
+
+    public static boolean isUserUnlocked(Context context) {
+        UserManager um = (UserManager) context.getSystemService(Context.USER_SERVICE);
+        return um == null || um.isUserUnlocked();
+    }
+
+    /**
+     * Copies the mirrored keys from SafeHerPrefs into device-protected storage. Covers values
+     * written before direct-boot support existed; no-op while the user is still locked.
+     */
+    public static void mirrorMinimumConfig(Context context) {
+        if (!isUserUnlocked(context)) return;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        SharedStateFile config = SharedStateFile.get(context, SharedStateFile.CONFIG);
+        Map<String, String> update = new HashMap<>();
+        for (String key : MIRRORED_KEYS) {
+            String value = prefs.getString(key, null);
+            if (value != null && !value.equals(config.getString(key, null))) {
+                update.put(key, value);
+            }
+        }
+        if (!update.isEmpty()) {
+            config.putAll(update);
+            Log.d(TAG, "Mirrored " + update.size() + " config value(s) into device-protected storage");
+        }
+    }
+
+    /**
+     * Records the first boot broadcast of this boot (BOOT_COMPLETED after LOCKED_BOOT_COMPLETED
+     * is ignored). elapsedRealtime is time since boot, so it is the boot-relative timestamp we want.
+     */
+    public static void recordBootBroadcast(Context context, String action) {
+        SharedStateFile stats = SharedStateFile.get(context, SharedStateFile.BOOT_STATS);
+        if (isCurrentBoot(stats)) return;
+        Map<String, String> update = new HashMap<>();
+        update.put("last_boot_action", action);
+        update.put("boot_broadcast_after_ms", String.valueOf(SystemClock.elapsedRealtime()));
+        update.put("boot_wall_ms", String.valueOf(System.currentTimeMillis() - SystemClock.elapsedRealtime()));
+        update.put("armed_after_boot_ms", null);
+        stats.putAll(update);
+    }
+
+    /** Records the first arming after each boot. */
+    public static void recordArmed(Context context) {
+        SharedStateFile stats = SharedStateFile.get(context, SharedStateFile.BOOT_STATS);
+        if (stats.getString("armed_after_boot_ms", null) != null) return;
+        // Only attribute arming to this boot if the stored boot broadcast belongs to it
+        if (!isCurrentBoot(stats)) return;
+
+        long armedAfterBoot = SystemClock.elapsedRealtime();
+        Map<String, String> update = new HashMap<>();
+        update.put("armed_after_boot_ms", String.valueOf(armedAfterBoot));
+        update.put("armed_before_unlock", String.valueOf(!isUserUnlocked(context)));
+        stats.putAll(update);
+        Log.d(TAG, "Detection armed " + armedAfterBoot + " ms after boot (locked: " + !isUserUnlocked(context) + ")");
+    }
+
+    /** Wall-clock boot time drifts with clock changes, so allow a minute of slack. */
+    private static boolean isCurrentBoot(SharedStateFile stats) {
+        long bootWall = System.currentTimeMillis() - SystemClock.elapsedRealtime();
+        return Math.abs(stats.getLong("boot_wall_ms", 0) - bootWall) < 60_000;
+    }
+
+    public static Map<String, String> readStats(Context context) {
+        return SharedStateFile.get(context, SharedStateFile.BOOT_STATS).snapshot();
+    }
+}
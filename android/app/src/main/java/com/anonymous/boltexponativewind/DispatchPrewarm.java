@@ -0,0 +1,178 @@
+package com.anonymous.boltexponativewind;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Address;
+import android.location.Geocoder;
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Does the slow part of a dispatch while an auto-dispatch countdown runs. It gets one fresh
+ * fix, because getLastKnownLocation is often minutes old, and geocodes it. It also opens the
+ * alert database and looks up the SIMs. EmergencyDispatchService then takes the result when the
+ * countdown expires. This only works within one process; after a cold start the dispatch just
+ * does the work itself.
+ */
+public class DispatchPrewarm implements LocationListener {
+    private static final String TAG = "DispatchPrewarm";
+
+    private static final long MAX_FIX_WAIT_MS = 25 * 1000L;
+    // Leaves the geocoder time to finish before the countdown expires
+    private static final long GEOCODE_MARGIN_MS = 2 * 1000L;
+    private static final float GOOD_ACCURACY_M = 50f;
+    // A result older than this is not worth more than a fresh getLastKnownLocation
+    private static final long MAX_RESULT_AGE_MS = 3 * 60 * 1000L;
+
+    public static final class Result {
+        public final Location fix;
+        public final String address;
+        final long readyAt;
+
+        Result(Location fix, String address, long readyAt) {
+            this.fix = fix;
+            this.address = address;
+            this.readyAt = readyAt;
+        }
+    }
+
+    private static DispatchPrewarm running;
+    private static volatile Result ready;
+
+    private final Context context;
+    private HandlerThread thread;
+    private Handler handler;
+    private LocationManager locationManager;
+    private Location best;
+    private boolean done;
+
+    private DispatchPrewarm(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /** @param deadline elapsedRealtime at which the countdown dispatches */
+    public static synchronized void start(Context context, long deadline) {
+        if (running != null) return; // one countdown at a time; keep the fix already coming
+        ready = null;
+        long fixWaitMs = Math.min(MAX_FIX_WAIT_MS, deadline - SystemClock.elapsedRealtime() - GEOCODE_MARGIN_MS);
+        running = new DispatchPrewarm(context);
+        running.begin(Math.max(1000L, fixWaitMs));
+    }
+
+    /** The countdown was cancelled: stop looking and drop anything prewarmed. */
+    public static synchronized void stop() {
+        ready = null;
+        if (running != null) running.handler.post(running::discard);
+    }
+
+    /** Hands over the prewarmed fix and address once; null if none or too old. */
+    public static Result take() {
+        Result result = ready;
+        ready = null;
+        if (result == null || SystemClock.elapsedRealtime() - result.readyAt > MAX_RESULT_AGE_MS) return null;
+        return result;
+    }
+
+    /** Same address text the alert message has always used. */
+    public static String describe(Context context, double latitude, double longitude) {
+        AlertTrace.begin(AlertTrace.GEOCODE);
+        try {
+            Geocoder geocoder = new Geocoder(context, Locale.getDefault());
+            List<Address> addresses = geocoder.getFromLocation(latitude, longitude, 1);
+            if (addresses != null && !addresses.isEmpty()) {
+                return addresses.get(0).getAddressLine(0);
+            }
+        } catch (Exception geocoderException) {
+            // Fall through to raw coordinates
+        } finally {
+            AlertTrace.end();
+        }
+        return "Lat: " + latitude + ", Lon: " + longitude;
+    }
+
+    private void begin(long fixWaitMs) {
+        AlertTrace.beginAsync(AlertTrace.PREWARM_FIX, hashCode());
+        thread = new HandlerThread("SafeHer-Prewarm");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        handler.post(() -> {
+            AlertHistoryStore.get(context);
+            PlatformSmsSender.create(context).activeSubscriptions();
+        });
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED) {
+            handler.post(this::discard);
+            return;
+        }
+        locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+        try {
+            locationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER, 0, 0f, this, thread.getLooper());
+            if (locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER)) {
+                locationManager.requestLocationUpdates(LocationManager.NETWORK_PROVIDER, 0, 0f, this, thread.getLooper());
+            }
+        } catch (SecurityException | IllegalArgumentException e) {
+            Log.w(TAG, "⚠️ Could not request a fresh fix: " + e.getMessage());
+        }
+        handler.postDelayed(this::onFixTimeout, fixWaitMs);
+    }
+
+    @Override
+    public void onLocationChanged(Location location) {
+        if (done) return;
+        if (best == null || location.getAccuracy() < best.getAccuracy()) best = location;
+        if (best.getAccuracy() <= GOOD_ACCURACY_M) finish(best);
+    }
+
+    private void discard() {
+        if (done) return;
+        finish(null);
+    }
+
+    /** Timeout: settle for the best fix seen, if any. */
+    private void onFixTimeout() {
+        if (done) return;
+        finish(best);
+    }
+
+    private void finish(Location fix) {
+        done = true;
+        AlertTrace.endAsync(AlertTrace.PREWARM_FIX, hashCode());
+        if (locationManager != null) locationManager.removeUpdates(this);
+        handler.removeCallbacksAndMessages(null);
+        if (fix != null) {
+            // The geocoder is the slowest step of building the message, so it is done here
+            String address = describe(context, fix.getLatitude(), fix.getLongitude());
+            ready = new Result(fix, address, SystemClock.elapsedRealtime());
+            Log.d(TAG, "🔥 Dispatch prewarmed with a fix of ±" + Math.round(fix.getAccuracy()) + " m");
+        }
+        thread.quitSafely();
+        synchronized (DispatchPrewarm.class) {
+            if (running == this) running = null;
+        }
+    }
+
+    @Override
+    public void onStatusChanged(String provider, int status, Bundle extras) {
+        // Deprecated; required before API 29
+    }
+
+    @Override
+    public void onProviderEnabled(String provider) {
+    }
+
+    @Override
+    public void onProviderDisabled(String provider) {
+    }
+}
@@ -11,32 +11,78 @@ public class EmergencyActionReceiver extends BroadcastReceiver {
     private static final String TAG = "EmergencyActionReceiver";
     public static final String ACTION_SEND_EMERGENCY = "com.anonymous.boltexponativewind.ACTION_SEND_EMERGENCY";
     public static final String ACTION_CANCEL_EMERGENCY = "com.anonymous.boltexponativewind.ACTION_CANCEL_EMERGENCY";
+    public static final String ACTION_STOP_LIVE_LOCATION = "com.anonymous.boltexponativewind.ACTION_STOP_LIVE_LOCATION";
 
     @Override
     public void onReceive(Context context, Intent intent) {
         if (intent == null || intent.getAction() == null) {
             return;
         }
+        AlertTrace.begin(AlertTrace.RECEIVER);
+        try {
+            handleAction(context, intent);
+        } finally {
+            AlertTrace.end();
+        }
+    }
 
+    private void handleAction(Context context, Intent intent) {
         String action = intent.getAction();
         Log.d(TAG, "Notification action received: " + action);
 
+        if (ACTION_STOP_LIVE_LOCATION.equals(action)) {
+            AlertSessionManager.cancel(context);
+            LiveLocationSession.stopActive(LiveLocationSession.STOP_CANCELLED);
+            EvidenceRecorder.stop();
+            return;
+        }
+
+        long autoTriggeredAt = -1;
+        if (AutoDispatchCountdown.ACTION_AUTO_DISPATCH.equals(action)) {
+            ResourceStats.onWakeup();
+            autoTriggeredAt = AutoDispatchCountdown.onAlarm(context, intent);
+            if (autoTriggeredAt < 0) return; // answered before the alarm went off
+        } else {
+            AutoDispatchCountdown.cancel(context);
+        }
+        AlertTrace.endAsync(AlertTrace.CONFIRMATION, AlertTrace.CONFIRMATION_COOKIE);
+
         NotificationManager nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
         if (nm != null) {
             nm.cancel(1002); // ALERT_NOTIFICATION_ID from ShakeService
         }
 
-        if (ACTION_SEND_EMERGENCY.equals(action)) {
+        ServiceStatusPage statusPage = ServiceStatusPage.get(context);
+        if (statusPage != null) statusPage.clearTrigger();
+
+        if (ACTION_SEND_EMERGENCY.equals(action) || autoTriggeredAt >= 0) {
+            // A double tap, or YES on a second confirmation, joins the alert already going out
+            AlertSessionManager.Decision session = AlertSessionManager.begin(context,
+                    autoTriggeredAt >= 0 ? "auto_countdown" : "notification");
+            if (!session.isNew) {
+                Log.d(TAG, "Emergency already in progress; not dispatching again.");
+                LiveLocationSession.requestActiveUpdate();
+                return;
+            }
             Log.d(TAG, "User confirmed emergency. Starting background dispatch service...");
             
             Toast.makeText(context, "Sending emergency alert...", Toast.LENGTH_SHORT).show();
 
             // Start the service that will handle sending the SMS in the background
             Intent serviceIntent = new Intent(context, EmergencyDispatchService.class);
+            serviceIntent.putExtra(AlertSessionManager.EXTRA_SESSION_ID, session.sessionId);
+            if (autoTriggeredAt >= 0) serviceIntent.putExtra(AutoDispatchCountdown.EXTRA_TRIGGERED_AT, autoTriggeredAt);
+            AlertTrace.beginAsync(AlertTrace.SERVICE_START, session.sessionId.hashCode());
             context.startService(serviceIntent);
 
         } else if (ACTION_CANCEL_EMERGENCY.equals(action)) {
             Log.d(TAG, "User cancelled emergency from notification.");
+            DispatchPrewarm.stop();
+            AlertSessionManager.cancel(context);
+            LiveLocationSession.stopActive(LiveLocationSession.STOP_CANCELLED);
+            if (statusPage != null) {
+                statusPage.recordDispatch(System.currentTimeMillis(), ServiceStatusPage.DISPATCH_CANCELLED);
+            }
         }
     }
 }
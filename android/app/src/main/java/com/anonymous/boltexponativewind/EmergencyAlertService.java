@@ -1,40 +1,79 @@
 package com.anonymous.boltexponativewind;
 
 import android.app.Service;
+import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
 import android.os.IBinder;
 import android.util.Log;
-import android.telephony.SmsManager;
 import android.location.Location;
 import android.location.LocationManager;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import androidx.core.app.ActivityCompat;
-import org.json.JSONArray;
-import org.json.JSONObject;
+
+import com.anonymous.boltexponativewind.core.AlertDispatcher;
+import com.anonymous.boltexponativewind.core.AsyncStorageContacts;
+import com.anonymous.boltexponativewind.core.Outbox;
+import com.anonymous.boltexponativewind.core.TaskRuntime;
+
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.io.FileInputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 
 public class EmergencyAlertService extends Service {
     private static final String TAG = "EmergencyAlertService";
+    private static final long SEND_TIMEOUT_MS = 2 * 60 * 1000L;
+    private static final long SENT_SETTLE_MS = 4000;
+
+    private SmsStatusReceiver smsStatusReceiver;
+
+    /** The manifest receiver lives in the detector process; failover needs results in this one too. */
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        smsStatusReceiver = new SmsStatusReceiver();
+        IntentFilter filter = new IntentFilter();
+        filter.addAction("SMS_SENT");
+        filter.addAction("SMS_DELIVERED");
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            registerReceiver(smsStatusReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
+        } else {
+            registerReceiver(smsStatusReceiver, filter);
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        if (smsStatusReceiver != null) unregisterReceiver(smsStatusReceiver);
+        super.onDestroy();
+    }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         if (intent != null && "SEND_EMERGENCY_SMS".equals(intent.getAction())) {
+            AlertSessionManager.Decision session = AlertSessionManager.begin(this, "alert_service");
+            if (!session.isNew) {
+                Log.d(TAG, "🔗 Emergency already in progress; not sending again.");
+                stopSelf(startId);
+                return START_NOT_STICKY;
+            }
             Log.d(TAG, "🚨 Starting emergency SMS send...");
             
-            // Send SMS in background thread
-            new Thread(() -> {
+            AppTasks.get().submit(TaskRuntime.Lane.EMERGENCY, "alert_service", SEND_TIMEOUT_MS, task -> {
                 try {
                     sendEmergencySMS();
                 } catch (Exception e) {
                     Log.e(TAG, "❌ Failed to send emergency SMS", e);
                 } finally {
+                    AlertSessionManager.end(this, session.sessionId);
+                    SupportLog.flush(this);
                     stopSelf();
                 }
-            }).start();
+            });
         }
         return START_NOT_STICKY;
     }
@@ -62,44 +101,51 @@ public class EmergencyAlertService extends Service {
             double latitude = location.getLatitude();
             double longitude = location.getLongitude();
             
-            Log.d(TAG, "📍 Location: " + latitude + ", " + longitude);
 
-            // 3. Build emergency message
-            String mapsLink = "https://www.google.com/maps/search/?api=1&query=" + latitude + "," + longitude;
-            String timestamp = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date());
-            
-            String message = "🚨 EMERGENCY ALERT from SafeHer\n\n" +
-                           "I NEED HELP IMMEDIATELY!\n\n" +
-                           "Time: " + timestamp + "\n" +
-                           "Location: Lat: " + String.format("%.6f", latitude) + 
-                           ", Long: " + String.format("%.6f", longitude) + "\n\n" +
-                           "Google Maps: " + mapsLink + "\n\n" +
-                           "Please check on me right away or call emergency services!\n\n" +
-                           "- Sent automatically by SafeHer";
+            // 3. Build emergency message (no geocoder on this path; the coordinates stand in)
+            long now = System.currentTimeMillis();
+            String message = AlertMessages.composer(this)
+                    .compose(now, AndroidLocationSource.toFix(location), null, null);
 
             Log.d(TAG, "📝 Message prepared, length: " + message.length());
 
-            // 4. Send SMS to all contacts
-            SmsManager smsManager = SmsManager.getDefault();
-            
-            for (String phoneNumber : contacts) {
-                try {
-                    Log.d(TAG, "📤 Sending SMS to: " + phoneNumber);
-                    
-                    // Split message if too long
-                    ArrayList<String> parts = smsManager.divideMessage(message);
-                    
-                    if (parts.size() == 1) {
-                        smsManager.sendTextMessage(phoneNumber, null, message, null, null);
-                    } else {
-                        smsManager.sendMultipartTextMessage(phoneNumber, null, parts, null, null);
-                    }
-                    
-                    Log.d(TAG, "✅ SMS sent to: " + phoneNumber);
-                    
-                } catch (Exception e) {
-                    Log.e(TAG, "❌ Failed to send SMS to " + phoneNumber, e);
-                }
+            // 4. Send SMS to all contacts, through the same SIM failover and quota as every alert
+            AlertHistoryStore history = AlertHistoryStore.get(this);
+            long alertId = history.insertAlert(now, latitude, longitude, null,
+                    "alert_service", contacts);
+            SmsSender smsSender = PlatformSmsSender.create(this);
+            SimRouter router = SimRouter.start(this, alertId, smsSender);
+            ArrayList<String> parts = smsSender.divideMessage(message);
+            AlertDispatcher dispatcher = new AlertDispatcher(router, SmsSendScheduler.get());
+            int submitted = 0;
+            try {
+                submitted = dispatcher.dispatch(Outbox.untiered(contacts), parts,
+                        new AlertDispatcher.Listener() {
+                            @Override
+                            public boolean isAlreadyReached(String phone) {
+                                return false;
+                            }
+
+                            @Override
+                            public void onTierStarted(int tier, int queued, long etaMs) {
+                                // One tier
+                            }
+
+                            @Override
+                            public void onRecipientResult(String phone, String status) {
+                                SupportLog.record(SupportLog.RECIPIENT, contacts.indexOf(phone),
+                                        SupportLog.stateCode(status));
+                                history.updatePendingRecipients(alertId, Collections.singletonMap(phone, status));
+                            }
+                        });
+                // SMS_SENT results, and any failover they start, need the router a little longer
+                Thread.sleep(SENT_SETTLE_MS);
+            } finally {
+                Thread.interrupted(); // past the deadline; the rest still has to run
+                router.finish();
+                history.updateAlertStatus(alertId,
+                        submitted > 0 ? AlertHistoryStore.STATUS_SENT : AlertHistoryStore.STATUS_FAILED);
+                AlertSyncWorker.enqueue(this);
             }
 
             Log.d(TAG, "✅ Emergency SMS sending completed!");
@@ -125,23 +171,7 @@ public class EmergencyAlertService extends Service {
             }
             reader.close();
             
-            // Parse JSON to find contacts
-            String jsonString = json.toString();
-            if (jsonString.contains("@safeher_emergency_contacts")) {
-                // Extract the contacts JSON
-                int start = jsonString.indexOf("[", jsonString.indexOf("@safeher_emergency_contacts"));
-                if (start > 0) {
-                    int end = jsonString.indexOf("]", start) + 1;
-                    String contactsJson = jsonString.substring(start, end);
-                    
-                    JSONArray contactsArray = new JSONArray(contactsJson);
-                    for (int i = 0; i < contactsArray.length(); i++) {
-                        JSONObject contact = contactsArray.getJSONObject(i);
-                        String phone = contact.getString("phone");
-                        contacts.add(phone);
-                    }
-                }
-            }
+            contacts.addAll(AsyncStorageContacts.parse(json.toString()));
             
         } catch (Exception e) {
             Log.e(TAG, "Error reading contacts from storage", e);
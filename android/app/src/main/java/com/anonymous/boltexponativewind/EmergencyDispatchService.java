@@ -11,37 +11,57 @@ import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.content.SharedPreferences;
-import android.location.Address;
-import android.location.Geocoder;
 import android.location.Location;
-import android.location.LocationManager;
 import android.os.Build;
 import android.os.IBinder;
-import android.telephony.SmsManager;
 import android.util.Log;
 import androidx.core.app.NotificationCompat;
 import androidx.core.content.ContextCompat;
 import android.content.pm.ServiceInfo;
 
-import java.text.SimpleDateFormat;
+import com.anonymous.boltexponativewind.core.AlertComposer;
+import com.anonymous.boltexponativewind.core.AlertDispatcher;
+import com.anonymous.boltexponativewind.core.LocationSource;
+import com.anonymous.boltexponativewind.core.Outbox;
+import com.anonymous.boltexponativewind.core.TaskRuntime;
+import com.anonymous.boltexponativewind.core.TieredContacts;
+
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Date;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
 
 public class EmergencyDispatchService extends Service {
     private static final String TAG = "EmergencyDispatchService";
     private static final String CHANNEL_ID = "safeher_emergency_dispatch";
     private static final String PREFS_NAME = "SafeHerPrefs";
-    private static final String CONTACTS_KEY = "emergency_contacts";
+    private static final String CONTACTS_KEY = DirectBoot.KEY_EMERGENCY_CONTACTS;
+    private static final long RELAY_WAIT_MS = 12000;
+    // Covers a slow fix, the geocoder, tier 1 and the relay wait with room to spare
+    static final long DISPATCH_TIMEOUT_MS = 3 * 60 * 1000L;
+    // For SMS_SENT callbacks, and any SIM failover they start, after the last send
+    private static final long SENT_SETTLE_MS = 4000;
 
     private SmsStatusReceiver smsStatusReceiver;
+    private ServiceStatusPage statusPage;
+
+    // Filled in by buildEmergencyMessage() for the alert history record
+    private Double alertLatitude, alertLongitude; // null without a fix
+    private String alertAddress;
+    private Location alertFix;
+    private String alertTrail;
+
+    private volatile LiveLocationSession liveLocation;
+    // Alert session this service instance is dispatching; repeat starts for it are merged
+    private volatile String activeSessionId;
+    private volatile boolean dispatching;
+    // Lower tiers still going out under the SMS quota after the alert itself has finished
+    private volatile boolean streaming;
 
     @Override
     public void onCreate() {
         super.onCreate();
         createNotificationChannel();
+        statusPage = ServiceStatusPage.get(this);
         // ✅ Register receiver dynamically (required on modern Android)
         smsStatusReceiver = new SmsStatusReceiver();
         IntentFilter filter = new IntentFilter();
@@ -57,20 +77,68 @@ public class EmergencyDispatchService extends Service {
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
+        String sessionId = intent != null ? intent.getStringExtra(AlertSessionManager.EXTRA_SESSION_ID) : null;
+        if (sessionId != null) AlertTrace.endAsync(AlertTrace.SERVICE_START, sessionId.hashCode());
+        if (sessionId == null) {
+            AlertSessionManager.Decision session = AlertSessionManager.begin(this, "dispatch_service");
+            sessionId = session.isNew ? session.sessionId : null;
+        }
+        if (sessionId == null || sessionId.equals(activeSessionId)) {
+            // Part of an emergency already being handled: merge, don't send again
+            Log.d(TAG, "🔗 Dispatch request merged into the active alert session");
+            LiveLocationSession.requestActiveUpdate();
+            if (activeSessionId == null) stopSelf(startId);
+            return START_NOT_STICKY;
+        }
+        activeSessionId = sessionId;
+
         Notification notification = buildForegroundNotification("Preparing emergency alert...");
+        boolean recordEvidence = EvidenceRecorder.isEnabled(this);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-            startForeground(2001, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION);
+            int type = ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION;
+            if (recordEvidence && Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                type |= ServiceInfo.FOREGROUND_SERVICE_TYPE_MICROPHONE;
+            }
+            try {
+                startForeground(2001, notification, type);
+            } catch (SecurityException e) {
+                // The microphone is refused to a service started from the background, e.g. by the countdown alarm
+                Log.w(TAG, "⚠️ No microphone for this dispatch: " + e.getMessage());
+                recordEvidence = false;
+                startForeground(2001, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION);
+            }
         } else {
             startForeground(2001, notification);
         }
-        new Thread(this::sendEmergencyAlertsToAll).start();
+        dispatching = true;
+        // Its encoder runs at background priority, below the dispatch thread
+        if (recordEvidence) EvidenceRecorder.start(this, sessionId, chunks -> stopIfIdle());
+        final String dispatchSessionId = sessionId;
+        final long autoTriggeredAt = intent != null ? intent.getLongExtra(AutoDispatchCountdown.EXTRA_TRIGGERED_AT, -1) : -1;
+        AppTasks.get().submit(TaskRuntime.Lane.EMERGENCY, "dispatch", DISPATCH_TIMEOUT_MS,
+                task -> sendEmergencyAlertsToAll(task, dispatchSessionId, autoTriggeredAt));
         return START_NOT_STICKY;
     }
 
-    private void sendEmergencyAlertsToAll() {
+    /**
+     * Past DISPATCH_TIMEOUT_MS the task is interrupted: recipients not yet sent are cancelled, the
+     * settle and relay waits are skipped, and the alert is still recorded and finished.
+     *
+     * @param autoTriggeredAt trigger time of an auto-dispatch countdown, or -1
+     */
+    private void sendEmergencyAlertsToAll(TaskRuntime.Task task, String sessionId, long autoTriggeredAt) {
+        long dispatchId = System.currentTimeMillis();
+        boolean dispatched = false;
+        long alertId = -1;
+        int submitted = 0;
+        HedgedDispatch hedge = null;
+        SimRouter simRouter = null;
+        List<String> immediateContacts = null;
+        AlertHistoryStore history = AlertHistoryStore.get(this);
+        if (statusPage != null) statusPage.recordDispatch(dispatchId, ServiceStatusPage.DISPATCH_STARTED);
+        AlertTrace.begin(AlertTrace.DISPATCH);
         try {
-            SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-            String contactsString = prefs.getString(CONTACTS_KEY, "");
+            String contactsString = readConfigValue(CONTACTS_KEY);
             if (contactsString.isEmpty()) {
                 Log.w(TAG, "⚠️ No emergency contacts found!");
                 stopSelf();
@@ -86,123 +154,255 @@ public class EmergencyDispatchService extends Service {
                 return;
             }
 
-            List<String> contacts = Arrays.asList(contactsString.split(","));
-            String message = buildEmergencyMessage();
-            SmsManager smsManager = SmsManager.getDefault();
-            int sentCount = 0;
+            // Send order: the first tier now, lower tiers stream after it under the SMS quota
+            List<TieredContacts.Contact> tiered = TieredContacts.parse(contactsString);
+            List<String> contacts = TieredContacts.phones(tiered);
+            List<TieredContacts.Contact> firstTier = new ArrayList<>();
+            List<TieredContacts.Contact> laterTiers = new ArrayList<>();
+            immediateContacts = new ArrayList<>();
+            for (TieredContacts.Contact contact : tiered) {
+                if (contact.tier == TieredContacts.TIER_IMMEDIATE) immediateContacts.add(contact.phone);
+                (contact.tier == tiered.get(0).tier ? firstTier : laterTiers).add(contact);
+            }
 
-            for (String number : contacts) {
-                String trimmed = number.trim();
-                if (trimmed.isEmpty()) continue;
+            String message = buildEmergencyMessage();
+            alertId = history.insertAlert(dispatchId, alertLatitude, alertLongitude, alertAddress,
+                    "native_dispatch", contacts, alertTrail, TieredContacts.tiers(tiered));
+            hedge = HedgedDispatch.start(this, alertId);
+            String apiBase = readConfigValue(DirectBoot.KEY_API_BASE);
+            if (!apiBase.isEmpty() && !immediateContacts.isEmpty()) {
+                hedge.startRelay(new RelayClient(apiBase, readAuthToken()), message, immediateContacts);
+            }
+            SmsSender smsSender = PlatformSmsSender.create(this);
+            simRouter = SimRouter.start(this, alertId, smsSender);
+            List<String> pacedContacts = new ArrayList<>(contacts);
+            pacedContacts.removeAll(immediateContacts);
+            simRouter.pace(pacedContacts);
+            ArrayList<String> parts = smsSender.divideMessage(message);
+            SupportLog.record(SupportLog.DISPATCH_START, contacts.size(), parts.size());
+            final HedgedDispatch relayRace = hedge;
+            final long historyId = alertId;
+            AlertDispatcher dispatcher = new AlertDispatcher(simRouter, SmsSendScheduler.get());
+            AlertDispatcher.Listener listener = new AlertDispatcher.Listener() {
+                private boolean firstSubmitted;
 
-                // ✅ Add +91 prefix if missing
-                if (!trimmed.startsWith("+")) {
-                    trimmed = "+91" + trimmed;
-                    Log.d(TAG, "📞 Added country code: " + trimmed);
+                @Override
+                public boolean isAlreadyReached(String phone) {
+                    if (!relayRace.isConfirmed(phone)) return false;
+                    SupportLog.record(SupportLog.RELAY_SKIP, contacts.indexOf(phone), 0);
+                    return true;
                 }
 
-                try {
-                    ArrayList<String> parts = smsManager.divideMessage(message);
-                    long uniqueSeed = System.currentTimeMillis() + sentCount * 10;
-
-                    ArrayList<PendingIntent> sentPIs = new ArrayList<>();
-                    ArrayList<PendingIntent> deliveredPIs = new ArrayList<>();
-
-                    for (int i = 0; i < parts.size(); i++) {
-                        int reqCodeSent = (int) (uniqueSeed + i);
-                        int reqCodeDel = (int) (uniqueSeed + i + 1000);
-
-                        Intent sentIntent = new Intent("SMS_SENT");
-                        sentIntent.putExtra("recipient", trimmed);
-                        PendingIntent sentPI = PendingIntent.getBroadcast(
-                                this, reqCodeSent, sentIntent,
-                                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
-
-                        Intent deliveredIntent = new Intent("SMS_DELIVERED");
-                        deliveredIntent.putExtra("recipient", trimmed);
-                        PendingIntent deliveredPI = PendingIntent.getBroadcast(
-                                this, reqCodeDel, deliveredIntent,
-                                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
-
-                        sentPIs.add(sentPI);
-                        deliveredPIs.add(deliveredPI);
-                    }
+                @Override
+                public void onTierStarted(int tier, int queued, long etaMs) {
+                    updateNotification("📨 Tier " + tier + ": " + queued + " contact(s) queued (~" + etaMs / 60000 + " min)");
+                }
 
-                    if (parts.size() > 1) {
-                        smsManager.sendMultipartTextMessage(trimmed, null, parts, sentPIs, deliveredPIs);
-                        Log.d(TAG, "📝 Sent multipart SMS (" + parts.size() + " parts) to " + trimmed);
-                    } else {
-                        smsManager.sendTextMessage(trimmed, null, message, sentPIs.get(0), deliveredPIs.get(0));
-                        Log.d(TAG, "📤 Sent single-part SMS to " + trimmed);
+                @Override
+                public void onRecipientResult(String phone, String status) {
+                    // Position, not number: the support log never holds phone numbers
+                    SupportLog.record(SupportLog.RECIPIENT, contacts.indexOf(phone), SupportLog.stateCode(status));
+                    if (AlertHistoryStore.RECIPIENT_SUBMITTED.equals(status)) {
+                        if (!firstSubmitted && autoTriggeredAt >= 0) {
+                            AutoDispatchCountdown.recordFirstSend(EmergencyDispatchService.this, autoTriggeredAt);
+                        }
+                        firstSubmitted = true;
                     }
-
-                    sentCount++;
-                } catch (Exception e) {
-                    Log.e(TAG, "❌ Failed to send SMS to " + trimmed, e);
+                    // Per recipient, so a long lower-tier stream shows progress in the history
+                    history.updatePendingRecipients(historyId, Collections.singletonMap(phone, status));
                 }
+            };
+            int sentCount = dispatcher.dispatch(new Outbox(firstTier), parts, listener);
+            if (!laterTiers.isEmpty() && !task.isCancelled()) {
+                // The stream keeps the router, so failovers for late SMS_SENT results still happen
+                streamLaterTiers(sessionId, dispatcher, new Outbox(laterTiers), parts, listener, simRouter);
+                simRouter = null;
             }
 
-            Log.d(TAG, "📊 Total SMS attempts: " + sentCount);
+            submitted = sentCount;
+            dispatched = sentCount > 0;
             updateNotification("✅ Alert attempted to " + sentCount + " contacts!");
         } catch (Exception e) {
             Log.e(TAG, "Fatal failure during background dispatch", e);
         } finally {
-            try { Thread.sleep(4000); } catch (InterruptedException ignored) {}
-            stopSelf();
+            AlertTrace.end();
+            // Past the deadline: the bookkeeping below still has to run (file locks fail on an
+            // interrupted thread), it just doesn't wait for anything
+            boolean late = Thread.interrupted() || task.isCancelled();
+            if (hedge != null) {
+                // Let SMS_SENT callbacks and the relay race finish before judging the outcome
+                if (!late) {
+                    try { Thread.sleep(SENT_SETTLE_MS); } catch (InterruptedException ignored) {}
+                }
+                hedge.finish(late ? 0 : RELAY_WAIT_MS);
+                dispatched |= hedge.confirmedCount() > 0;
+            }
+            if (simRouter != null) simRouter.finish();
+            history.updateAlertStatus(alertId,
+                    dispatched ? AlertHistoryStore.STATUS_SENT : AlertHistoryStore.STATUS_FAILED);
+            AlertSyncWorker.enqueue(this);
+            if (statusPage != null) {
+                statusPage.recordDispatch(dispatchId,
+                        dispatched ? ServiceStatusPage.DISPATCH_SENT : ServiceStatusPage.DISPATCH_FAILED);
+            }
+            SupportLog.record(SupportLog.DISPATCH_DONE, submitted, dispatched ? 1 : 0);
+            // After the SMS_SENT wait above, so both logs have every send's outcome
+            AlertTrace.flush(this);
+            SupportLog.flush(this);
+            ResourceStats.snapshot(this);
+            dispatching = false;
+            // Live location, the lower-tier stream and evidence recording keep the service in the
+            // foreground until they end
+            boolean sharing = dispatched && !immediateContacts.isEmpty() && startLiveLocation(sessionId, immediateContacts);
+            if (!sharing && !streaming) {
+                AlertSessionManager.end(this, sessionId);
+                stopIfIdle();
+            }
         }
     }
 
+    /**
+     * Sends the lower tiers in their own task once the first has gone out, so the alert doesn't
+     * wait on the quota to finish. Takes over {@code router} and finishes it at the end.
+     */
+    private void streamLaterTiers(String sessionId, AlertDispatcher dispatcher, Outbox outbox,
+                                  ArrayList<String> parts, AlertDispatcher.Listener listener, SimRouter router) {
+        streaming = true;
+        long timeoutMs = SmsSendScheduler.get().estimateWaitMs(outbox.size() * parts.size()) + DISPATCH_TIMEOUT_MS;
+        // Mostly waiting on the quota; it mustn't hold back sync and housekeeping meanwhile
+        AppTasks.get().submit(TaskRuntime.Lane.PACED, "tier_stream", timeoutMs, task -> {
+            int sent = 0;
+            try {
+                sent = dispatcher.dispatch(outbox, parts, listener);
+                Thread.sleep(SENT_SETTLE_MS);
+            } finally {
+                Thread.interrupted(); // past the deadline; the rest still has to run
+                router.finish();
+                AlertSyncWorker.enqueue(this);
+                SupportLog.flush(this);
+                Log.d(TAG, "📨 Lower tiers done: " + sent + " of " + outbox.size() + " sent");
+                streaming = false;
+                LiveLocationSession current = liveLocation;
+                if (current == null || current.isStopped()) {
+                    AlertSessionManager.end(this, sessionId);
+                    stopIfIdle();
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads a value mirrored by SafeHerStorageModule into device-protected storage, falling back
+     * to this process's prefs once the user has unlocked (credential storage is unavailable before).
+     */
+    private String readConfigValue(String key) {
+        String value = SharedStateFile.get(this, SharedStateFile.CONFIG).getString(key, null);
+        if (value == null && DirectBoot.isUserUnlocked(this)) {
+            SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+            value = prefs.getString(key, "");
+        }
+        return value != null ? value : "";
+    }
+
+    /** The auth token stays in credential-protected prefs; before unlock the relay goes unauthenticated. */
+    private String readAuthToken() {
+        if (!DirectBoot.isUserUnlocked(this)) return "";
+        return getSharedPreferences(PREFS_NAME, MODE_PRIVATE).getString(AlertSyncWorker.KEY_AUTH_TOKEN, "");
+    }
+
     private String buildEmergencyMessage() {
-        String timestamp = new SimpleDateFormat("dd/MM/yyyy, hh:mm:ss a", Locale.getDefault()).format(new Date());
-        String addressText = "Location unavailable";
-        double latitude = 0.0, longitude = 0.0;
+        long now = System.currentTimeMillis();
+        String addressText = null;
+        LocationSource.Fix fix = null;
 
+        // An auto-dispatch countdown has usually fetched and geocoded a fresh fix already
+        DispatchPrewarm.Result prewarmed = DispatchPrewarm.take();
+        AlertTrace.begin(AlertTrace.LOCATION);
         try {
-            if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
-                    == PackageManager.PERMISSION_GRANTED) {
-                LocationManager lm = (LocationManager) getSystemService(Context.LOCATION_SERVICE);
-                Location lastKnown = lm.getLastKnownLocation(LocationManager.GPS_PROVIDER);
-                if (lastKnown == null)
-                    lastKnown = lm.getLastKnownLocation(LocationManager.NETWORK_PROVIDER);
-
-                if (lastKnown != null) {
-                    latitude = lastKnown.getLatitude();
-                    longitude = lastKnown.getLongitude();
-                    try {
-                        Geocoder geocoder = new Geocoder(this, Locale.getDefault());
-                        List<Address> addresses = geocoder.getFromLocation(latitude, longitude, 1);
-                        if (addresses != null && !addresses.isEmpty()) {
-                            addressText = addresses.get(0).getAddressLine(0);
-                        } else {
-                            addressText = "Lat: " + latitude + ", Lon: " + longitude;
-                        }
-                    } catch (Exception geocoderException) {
-                        addressText = "Lat: " + latitude + ", Lon: " + longitude;
-                    }
+            if (prewarmed != null) {
+                alertFix = prewarmed.fix;
+                fix = AndroidLocationSource.toFix(alertFix);
+                addressText = prewarmed.address;
+            } else {
+                AndroidLocationSource locationSource = new AndroidLocationSource(this);
+                fix = locationSource.lastKnownFix();
+                if (fix != null) {
+                    alertFix = locationSource.lastLocation();
+                    addressText = DispatchPrewarm.describe(this, fix.latitude, fix.longitude);
                 }
             }
         } catch (Exception e) {
             Log.e(TAG, "Error getting location/address", e);
+        } finally {
+            AlertTrace.end();
         }
+        alertLatitude = fix != null ? fix.latitude : null;
+        alertLongitude = fix != null ? fix.longitude : null;
+        alertAddress = addressText != null ? addressText : AlertComposer.LOCATION_UNAVAILABLE;
+        alertTrail = BreadcrumbTrail.get().encodedPolyline();
+        String trailLink = BreadcrumbTrail.get().trailLink();
 
-        return "🚨 EMERGENCY ALERT from SafeHer\n\n" +
-                "I NEED HELP IMMEDIATELY!\n\n" +
-                "Time: " + timestamp + "\n" +
-                "Location: " + addressText + "\n\n" +
-                "Google Maps: https://www.google.com/maps/search/?api=1&query=" +
-                latitude + "," + longitude + "\n\n" +
-                "Please check on me or call emergency services!\n\n" +
-                "- Sent automatically by SafeHer";
+        AlertTrace.begin(AlertTrace.COMPOSE);
+        try {
+            // The coordinates stand in for a missing address in the text; history keeps the marker
+            return AlertMessages.composer(this).compose(now, fix, addressText, trailLink);
+        } finally {
+            AlertTrace.end();
+        }
+    }
+
+    /** Follow-ups go to tier 1 only, drawing on whatever SMS quota the fan-out left. */
+    private boolean startLiveLocation(String sessionId, List<String> contacts) {
+        liveLocation = new LiveLocationSession(this, contacts, alertFix,
+                new LiveLocationSession.Listener() {
+                    @Override
+                    public void onFollowUpSent(int seq, int remaining) {
+                        updateNotification("📡 Sharing live location · update #" + seq);
+                        AlertSessionManager.touch(EmergencyDispatchService.this, sessionId);
+                    }
+
+                    @Override
+                    public void onStopped(String reason) {
+                        // A newer alert may have replaced this session; only the current one ends the service
+                        LiveLocationSession current = liveLocation;
+                        if ((current == null || current.isStopped()) && !streaming) {
+                            AlertSessionManager.end(EmergencyDispatchService.this, sessionId);
+                            updateNotification("✅ Live location sharing ended");
+                            stopIfIdle();
+                        }
+                    }
+                });
+        if (!liveLocation.start()) {
+            liveLocation = null;
+            return false;
+        }
+        updateNotification("📡 Sharing live location with " + contacts.size() + " contact(s)");
+        return true;
+    }
+
+    /** Stops the service once the dispatch, live location and evidence recording have all ended. */
+    private void stopIfIdle() {
+        LiveLocationSession current = liveLocation;
+        if (!dispatching && !streaming && (current == null || current.isStopped()) && !EvidenceRecorder.isRecording()) {
+            stopSelf();
+        }
     }
 
     private Notification buildForegroundNotification(String text) {
-        return new NotificationCompat.Builder(this, CHANNEL_ID)
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
                 .setSmallIcon(android.R.drawable.ic_dialog_alert)
                 .setContentTitle("SafeHer Emergency")
                 .setContentText(text)
                 .setPriority(NotificationCompat.PRIORITY_HIGH)
-                .setOngoing(true)
-                .build();
+                .setOngoing(true);
+        if (liveLocation != null || EvidenceRecorder.isRecording()) {
+            Intent stopIntent = new Intent(this, EmergencyActionReceiver.class);
+            stopIntent.setAction(EmergencyActionReceiver.ACTION_STOP_LIVE_LOCATION);
+            PendingIntent stopPendingIntent = PendingIntent.getBroadcast(
+                    this, 3, stopIntent, PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+            builder.addAction(android.R.drawable.ic_menu_close_clear_cancel, "I'M SAFE - STOP SHARING", stopPendingIntent);
+        }
+        return builder.build();
     }
 
     private void updateNotification(String text) {
@@ -223,6 +423,8 @@ public class EmergencyDispatchService extends Service {
     @Override
     public void onDestroy() {
         super.onDestroy();
+        if (liveLocation != null) liveLocation.stop(LiveLocationSession.STOP_DESTROYED);
+        EvidenceRecorder.stop();
         try {
             if (smsStatusReceiver != null) {
                 unregisterReceiver(smsStatusReceiver);
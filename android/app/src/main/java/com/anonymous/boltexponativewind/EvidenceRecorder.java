@@ -0,0 +1,214 @@
+package com.anonymous.boltexponativewind;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.Process;
+import android.os.SystemClock;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.anonymous.boltexponativewind.core.EvidenceChunkWriter;
+import com.anonymous.boltexponativewind.core.PcmPool;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+/**
+ * Optional microphone evidence while an alert is active, enabled by "record_evidence". A capture
+ * thread reads AudioRecord into PcmPool buffers and a background-priority encoder thread turns
+ * them into encrypted chunks with EvidenceChunkWriter, so sealing and fsync never compete with
+ * the SMS and location work. Memory is fixed at POOL_BUFFERS buffers plus one chunk; when the
+ * encoder falls behind, audio is dropped rather than queued. Completed chunks wait in the
+ * evidence directory for EvidenceUploadWorker.
+ */
+public class EvidenceRecorder {
+    private static final String TAG = "EvidenceRecorder";
+
+    private static final int SAMPLE_RATE = 16_000;
+    private static final int CHUNK_SECONDS = 30;
+    private static final int BUFFER_SAMPLES = SAMPLE_RATE / 10; // 100 ms
+    private static final int POOL_BUFFERS = 10;
+    private static final long POLL_MS = 500;
+    private static final long MAX_RECORDING_MS = 30 * 60 * 1000L;
+    private static final String DIR_NAME = "evidence";
+    private static final String KEY_ALIAS = "safeher_evidence";
+
+    public interface Listener {
+        /** Called on the encoder thread once the last chunk is written. */
+        void onStopped(int chunks);
+    }
+
+    private static EvidenceRecorder active;
+
+    private final Context context;
+    private final String sessionId;
+    private final Listener listener;
+    private final PcmPool pool = new PcmPool(POOL_BUFFERS, BUFFER_SAMPLES);
+    private final AudioRecord record;
+    private volatile boolean stopping;
+    private volatile boolean captureDone;
+    private long droppedSamples;
+    private int chunks;
+
+    private EvidenceRecorder(Context context, String sessionId, AudioRecord record, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.sessionId = sessionId;
+        this.record = record;
+        this.listener = listener;
+    }
+
+    public static boolean isEnabled(Context context) {
+        return "true".equals(SharedStateFile.get(context, SharedStateFile.CONFIG)
+                .getString(DirectBoot.KEY_RECORD_EVIDENCE, null))
+                && ContextCompat.checkSelfPermission(context, Manifest.permission.RECORD_AUDIO)
+                        == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /** Returns false when already recording or the microphone can't be opened. */
+    public static synchronized boolean start(Context context, String sessionId, Listener listener) {
+        if (active != null) return false;
+        int minBytes = AudioRecord.getMinBufferSize(SAMPLE_RATE, AudioFormat.CHANNEL_IN_MONO,
+                AudioFormat.ENCODING_PCM_16BIT);
+        AudioRecord record;
+        try {
+            // A few seconds of platform buffering rides out a capture thread descheduled under load
+            record = new AudioRecord(MediaRecorder.AudioSource.MIC, SAMPLE_RATE, AudioFormat.CHANNEL_IN_MONO,
+                    AudioFormat.ENCODING_PCM_16BIT, Math.max(minBytes, SAMPLE_RATE * 2 * 2));
+        } catch (IllegalArgumentException | SecurityException e) {
+            Log.w(TAG, "⚠️ Microphone unavailable: " + e.getMessage());
+            return false;
+        }
+        if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+            record.release();
+            Log.w(TAG, "⚠️ Microphone could not be initialised");
+            return false;
+        }
+        active = new EvidenceRecorder(context, sessionId, record, listener);
+        active.begin();
+        return true;
+    }
+
+    /** Stops the running recording, if any; the partial chunk is still written. */
+    public static synchronized void stop() {
+        if (active != null) active.stopping = true;
+    }
+
+    public static synchronized boolean isRecording() {
+        return active != null;
+    }
+
+    /** Device-protected, like the rest of the dispatch path's state. */
+    public static File evidenceDir(Context context) {
+        File dir = new File(context.getApplicationContext().createDeviceProtectedStorageContext().getFilesDir(),
+                DIR_NAME);
+        if (!dir.exists() && !dir.mkdirs()) Log.e(TAG, "Could not create " + dir);
+        return dir;
+    }
+
+    /** AES-256 key in Android Keystore; chunks can only be decrypted on this device. */
+    static SecretKey key() throws GeneralSecurityException, IOException {
+        KeyStore keyStore = KeyStore.getInstance("AndroidKeyStore");
+        keyStore.load(null);
+        Key existing = keyStore.getKey(KEY_ALIAS, null);
+        if (existing instanceof SecretKey) return (SecretKey) existing;
+        KeyGenerator generator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, "AndroidKeyStore");
+        generator.init(new KeyGenParameterSpec.Builder(KEY_ALIAS,
+                KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                .setKeySize(256)
+                .build());
+        return generator.generateKey();
+    }
+
+    private void begin() {
+        new Thread(this::capture, "SafeHer-EvidenceCapture").start();
+        new Thread(this::encode, "SafeHer-EvidenceEncoder").start();
+        Log.d(TAG, "🎙️ Evidence recording started");
+    }
+
+    private void capture() {
+        short[] discard = new short[BUFFER_SAMPLES];
+        long deadline = SystemClock.elapsedRealtime() + MAX_RECORDING_MS;
+        try {
+            record.startRecording();
+            while (!stopping && SystemClock.elapsedRealtime() < deadline) {
+                PcmPool.Buffer buffer = pool.acquire();
+                if (buffer == null) {
+                    // Encoder is behind: keep draining the microphone and drop this stretch
+                    int n = record.read(discard, 0, discard.length);
+                    if (n < 0) break;
+                    droppedSamples += n;
+                    continue;
+                }
+                int n = record.read(buffer.samples, 0, buffer.samples.length);
+                if (n < 0) {
+                    pool.release(buffer);
+                    Log.w(TAG, "⚠️ Microphone read failed: " + n);
+                    break;
+                }
+                buffer.length = n;
+                buffer.capturedAtMs = System.currentTimeMillis() - n * 1000L / SAMPLE_RATE;
+                pool.submit(buffer);
+            }
+        } catch (IllegalStateException e) {
+            Log.w(TAG, "⚠️ Microphone capture stopped: " + e.getMessage());
+        } finally {
+            try {
+                record.stop();
+            } catch (IllegalStateException ignored) {
+            }
+            record.release();
+            captureDone = true;
+        }
+    }
+
+    private void encode() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        try (EvidenceChunkWriter writer = new EvidenceChunkWriter(evidenceDir(context), sessionId, key(),
+                SAMPLE_RATE, CHUNK_SECONDS, this::onChunk)) {
+            while (true) {
+                // Read before polling: once capture is done, one more poll sees everything it submitted
+                boolean last = captureDone;
+                PcmPool.Buffer buffer = pool.take(last ? 0 : POLL_MS);
+                if (buffer == null) {
+                    if (last) break;
+                    continue;
+                }
+                try {
+                    writer.write(buffer.samples, buffer.length, buffer.capturedAtMs);
+                } finally {
+                    pool.release(buffer);
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Evidence encoding failed", e);
+            stopping = true;
+        }
+        Log.d(TAG, "🎙️ Evidence recording stopped: " + chunks + " chunk(s), "
+                + (droppedSamples * 1000L / SAMPLE_RATE) + " ms dropped");
+        synchronized (EvidenceRecorder.class) {
+            if (active == this) active = null;
+        }
+        listener.onStopped(chunks);
+    }
+
+    private void onChunk(File chunk, int seq, int samples) {
+        chunks = seq + 1;
+        // Upload as soon as there is network: the phone may not survive the emergency
+        EvidenceUploadWorker.enqueue(context);
+    }
+}
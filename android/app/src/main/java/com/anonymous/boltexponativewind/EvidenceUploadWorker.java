@@ -0,0 +1,173 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.anonymous.boltexponativewind.core.EvidenceChunkWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+/**
+ * Uploads completed evidence chunks, oldest first, one POST each, and deletes a chunk once the
+ * backend has it. The evidence directory is the queue: chunks survive process death and reboots
+ * until uploaded. Chunks are sealed with a device-bound key, so each one is decrypted (and
+ * thereby authenticated) here and sent as IMA ADPCM over HTTPS.
+ */
+public class EvidenceUploadWorker extends Worker {
+    private static final String TAG = "EvidenceUploadWorker";
+    private static final String PREFS_NAME = "SafeHerPrefs";
+    private static final String UNIQUE_WORK = "safeher_evidence_upload";
+    private static final String UPLOAD_PATH = "/api/evidence";
+
+    private static final int MAX_ATTEMPTS = 8;
+    private static final int TIMEOUT_MS = 30000;
+
+    public EvidenceUploadWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    public static void enqueue(Context context) {
+        if (!DirectBoot.isUserUnlocked(context)) return; // WorkManager's database is credential-protected
+        try {
+            OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(EvidenceUploadWorker.class)
+                    .setConstraints(new Constraints.Builder().setRequiredNetworkType(NetworkType.CONNECTED).build())
+                    .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                    .build();
+            // Appended, so a chunk completed while a run is uploading gets a run of its own
+            WorkManager.getInstance(context)
+                    .enqueueUniqueWork(UNIQUE_WORK, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to enqueue evidence upload", e);
+        }
+    }
+
+    /** Picks up chunks left over from a recording whose upload never finished. */
+    public static void enqueueIfPending(Context context) {
+        if (pending(context).length > 0) enqueue(context);
+    }
+
+    private static File[] pending(Context context) {
+        File[] chunks = EvidenceRecorder.evidenceDir(context)
+                .listFiles((dir, name) -> name.endsWith(EvidenceChunkWriter.SUFFIX));
+        if (chunks == null) return new File[0];
+        // Names are <session>_<seq>, so this keeps each recording's chunks in order
+        Arrays.sort(chunks);
+        return chunks;
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        SharedPreferences prefs = getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String apiBase = prefs.getString(AlertSyncWorker.KEY_API_BASE, "");
+        if (apiBase.isEmpty()) {
+            Log.w(TAG, "No api_base configured; evidence stays queued");
+            return Result.success();
+        }
+        String token = prefs.getString(AlertSyncWorker.KEY_AUTH_TOKEN, "");
+
+        SecretKey key;
+        try {
+            key = EvidenceRecorder.key();
+        } catch (Exception e) {
+            Log.e(TAG, "Evidence key unavailable", e);
+            return retryOrFail();
+        }
+
+        for (File file : pending(getApplicationContext())) {
+            if (!AppTasks.yieldToEmergencies(getApplicationContext())) return Result.retry();
+            EvidenceChunkWriter.Chunk chunk;
+            try {
+                chunk = EvidenceChunkWriter.read(file, key);
+            } catch (IOException e) {
+                // Truncated or altered: nothing trustworthy left to send
+                Log.e(TAG, "Dropping unreadable evidence chunk " + file.getName(), e);
+                if (!file.delete()) Log.w(TAG, "Could not delete " + file.getName());
+                continue;
+            }
+
+            int code;
+            try {
+                code = post(apiBase + UPLOAD_PATH, token, file.getName(), chunk);
+            } catch (IOException e) {
+                Log.w(TAG, "Evidence upload failed: " + e.getMessage());
+                return retryOrFail();
+            }
+
+            if (code >= 200 && code < 300) {
+                if (!file.delete()) Log.w(TAG, "Could not delete uploaded " + file.getName());
+                Log.d(TAG, "Uploaded " + file.getName() + ", " + chunk.adpcm.length + " bytes");
+            } else if (code == 408 || code == 429 || code >= 500) {
+                Log.w(TAG, "Evidence upload got retryable HTTP " + code);
+                return retryOrFail();
+            } else {
+                // Kept on disk: a later recording's upload tries it again
+                Log.e(TAG, "Evidence upload rejected with HTTP " + code);
+                return Result.failure();
+            }
+        }
+        return Result.success();
+    }
+
+    private Result retryOrFail() {
+        return getRunAttemptCount() + 1 < MAX_ATTEMPTS ? Result.retry() : Result.failure();
+    }
+
+    private static int post(String url, String token, String name, EvidenceChunkWriter.Chunk chunk) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            conn.setRequestMethod("POST");
+            conn.setConnectTimeout(TIMEOUT_MS);
+            conn.setReadTimeout(TIMEOUT_MS);
+            conn.setDoOutput(true);
+            conn.setFixedLengthStreamingMode(chunk.adpcm.length);
+            conn.setRequestProperty("Content-Type", "audio/x-ima-adpcm");
+            conn.setRequestProperty("X-Evidence-Sample-Rate", String.valueOf(chunk.sampleRate));
+            conn.setRequestProperty("X-Evidence-Samples", String.valueOf(chunk.samples));
+            conn.setRequestProperty("X-Evidence-Start-Ms", String.valueOf(chunk.startMs));
+            conn.setRequestProperty("X-Evidence-Seq", String.valueOf(chunk.seq));
+            // <session>_<seq>: lets the backend drop a chunk it already stored when our ack got lost
+            conn.setRequestProperty("Idempotency-Key", "evidence-" + name);
+            if (!token.isEmpty()) {
+                conn.setRequestProperty("Authorization", "Bearer " + token);
+            }
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(chunk.adpcm);
+            }
+            int code = conn.getResponseCode();
+            drain(code < 400 ? conn.getInputStream() : conn.getErrorStream());
+            return code;
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private static void drain(InputStream in) {
+        if (in == null) return;
+        try (InputStream stream = in) {
+            byte[] buf = new byte[512];
+            while (stream.read(buf) != -1) { /* keep-alive needs the body consumed */ }
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.anonymous.boltexponativewind.core.TaskRuntime;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Races SMS against the HTTP relay for one alert and keeps a per-recipient, per-channel ack.
+ * The first channel to confirm a recipient wins: SMS not yet handed to the radio is skipped,
+ * and the relay is told to cancel recipients SMS already reached. Both channels confirm only on
+ * a delivery receipt (SMS_DELIVERED, or the relay's "delivered"), so the race compares like with
+ * like; a recipient the relay merely accepted still gets the SMS. Each channel counts a recipient
+ * once, however many parts or receivers report it. Time-to-first-confirmation is stored per
+ * recipient and aggregated per channel.
+ */
+public class HedgedDispatch {
+    private static final String TAG = "HedgedDispatch";
+    public static final String CHANNEL_SMS = "sms";
+    public static final String CHANNEL_RELAY = "relay";
+    private static final long RELAY_TIMEOUT_MS = 60 * 1000L;
+
+    private static final Map<Long, HedgedDispatch> active = new ConcurrentHashMap<>();
+
+    private final Context context;
+    private final long alertId;
+    private final long startedAt = SystemClock.elapsedRealtime();
+    private final Map<String, String> firstChannel = new HashMap<>();
+    private final Set<String> acked = new HashSet<>(); // "phone|channel" already counted
+    // Per channel: {confirmations, first wins, total latency ms}
+    private final Map<String, long[]> channelStats = new HashMap<>();
+    private TaskRuntime.Task relayTask;
+
+    private HedgedDispatch(Context context, long alertId) {
+        this.context = context.getApplicationContext();
+        this.alertId = alertId;
+    }
+
+    public static HedgedDispatch start(Context context, long alertId) {
+        HedgedDispatch dispatch = new HedgedDispatch(context, alertId);
+        if (alertId > 0) active.put(alertId, dispatch);
+        return dispatch;
+    }
+
+    /** Dispatch for an alert that is still in flight, or null. */
+    public static HedgedDispatch get(long alertId) {
+        return active.get(alertId);
+    }
+
+    public synchronized boolean isConfirmed(String phone) {
+        return firstChannel.containsKey(phone);
+    }
+
+    /** Records a channel ack; returns true if this was the first confirmation for the recipient. */
+    public synchronized boolean onConfirmed(String phone, String channel) {
+        if (phone == null || !acked.add(phone + "|" + channel)) return false;
+        long latency = SystemClock.elapsedRealtime() - startedAt;
+        long[] stats = channelStats.get(channel);
+        if (stats == null) {
+            stats = new long[3];
+            channelStats.put(channel, stats);
+        }
+        stats[0]++;
+        stats[2] += latency;
+        if (firstChannel.containsKey(phone)) return false;
+
+        stats[1]++;
+        firstChannel.put(phone, channel);
+        AlertHistoryStore.get(context).recordConfirmation(alertId, phone, channel, latency);
+        Log.d(TAG, "First confirmation via " + channel + " after " + latency + " ms");
+        return true;
+    }
+
+    public synchronized int confirmedCount() {
+        return firstChannel.size();
+    }
+
+    private synchronized List<String> confirmedBy(String channel) {
+        List<String> phones = new ArrayList<>();
+        for (Map.Entry<String, String> entry : firstChannel.entrySet()) {
+            if (channel.equals(entry.getValue())) phones.add(entry.getKey());
+        }
+        return phones;
+    }
+
+    /**
+     * Sends the alert through the relay as an emergency task, in parallel with SMS. Give it tier 1
+     * only: lower tiers are held back on purpose and the relay would reach them all at once.
+     */
+    public void startRelay(RelayClient relay, String message, List<String> recipients) {
+        relayTask = AppTasks.get().submit(TaskRuntime.Lane.EMERGENCY, "relay", RELAY_TIMEOUT_MS, task -> {
+            try {
+                for (String phone : relay.send(alertId, message, recipients)) {
+                    onConfirmed(phone, CHANNEL_RELAY);
+                }
+                // Recipients SMS already reached don't need a second copy
+                if (!task.isCancelled()) relay.cancel(alertId, confirmedBy(CHANNEL_SMS));
+            } catch (IOException e) {
+                Log.w(TAG, "Relay channel failed: " + e.getMessage());
+            }
+        });
+    }
+
+    /** Waits for the relay leg, then flushes per-channel stats and forgets the alert. */
+    public void finish(long maxWaitMs) {
+        if (relayTask != null) {
+            try {
+                // Past the wait the relay's answer no longer changes the outcome
+                if (!relayTask.await(maxWaitMs)) relayTask.cancel();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        active.remove(alertId);
+        flushStats();
+    }
+
+    private synchronized void flushStats() {
+        if (channelStats.isEmpty()) return;
+        Map<String, Long> deltas = new HashMap<>();
+        for (Map.Entry<String, long[]> entry : channelStats.entrySet()) {
+            String channel = entry.getKey();
+            long[] stats = entry.getValue();
+            deltas.put(channel + "_confirmations", stats[0]);
+            deltas.put(channel + "_first_wins", stats[1]);
+            deltas.put(channel + "_latency_total_ms", stats[2]);
+        }
+        SharedStateFile.get(context, SharedStateFile.DISPATCH_STATS).addAll(deltas);
+    }
+
+    /** Per-channel ack counts, first-confirmation wins and total latency across alerts. */
+    public static Map<String, String> readStats(Context context) {
+        return SharedStateFile.get(context, SharedStateFile.DISPATCH_STATS).snapshot();
+    }
+}
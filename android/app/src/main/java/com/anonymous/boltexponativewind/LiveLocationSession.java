@@ -0,0 +1,251 @@
+package com.anonymous.boltexponativewind;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Follow-up location stream after an alert has gone out. A follow-up is sent when the user
+ * has moved MIN_MOVE_METERS or MAX_INTERVAL_MS has passed, never more often than MIN_GAP_MS.
+ * Most follow-ups are delta-coded against the last full fix, so they stay short, plain
+ * GSM-7 text that fits in one segment. Every ANCHOR_EVERY-th follow-up carries a maps link.
+ *
+ * The session runs on its own looper inside EmergencyDispatchService's foreground session.
+ * It stops on cancel, after SESSION_TIMEOUT_MS, or after MAX_FOLLOW_UPS. Sends draw on
+ * SmsSendScheduler, and a follow-up the quota can't cover is deferred to the next fix or tick.
+ */
+public class LiveLocationSession implements LocationListener {
+    private static final String TAG = "LiveLocationSession";
+
+    private static final float MIN_MOVE_METERS = 150f;
+    private static final long MAX_INTERVAL_MS = 5 * 60 * 1000L;
+    private static final long MIN_GAP_MS = 60 * 1000L;
+    private static final long SESSION_TIMEOUT_MS = 30 * 60 * 1000L;
+    private static final long GPS_MIN_TIME_MS = 20 * 1000L;
+    private static final float GPS_MIN_DISTANCE_M = 25f;
+    private static final int ANCHOR_EVERY = 3;
+    private static final int MAX_FOLLOW_UPS = 12;
+
+    public static final String STOP_CANCELLED = "cancelled";
+    public static final String STOP_TIMEOUT = "timeout";
+    public static final String STOP_BUDGET = "budget";
+    public static final String STOP_DESTROYED = "destroyed";
+
+    public interface Listener {
+        void onFollowUpSent(int seq, int remaining);
+        void onStopped(String reason);
+    }
+
+    private static volatile LiveLocationSession active;
+
+    private final Context context;
+    private final List<String> recipients;
+    private final Listener listener;
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.US);
+
+    private HandlerThread thread;
+    private Handler handler;
+    private LocationManager locationManager;
+    private volatile boolean stopped;
+
+    private Location lastFix;
+    private Location lastSent;
+    private long lastSentAt;
+    private int seq;
+    private Location anchor;
+    private int anchorSeq;
+
+    /**
+     * @param initialFix position the initial alert reported (#0), or null if none
+     */
+    public LiveLocationSession(Context context, List<String> recipients, Location initialFix, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.recipients = recipients;
+        this.listener = listener;
+        this.anchor = initialFix;
+        this.lastSent = initialFix;
+    }
+
+    /** Stops the running session, if any; safe from any thread. */
+    public static void stopActive(String reason) {
+        LiveLocationSession session = active;
+        if (session != null) session.stop(reason);
+    }
+
+    /** Returns false when there is nothing to do: no recipients or no location permission. */
+    public boolean start() {
+        if (recipients.isEmpty()) return false;
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "⚠️ No location permission; live location not started");
+            return false;
+        }
+        locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+        if (locationManager == null) return false;
+
+        stopActive(STOP_CANCELLED);
+        active = this;
+        thread = new HandlerThread("SafeHer-LiveLocation");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        lastSentAt = SystemClock.elapsedRealtime();
+        try {
+            locationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER,
+                    GPS_MIN_TIME_MS, GPS_MIN_DISTANCE_M, this, thread.getLooper());
+            if (locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER)) {
+                locationManager.requestLocationUpdates(LocationManager.NETWORK_PROVIDER,
+                        GPS_MIN_TIME_MS, GPS_MIN_DISTANCE_M, this, thread.getLooper());
+            }
+        } catch (SecurityException | IllegalArgumentException e) {
+            Log.e(TAG, "❌ Could not request location updates", e);
+            stop(STOP_DESTROYED);
+            return false;
+        }
+        handler.postDelayed(this::onMaxIntervalTick, MAX_INTERVAL_MS);
+        handler.postDelayed(() -> stop(STOP_TIMEOUT), SESSION_TIMEOUT_MS);
+        Log.d(TAG, "📡 Live location started for " + recipients.size()
+                + " contact(s), up to " + MAX_FOLLOW_UPS + " follow-up(s)");
+        return true;
+    }
+
+    public void stop(String reason) {
+        Handler h = handler;
+        if (h == null) return;
+        if (Thread.currentThread() != thread) {
+            h.post(() -> stop(reason));
+            return;
+        }
+        if (stopped) return;
+        stopped = true;
+        if (active == this) active = null;
+        locationManager.removeUpdates(this);
+        h.removeCallbacksAndMessages(null);
+        thread.quitSafely();
+        Log.d(TAG, "🛑 Live location stopped (" + reason + ") after " + seq + " follow-up(s)");
+        listener.onStopped(reason);
+    }
+
+    /** Escalation from a coalesced trigger: send the latest fix now, still subject to the minimum gap. */
+    public static void requestActiveUpdate() {
+        LiveLocationSession session = active;
+        Handler h = session != null ? session.handler : null;
+        if (h != null) h.post(session::sendLatestIfDue);
+    }
+
+    private void sendLatestIfDue() {
+        if (stopped || lastFix == null) return;
+        if (SystemClock.elapsedRealtime() - lastSentAt >= MIN_GAP_MS) sendFollowUp(lastFix);
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    @Override
+    public void onLocationChanged(Location location) {
+        if (stopped) return;
+        // Ignore a coarse network fix when a better recent one is already known
+        if (lastFix != null && location.getAccuracy() > lastFix.getAccuracy() * 2
+                && location.getTime() - lastFix.getTime() < GPS_MIN_TIME_MS * 3) {
+            return;
+        }
+        lastFix = location;
+        long sinceLast = SystemClock.elapsedRealtime() - lastSentAt;
+        if (sinceLast < MIN_GAP_MS) return;
+        if (lastSent == null || lastSent.distanceTo(location) >= MIN_MOVE_METERS) {
+            sendFollowUp(location);
+        }
+    }
+
+    private void onMaxIntervalTick() {
+        if (stopped) return;
+        long sinceLast = SystemClock.elapsedRealtime() - lastSentAt;
+        if (sinceLast >= MAX_INTERVAL_MS && lastFix != null) {
+            sendFollowUp(lastFix);
+            sinceLast = SystemClock.elapsedRealtime() - lastSentAt;
+        }
+        // Without any fix yet, keep checking at the minimum gap rather than spinning
+        handler.postDelayed(this::onMaxIntervalTick, Math.max(MIN_GAP_MS, MAX_INTERVAL_MS - sinceLast));
+    }
+
+    private void sendFollowUp(Location fix) {
+        if (!SmsSendScheduler.get().tryAcquire(recipients.size())) {
+            Log.d(TAG, "SMS quota exhausted; deferring follow-up");
+            return;
+        }
+        seq++;
+        String message = anchor == null || seq % ANCHOR_EVERY == 0
+                ? anchorMessage(fix) : deltaMessage(fix);
+        SmsSender sender = PlatformSmsSender.create(context);
+        List<Integer> sims = sender.activeSubscriptions();
+        ArrayList<String> parts = new ArrayList<>(Collections.singletonList(message));
+        for (int i = 0; i < recipients.size(); i++) {
+            try {
+                sender.send(sims.get(i % sims.size()), recipients.get(i), parts, null, null);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Follow-up SMS failed", e);
+            }
+        }
+        lastSent = fix;
+        lastSentAt = SystemClock.elapsedRealtime();
+        int remaining = MAX_FOLLOW_UPS - seq;
+        listener.onFollowUpSent(seq, remaining);
+        if (remaining <= 0) stop(STOP_BUDGET);
+    }
+
+    private String anchorMessage(Location fix) {
+        anchor = fix;
+        anchorSeq = seq;
+        return String.format(Locale.US, "SafeHer live #%d %s https://maps.google.com/?q=%.5f,%.5f",
+                seq, timeFormat.format(new Date(fix.getTime())), fix.getLatitude(), fix.getLongitude());
+    }
+
+    /** e.g. "SafeHer live #4 14:07: 180m NE of #3 (+127,+98)", the tail being the offset in 1e-5 degrees. */
+    private String deltaMessage(Location fix) {
+        int dLat = toE5(fix.getLatitude()) - toE5(anchor.getLatitude());
+        int dLon = toE5(fix.getLongitude()) - toE5(anchor.getLongitude());
+        return String.format(Locale.US, "SafeHer live #%d %s: %dm %s of #%d (%+d,%+d)",
+                seq, timeFormat.format(new Date(fix.getTime())), Math.round(anchor.distanceTo(fix)),
+                compass(anchor.bearingTo(fix)), anchorSeq, dLat, dLon);
+    }
+
+    private static int toE5(double degrees) {
+        return (int) Math.round(degrees * 1e5);
+    }
+
+    private static String compass(float bearing) {
+        String[] points = { "N", "NE", "E", "SE", "S", "SW", "W", "NW" };
+        int index = Math.round(((bearing % 360) + 360) % 360 / 45f) % 8;
+        return points[index];
+    }
+
+    @Override
+    public void onStatusChanged(String provider, int status, Bundle extras) {
+        // Deprecated; required before API 29
+    }
+
+    @Override
+    public void onProviderEnabled(String provider) {
+    }
+
+    @Override
+    public void onProviderDisabled(String provider) {
+    }
+}
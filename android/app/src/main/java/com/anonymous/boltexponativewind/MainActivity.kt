@@ -27,6 +27,8 @@ class MainActivity : ReactActivity() {
 
   override fun onCreate(savedInstanceState: Bundle?) {
     SplashScreenManager.registerOnActivity(this)
+    // RN is deferred for headless starts; the UI is the first thing that actually needs it.
+    MainApplication.ensureReactNative(application)
     super.onCreate(null)
     Log.d(TAG, "MainActivity onCreate")
     handleEmergencyIntent(intent)
@@ -1,7 +1,10 @@
 package com.anonymous.boltexponativewind
 
+import android.app.ActivityManager
 import android.app.Application
 import android.content.res.Configuration
+import android.util.Log
+import androidx.work.Configuration as WorkConfiguration
 import com.facebook.react.PackageList
 import com.facebook.react.ReactApplication
 import com.facebook.react.ReactNativeApplicationEntryPoint.loadReactNative
@@ -18,12 +21,34 @@ import com.facebook.react.bridge.ReactContext
 import com.facebook.react.bridge.WritableMap
 import com.facebook.react.modules.core.DeviceEventManagerModule
 
-class MainApplication : Application(), ReactApplication {
+class MainApplication : Application(), ReactApplication, WorkConfiguration.Provider {
 
     // 1. COMPANION OBJECT: Static methods for communicating with React Native
     companion object {
+        private const val TAG = "MainApplication"
         private var reactContext: ReactContext? = null
 
+        @Volatile
+        private var reactNativeLoaded = false
+
+        /**
+         * Loads React Native and the Expo lifecycle on first use. Background-only starts
+         * (boot, watchdog, restart broadcasts) never call this, so the always-on process
+         * stays free of the JS runtime until an Activity or JS-dependent component needs it.
+         */
+        @JvmStatic
+        fun ensureReactNative(application: Application) {
+            if (reactNativeLoaded) return
+            synchronized(this) {
+                if (reactNativeLoaded) return
+                (application as MainApplication).initReactNative()
+                reactNativeLoaded = true
+            }
+        }
+
+        @JvmStatic
+        fun isReactNativeLoaded(): Boolean = reactNativeLoaded
+
         @JvmStatic // <<< CRITICAL FIX for Java interop
         fun hasReactContext(): Boolean {
             // Checks if the React context is loaded and active
@@ -41,23 +66,32 @@ class MainApplication : Application(), ReactApplication {
     }
     // --------------------------------------------------------------------------
 
-    override val reactNativeHost: ReactNativeHost = ReactNativeHostWrapper(
-        this,
-        object : DefaultReactNativeHost(this) {
-            override fun getPackages(): List<ReactPackage> =
-                PackageList(this).packages.apply {
-                    // CRITICAL: Add our custom ShakePackage for native modules
-                    add(ShakePackage())
-                    add(SafeHerStoragePackage())
-                }
+    override val reactNativeHost: ReactNativeHost by lazy {
+        ReactNativeHostWrapper(
+            this,
+            object : DefaultReactNativeHost(this) {
+                override fun getPackages(): List<ReactPackage> =
+                    PackageList(this).packages.apply {
+                        // CRITICAL: Add our custom ShakePackage for native modules
+                        add(ShakePackage())
+                        add(SafeHerStoragePackage())
+                    }
 
-            override fun getJSMainModuleName(): String = ".expo/.virtual-metro-entry"
+                override fun getJSMainModuleName(): String = ".expo/.virtual-metro-entry"
 
-            override fun getUseDeveloperSupport(): Boolean = BuildConfig.DEBUG
+                override fun getUseDeveloperSupport(): Boolean = BuildConfig.DEBUG
 
-            override val isNewArchEnabled: Boolean = BuildConfig.IS_NEW_ARCHITECTURE_ENABLED
-        }
-    )
+                override val isNewArchEnabled: Boolean = BuildConfig.IS_NEW_ARCHITECTURE_ENABLED
+            }
+        )
+    }
+
+    // On-demand WorkManager init (the startup provider only runs in the main process), with
+    // workers pinned to the main process even when the :detector process enqueues them.
+    override val workManagerConfiguration: WorkConfiguration
+        get() = WorkConfiguration.Builder()
+            .setDefaultProcessName(packageName)
+            .build()
 
     override val reactHost: ReactHost
         get() = ReactNativeHostWrapper.createReactHost(applicationContext, reactNativeHost)
@@ -71,6 +105,21 @@ class MainApplication : Application(), ReactApplication {
             ReleaseLevel.STABLE
         }
         
+        if (DetectorProcess.isDetectorProcess(this)) {
+            // Isolated detection process: never loads the JS runtime or Expo modules.
+            DetectorProcess.recordStart(this)
+            return
+        }
+
+        if (isHeadlessStart()) {
+            // Started for ShakeService / a receiver only: MainActivity will load RN if the UI opens.
+            Log.d(TAG, "Headless process start - deferring React Native initialization")
+        } else {
+            ensureReactNative(this)
+        }
+    }
+
+    private fun initReactNative() {
         loadReactNative(this)
         ApplicationLifecycleDispatcher.onApplicationCreate(this)
         
@@ -80,10 +129,24 @@ class MainApplication : Application(), ReactApplication {
                 reactContext = context
             }
         )
+        UiEventRelay.registerForwarder(this)
+        Log.d(TAG, "React Native initialized")
+    }
+
+    /**
+     * A process launched for an Activity is already foreground when the Application is created;
+     * one launched for a service or broadcast is not.
+     */
+    private fun isHeadlessStart(): Boolean {
+        val info = ActivityManager.RunningAppProcessInfo()
+        ActivityManager.getMyMemoryState(info)
+        return info.importance > ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND
     }
 
     override fun onConfigurationChanged(newConfig: Configuration) {
         super.onConfigurationChanged(newConfig)
-        ApplicationLifecycleDispatcher.onConfigurationChanged(this, newConfig)
+        if (reactNativeLoaded) {
+            ApplicationLifecycleDispatcher.onConfigurationChanged(this, newConfig)
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.anonymous.boltexponativewind;
+
+import android.Manifest;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.telephony.SmsManager;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.util.Log;
+import android.util.SparseArray;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.core.content.ContextCompat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * SmsSender over the platform SmsManager, with one manager per active subscription.
+ * Listing subscriptions needs READ_PHONE_STATE; without it everything goes through the
+ * default SIM as before.
+ */
+public class PlatformSmsSender implements SmsSender {
+    private static final String TAG = "PlatformSmsSender";
+
+    // The Robolectric harness swaps in a fake radio here
+    @VisibleForTesting
+    static volatile Function<Context, SmsSender> factory = PlatformSmsSender::new;
+
+    private final Context context;
+    private final SparseArray<SmsManager> managers = new SparseArray<>();
+
+    public PlatformSmsSender(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /** The send layer every alert path uses. */
+    public static SmsSender create(Context context) {
+        return factory.apply(context);
+    }
+
+    @Override
+    public List<Integer> activeSubscriptions() {
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.READ_PHONE_STATE)
+                == PackageManager.PERMISSION_GRANTED) {
+            try {
+                SubscriptionManager sm = (SubscriptionManager) context.getSystemService(Context.TELEPHONY_SUBSCRIPTION_SERVICE);
+                List<SubscriptionInfo> infos = sm != null ? sm.getActiveSubscriptionInfoList() : null;
+                if (infos != null && !infos.isEmpty()) {
+                    List<Integer> ids = new ArrayList<>(infos.size());
+                    for (SubscriptionInfo info : infos) ids.add(info.getSubscriptionId());
+                    return ids;
+                }
+            } catch (SecurityException e) {
+                Log.w(TAG, "Cannot list subscriptions: " + e.getMessage());
+            }
+        }
+        return Collections.singletonList(DEFAULT_SUBSCRIPTION);
+    }
+
+    @Override
+    public ArrayList<String> divideMessage(String message) {
+        return manager(DEFAULT_SUBSCRIPTION).divideMessage(message);
+    }
+
+    @Override
+    public void send(int subscriptionId, String destination, ArrayList<String> parts,
+                     ArrayList<PendingIntent> sentIntents, ArrayList<PendingIntent> deliveryIntents) {
+        SmsManager manager = manager(subscriptionId);
+        if (parts.size() == 1) {
+            manager.sendTextMessage(destination, null, parts.get(0),
+                    sentIntents != null ? sentIntents.get(0) : null,
+                    deliveryIntents != null ? deliveryIntents.get(0) : null);
+        } else {
+            manager.sendMultipartTextMessage(destination, null, parts, sentIntents, deliveryIntents);
+        }
+    }
+
+    private synchronized SmsManager manager(int subscriptionId) {
+        SmsManager manager = managers.get(subscriptionId);
+        if (manager != null) return manager;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            SmsManager base = context.getSystemService(SmsManager.class);
+            manager = subscriptionId == DEFAULT_SUBSCRIPTION ? base : base.createForSubscriptionId(subscriptionId);
+        } else if (subscriptionId != DEFAULT_SUBSCRIPTION) {
+            manager = SmsManager.getSmsManagerForSubscriptionId(subscriptionId);
+        } else {
+            manager = SmsManager.getDefault();
+        }
+        managers.put(subscriptionId, manager);
+        return manager;
+    }
+}
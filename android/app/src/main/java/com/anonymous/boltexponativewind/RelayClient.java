@@ -0,0 +1,122 @@
+package com.anonymous.boltexponativewind;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HTTP relay channel for alerts: the backend forwards the message to each recipient
+ * (its own SMS gateway / push) and acknowledges per recipient. Used alongside SMS so an
+ * alert still goes out over Wi-Fi when the radio has no service.
+ *
+ * POST {api_base}/api/alerts/relay   {alertId, message, recipients[]} -> {acks: [{phone, status}]}
+ * POST {api_base}/api/alerts/relay/cancel   {alertId, recipients[]}
+ */
+public class RelayClient {
+    private static final String TAG = "RelayClient";
+    private static final String RELAY_PATH = "/api/alerts/relay";
+    private static final String CANCEL_PATH = "/api/alerts/relay/cancel";
+    private static final int TIMEOUT_MS = 10000;
+
+    private final String apiBase;
+    private final String token;
+
+    public RelayClient(String apiBase, String token) {
+        this.apiBase = apiBase;
+        this.token = token == null ? "" : token;
+    }
+
+    /**
+     * Returns the recipients the relay reports delivered. An "accepted" ack only means the relay
+     * queued the message, so it is not returned and the SMS to that recipient still goes out.
+     * Throws if the relay could not be reached.
+     */
+    public List<String> send(long alertId, String message, List<String> recipients) throws IOException {
+        JSONObject response;
+        try {
+            JSONObject body = new JSONObject()
+                    .put("alertId", alertId)
+                    .put("message", message)
+                    .put("recipients", new JSONArray(recipients));
+            response = post(RELAY_PATH, body, "relay-" + alertId);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Bad relay payload", e);
+        }
+
+        List<String> delivered = new ArrayList<>();
+        JSONArray acks = response.optJSONArray("acks");
+        if (acks == null) return delivered;
+        for (int i = 0; i < acks.length(); i++) {
+            JSONObject ack = acks.optJSONObject(i);
+            if (ack == null) continue;
+            if ("delivered".equals(ack.optString("status"))) {
+                delivered.add(ack.optString("phone"));
+            }
+        }
+        return delivered;
+    }
+
+    /** Tells the relay not to deliver to recipients another channel already reached. */
+    public void cancel(long alertId, List<String> recipients) {
+        if (recipients.isEmpty()) return;
+        try {
+            JSONObject body = new JSONObject()
+                    .put("alertId", alertId)
+                    .put("recipients", new JSONArray(recipients));
+            post(CANCEL_PATH, body, "relay-cancel-" + alertId);
+        } catch (Exception e) {
+            Log.w(TAG, "Relay cancel failed: " + e.getMessage());
+        }
+    }
+
+    private JSONObject post(String path, JSONObject body, String idempotencyKey) throws Exception {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        HttpURLConnection conn = (HttpURLConnection) new URL(apiBase + path).openConnection();
+        try {
+            conn.setRequestMethod("POST");
+            conn.setConnectTimeout(TIMEOUT_MS);
+            conn.setReadTimeout(TIMEOUT_MS);
+            conn.setDoOutput(true);
+            conn.setFixedLengthStreamingMode(bytes.length);
+            conn.setRequestProperty("Content-Type", "application/json");
+            conn.setRequestProperty("Idempotency-Key", idempotencyKey);
+            if (!token.isEmpty()) {
+                conn.setRequestProperty("Authorization", "Bearer " + token);
+            }
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(bytes);
+            }
+            int code = conn.getResponseCode();
+            if (code < 200 || code >= 300) {
+                throw new IOException("Relay HTTP " + code);
+            }
+            String text = readAll(conn.getInputStream());
+            return text.isEmpty() ? new JSONObject() : new JSONObject(text);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[1024];
+            int n;
+            while ((n = stream.read(buf)) != -1) out.write(buf, 0, n);
+            return out.toString("UTF-8");
+        }
+    }
+}
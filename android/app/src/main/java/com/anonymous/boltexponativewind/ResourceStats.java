@@ -0,0 +1,131 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What the always-on service costs in the field. Hot counters are LongAdders bumped from the
+ * sensor thread, receivers and the dispatch worker without locking; snapshot() folds what each
+ * process counted since its last snapshot into the RESOURCE_STATS totals and samples heap and
+ * RSS. ShakeService snapshots every SNAPSHOT_INTERVAL_MS while the CPU is awake anyway, so the
+ * counters themselves never cause a wakeup.
+ *
+ * SMS counters are in message parts, the unit the radio reports results in. Send results are
+ * counted by the process that submitted the message, so a result is counted once even though
+ * every process with a status receiver hears it.
+ */
+public final class ResourceStats {
+    public static final long SNAPSHOT_INTERVAL_MS = 15 * 60 * 1000L;
+
+    private static final int SENSOR_EVENTS = 0, DETECTOR_CPU_NS = 1, WAKEUPS = 2, WATCHDOG_RESTARTS = 3,
+            SMS_ATTEMPTS = 4, SMS_SENT = 5, SMS_DELIVERED = 6, SMS_FAILED = 7, FGS_UPTIME_MS = 8,
+            SMS_DELIVERY_FAILED = 9;
+    private static final String[] NAMES = { "sensor_events", "detector_cpu_ns", "wakeups", "watchdog_restarts",
+            "sms_attempts", "sms_sent", "sms_delivered", "sms_failed", "fgs_uptime_ms", "sms_delivery_failed" };
+
+    private static final LongAdder[] counters = new LongAdder[NAMES.length];
+    // Totals already written to the file, so a snapshot adds exactly what was counted since
+    private static final long[] flushed = new long[NAMES.length];
+    private static long foregroundSince = -1;
+
+    static {
+        for (int i = 0; i < counters.length; i++) counters[i] = new LongAdder();
+    }
+
+    private ResourceStats() {
+    }
+
+    /** One accelerometer sample through the detector; cpuNs is -1 where thread CPU time is unsupported. */
+    public static void onSensorEvent(long cpuNs) {
+        counters[SENSOR_EVENTS].increment();
+        if (cpuNs > 0) counters[DETECTOR_CPU_NS].add(cpuNs);
+    }
+
+    /** An alarm woke the app: watchdog check or auto-dispatch countdown. */
+    public static void onWakeup() {
+        counters[WAKEUPS].increment();
+    }
+
+    public static void onWatchdogRestart() {
+        counters[WATCHDOG_RESTARTS].increment();
+    }
+
+    /** A message of {@code parts} parts handed to a SIM, failovers included. */
+    public static void onSmsAttempt(int parts) {
+        counters[SMS_ATTEMPTS].add(parts);
+    }
+
+    /** A SIM refused a message outright, so none of its parts will report. */
+    public static void onSmsRefused(int parts) {
+        counters[SMS_FAILED].add(parts);
+    }
+
+    /** One part's SMS_SENT result. */
+    public static void onSmsSent(boolean ok) {
+        counters[ok ? SMS_SENT : SMS_FAILED].increment();
+    }
+
+    /** One part's delivery report; failures count apart from send failures. */
+    public static void onSmsDelivered(boolean ok) {
+        counters[ok ? SMS_DELIVERED : SMS_DELIVERY_FAILED].increment();
+    }
+
+    public static synchronized void onForegroundStarted() {
+        if (foregroundSince < 0) foregroundSince = SystemClock.elapsedRealtime();
+    }
+
+    public static synchronized void onForegroundStopped() {
+        chargeForeground();
+        foregroundSince = -1;
+    }
+
+    private static void chargeForeground() {
+        if (foregroundSince < 0) return;
+        long now = SystemClock.elapsedRealtime();
+        counters[FGS_UPTIME_MS].add(now - foregroundSince);
+        foregroundSince = now;
+    }
+
+    /** Adds this process's counts since the last snapshot to the totals and samples its memory. */
+    public static synchronized void snapshot(Context context) {
+        chargeForeground();
+        long[] sums = new long[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) sums[i] = counters[i].sum();
+        String prefix = DetectorProcess.isDetectorProcess(context) ? "detector_" : "app_";
+        Runtime runtime = Runtime.getRuntime();
+        long heapKb = (runtime.totalMemory() - runtime.freeMemory()) / 1024;
+        long rssKb = DetectorProcess.readRssKb();
+        long now = System.currentTimeMillis();
+
+        // Totals and peaks from the file as it is under the lock; the other process writes here too
+        SharedStateFile.get(context, SharedStateFile.RESOURCE_STATS).merge(current -> {
+            Map<String, String> update = new HashMap<>();
+            for (int i = 0; i < NAMES.length; i++) {
+                update.put(NAMES[i], String.valueOf(SharedStateFile.parseLong(current.get(NAMES[i]), 0)
+                        + sums[i] - flushed[i]));
+            }
+            update.put(prefix + "heap_kb", String.valueOf(heapKb));
+            update.put(prefix + "heap_peak_kb", String.valueOf(
+                    Math.max(heapKb, SharedStateFile.parseLong(current.get(prefix + "heap_peak_kb"), 0))));
+            if (rssKb > 0) {
+                update.put(prefix + "rss_kb", String.valueOf(rssKb));
+                update.put(prefix + "rss_peak_kb", String.valueOf(
+                        Math.max(rssKb, SharedStateFile.parseLong(current.get(prefix + "rss_peak_kb"), 0))));
+            }
+            update.put(prefix + "sampled_ms", String.valueOf(now));
+            if (current.get("since_ms") == null) update.put("since_ms", String.valueOf(now));
+            return update;
+        });
+        System.arraycopy(sums, 0, flushed, 0, sums.length);
+    }
+
+    /** Snapshots the calling process first; the detector process's counts are as of its last snapshot. */
+    public static Map<String, String> readStats(Context context) {
+        snapshot(context);
+        return SharedStateFile.get(context, SharedStateFile.RESOURCE_STATS).snapshot();
+    }
+}
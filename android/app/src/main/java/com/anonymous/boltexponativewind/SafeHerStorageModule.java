@@ -27,11 +27,12 @@ public class SafeHerStorageModule extends ReactContextBaseJavaModule {
         try {
             SharedPreferences prefs = reactContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
             prefs.edit().putString(key, value).apply();
-
-            // ✅ Verification
-            String verify = prefs.getString(key, "⚠️ NOT FOUND");
-            Log.d("SafeHerStorage", "📥 setValue called: key=" + key + ", value=" + value);
-            Log.d("SafeHerStorage", "📤 Verified stored value in SharedPreferences: " + verify);
+            // Mirror what the detector process needs (also before first unlock) into device-protected storage
+            if (DirectBoot.isMirroredKey(key)) {
+                SharedStateFile.get(reactContext, SharedStateFile.CONFIG).putString(key, value);
+            }
+            // Key and length only: values include contact lists and the auth token
+            SupportLog.record(SupportLog.STORAGE_SET, SupportLog.keyCode(key), value != null ? value.length() : -1);
         } catch (Exception e) {
             Log.e("SafeHerStorage", "❌ Failed to store value", e);
         }
@@ -4,30 +4,74 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 /**
- * Receives restart broadcasts and restarts the service
+ * Receives restart broadcasts and restarts the service.
+ * Watchdog alarms only restart it when its heartbeat is stale.
  */
 public class ServiceRestartReceiver extends BroadcastReceiver {
     private static final String TAG = "ServiceRestartReceiver";
+    // After a wakeup from suspend the sensor needs a moment to deliver its first sample
+    private static final long HEARTBEAT_GRACE_MS = 3000;
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        Log.d(TAG, "Restart broadcast received - restarting ShakeService");
-        
+        ResourceStats.onWakeup();
+        if (intent == null || !intent.getBooleanExtra(ServiceWatchdog.EXTRA_WATCHDOG_CHECK, false)) {
+            Log.d(TAG, "Restart broadcast received - restarting ShakeService");
+            restartService(context);
+            ServiceWatchdog.scheduleServiceCheck(context);
+            return;
+        }
+
+        ServiceStatusPage statusPage = ServiceStatusPage.get(context);
+        ServiceStatusPage.Snapshot status = statusPage != null ? statusPage.read() : null;
+        if (ServiceWatchdog.isHeartbeatFresh(status)) {
+            Log.d(TAG, "Watchdog check: ShakeService healthy");
+            ServiceWatchdog.onCheckCompleted(context, false);
+            return;
+        }
+        if (status == null || !status.isArmed()) {
+            Log.w(TAG, "Watchdog check: ShakeService not running - restarting");
+            restartService(context);
+            ServiceWatchdog.onCheckCompleted(context, true);
+            return;
+        }
+
+        // Alive but no recent sample: the CPU was probably suspended. Give it a moment.
+        final long samplesBefore = status.sampleCount;
+        final PendingResult pendingResult = goAsync();
+        new Handler(Looper.getMainLooper()).postDelayed(() -> {
+            try {
+                ServiceStatusPage.Snapshot after = statusPage.read();
+                boolean progressed = after != null && after.isArmed() && after.sampleCount > samplesBefore;
+                if (!progressed) {
+                    Log.w(TAG, "Watchdog check: heartbeat stale - restarting ShakeService");
+                    restartService(context);
+                } else {
+                    Log.d(TAG, "Watchdog check: heartbeat resumed after wakeup");
+                }
+                ServiceWatchdog.onCheckCompleted(context, !progressed);
+            } finally {
+                pendingResult.finish();
+            }
+        }, HEARTBEAT_GRACE_MS);
+    }
+
+    private void restartService(Context context) {
+        ResourceStats.onWatchdogRestart();
         Intent serviceIntent = new Intent(context, ShakeService.class);
         serviceIntent.putExtra("source", "restart_receiver");
-        
+
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             context.startForegroundService(serviceIntent);
         } else {
             context.startService(serviceIntent);
         }
-        
-        // Immediately schedule the next check (Watchdog handles permission internally)
-        ServiceWatchdog.scheduleServiceCheck(context);
-        
+
         Log.d(TAG, "ShakeService restart requested");
     }
-}
\ No newline at end of file
+}
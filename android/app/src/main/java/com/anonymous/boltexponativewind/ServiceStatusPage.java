@@ -0,0 +1,256 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Fixed-layout, memory-mapped status page describing ShakeService. Any process or receiver
+ * can read it without binder calls or SharedPreferences parsing.
+ *
+ * Every writer (ShakeService, EmergencyDispatchService, EmergencyActionReceiver) is declared
+ * in ${detectorProcess}, so writes come from one process and are serialized there by this
+ * object's lock. Each update re-reads the sequence number from the page, bumps it to odd,
+ * writes the fields, then bumps it back to even. Readers copy the fields and retry if the
+ * sequence was odd or changed underneath them (seqlock). The page is shared memory, so the
+ * sequence accesses are fenced: plain buffer accesses may otherwise be reordered, by ART or
+ * the CPU, and a reader on ARM could accept a torn record.
+ *
+ * Heartbeats are throttled to HEARTBEAT_WRITE_MS (well inside the watchdog's staleness limit)
+ * so the always-on detector doesn't keep the page dirty at the sensor rate.
+ */
+public class ServiceStatusPage {
+    private static final String TAG = "ServiceStatusPage";
+    private static final String FILE_NAME = "service_status.page";
+
+    private static final int MAGIC = 0x53485350; // "SHSP"
+    private static final int VERSION = 1;
+    private static final int PAGE_SIZE = 128;
+    private static final int MAX_READ_ATTEMPTS = 8;
+    private static final long HEARTBEAT_WRITE_MS = 2000;
+
+    // Field offsets
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_VERSION = 4;
+    private static final int OFF_SEQ = 8;
+    private static final int OFF_HEARTBEAT_ELAPSED = 16;
+    private static final int OFF_HEARTBEAT_WALL = 24;
+    private static final int OFF_SAMPLE_COUNT = 32;
+    private static final int OFF_DETECTOR_STATE = 40;
+    private static final int OFF_SHAKE_COUNT = 44;
+    private static final int OFF_PID = 48;
+    private static final int OFF_DISPATCH_STATE = 52;
+    private static final int OFF_LAST_TRIGGER_ID = 56;
+    private static final int OFF_LAST_DISPATCH_ID = 64;
+    private static final int OFF_ARMED_ELAPSED = 72;
+
+    public static final int STATE_STOPPED = 0;
+    public static final int STATE_ARMED = 1;
+    public static final int STATE_AWAITING_CONFIRMATION = 2;
+
+    public static final int DISPATCH_NONE = 0;
+    public static final int DISPATCH_STARTED = 1;
+    public static final int DISPATCH_SENT = 2;
+    public static final int DISPATCH_FAILED = 3;
+    public static final int DISPATCH_CANCELLED = 4;
+
+    private static ServiceStatusPage instance;
+    // Touched by the fences below API 33, which has no VarHandle
+    private static volatile int fence;
+
+    private final MappedByteBuffer page;
+    private long sampleCount;
+    private long lastHeartbeatWrite;
+    private int lastShakeCount = -1;
+
+    private ServiceStatusPage(MappedByteBuffer page) {
+        this.page = page;
+        this.sampleCount = page.getLong(OFF_SAMPLE_COUNT);
+    }
+
+    public static synchronized ServiceStatusPage get(Context context) {
+        if (instance == null) {
+            File file = new File(SharedStateFile.sharedDir(context), FILE_NAME);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                if (raf.length() < PAGE_SIZE) {
+                    raf.setLength(PAGE_SIZE);
+                }
+                // The mapping stays valid after the channel is closed
+                MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, PAGE_SIZE);
+                buffer.order(ByteOrder.nativeOrder());
+                instance = new ServiceStatusPage(buffer);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to map status page", e);
+                return null;
+            }
+        }
+        return instance;
+    }
+
+    // ---------------------------------------------------------------- writer side
+
+    public synchronized void markArmed() {
+        long now = SystemClock.elapsedRealtime();
+        beginWrite();
+        page.putInt(OFF_MAGIC, MAGIC);
+        page.putInt(OFF_VERSION, VERSION);
+        page.putInt(OFF_PID, Process.myPid());
+        page.putInt(OFF_DETECTOR_STATE, STATE_ARMED);
+        page.putLong(OFF_ARMED_ELAPSED, now);
+        page.putLong(OFF_HEARTBEAT_ELAPSED, now);
+        page.putLong(OFF_HEARTBEAT_WALL, System.currentTimeMillis());
+        endWrite();
+    }
+
+    public synchronized void markStopped() {
+        beginWrite();
+        page.putInt(OFF_DETECTOR_STATE, STATE_STOPPED);
+        endWrite();
+    }
+
+    /**
+     * Called for every accelerometer sample; no allocation. The page is only written when the
+     * shake count changed or the last heartbeat is HEARTBEAT_WRITE_MS old.
+     */
+    public synchronized void onSample(long nowWallMs, int shakeCount) {
+        sampleCount++;
+        long now = SystemClock.elapsedRealtime();
+        if (shakeCount == lastShakeCount && now - lastHeartbeatWrite < HEARTBEAT_WRITE_MS) return;
+        lastShakeCount = shakeCount;
+        lastHeartbeatWrite = now;
+        beginWrite();
+        page.putLong(OFF_HEARTBEAT_ELAPSED, now);
+        page.putLong(OFF_HEARTBEAT_WALL, nowWallMs);
+        page.putLong(OFF_SAMPLE_COUNT, sampleCount);
+        page.putInt(OFF_SHAKE_COUNT, shakeCount);
+        endWrite();
+    }
+
+    public synchronized void recordTrigger(long triggerId) {
+        beginWrite();
+        page.putLong(OFF_LAST_TRIGGER_ID, triggerId);
+        page.putInt(OFF_DETECTOR_STATE, STATE_AWAITING_CONFIRMATION);
+        endWrite();
+    }
+
+    /** The confirmation prompt was answered (or dismissed); detection is armed again. */
+    public synchronized void clearTrigger() {
+        beginWrite();
+        if (page.getInt(OFF_DETECTOR_STATE) == STATE_AWAITING_CONFIRMATION) {
+            page.putInt(OFF_DETECTOR_STATE, STATE_ARMED);
+        }
+        endWrite();
+    }
+
+    public synchronized void recordDispatch(long dispatchId, int dispatchState) {
+        beginWrite();
+        page.putLong(OFF_LAST_DISPATCH_ID, dispatchId);
+        page.putInt(OFF_DISPATCH_STATE, dispatchState);
+        endWrite();
+    }
+
+    /** Leaves the sequence odd; an odd value left by a writer that died mid-update stays odd. */
+    private void beginWrite() {
+        long seq = page.getLong(OFF_SEQ);
+        page.putLong(OFF_SEQ, (seq & 1L) == 0 ? seq + 1 : seq + 2);
+        releaseFence(); // the odd sequence is visible before any field
+    }
+
+    private void endWrite() {
+        releaseFence(); // every field is visible before the even sequence
+        page.putLong(OFF_SEQ, page.getLong(OFF_SEQ) + 1);
+    }
+
+    private static void releaseFence() {
+        if (Build.VERSION.SDK_INT >= 33) {
+            VarHandle.releaseFence();
+        } else {
+            fullFence();
+        }
+    }
+
+    private static void acquireFence() {
+        if (Build.VERSION.SDK_INT >= 33) {
+            VarHandle.acquireFence();
+        } else {
+            fullFence();
+        }
+    }
+
+    /** Store then load: nothing before the store moves after the load, or the reverse. */
+    @SuppressWarnings("unused")
+    private static void fullFence() {
+        fence = 1;
+        int ignored = fence;
+    }
+
+    // ---------------------------------------------------------------- reader side
+
+    /** Lock-free consistent copy of the page, or null if the writer kept racing us. */
+    public Snapshot read() {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long before = page.getLong(OFF_SEQ);
+            acquireFence(); // no field is read ahead of the sequence
+            if ((before & 1L) != 0) {
+                Thread.yield();
+                continue;
+            }
+            Snapshot s = new Snapshot();
+            s.valid = page.getInt(OFF_MAGIC) == MAGIC && page.getInt(OFF_VERSION) == VERSION;
+            s.heartbeatElapsedMs = page.getLong(OFF_HEARTBEAT_ELAPSED);
+            s.heartbeatWallMs = page.getLong(OFF_HEARTBEAT_WALL);
+            s.sampleCount = page.getLong(OFF_SAMPLE_COUNT);
+            s.detectorState = page.getInt(OFF_DETECTOR_STATE);
+            s.shakeCount = page.getInt(OFF_SHAKE_COUNT);
+            s.pid = page.getInt(OFF_PID);
+            s.dispatchState = page.getInt(OFF_DISPATCH_STATE);
+            s.lastTriggerId = page.getLong(OFF_LAST_TRIGGER_ID);
+            s.lastDispatchId = page.getLong(OFF_LAST_DISPATCH_ID);
+            s.armedElapsedMs = page.getLong(OFF_ARMED_ELAPSED);
+            acquireFence(); // every field is read before the sequence is checked again
+            if (page.getLong(OFF_SEQ) == before) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    public static class Snapshot {
+        public boolean valid;
+        public long heartbeatElapsedMs;
+        public long heartbeatWallMs;
+        public long sampleCount;
+        public int detectorState;
+        public int shakeCount;
+        public int pid;
+        public int dispatchState;
+        public long lastTriggerId;
+        public long lastDispatchId;
+        public long armedElapsedMs;
+
+        public boolean isArmed() {
+            return valid && detectorState != STATE_STOPPED && isWriterAlive();
+        }
+
+        /** Heartbeats are elapsedRealtime based; a value from before the last reboot is in the future. */
+        public long heartbeatAgeMs() {
+            long now = SystemClock.elapsedRealtime();
+            if (!valid || heartbeatElapsedMs > now) return Long.MAX_VALUE;
+            return now - heartbeatElapsedMs;
+        }
+
+        /** Same-uid processes can see each other's /proc entries. */
+        public boolean isWriterAlive() {
+            return pid > 0 && new File("/proc/" + pid).exists();
+        }
+    }
+}
@@ -8,15 +8,36 @@ import android.os.Build;
 import android.os.SystemClock;
 import android.util.Log;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 /**
- * Periodically checks if ShakeService is running and restarts it if needed.
+ * Periodically checks ShakeService's heartbeat in the ServiceStatusPage and restarts it only
+ * when it is stale. The check interval backs off while the service stays healthy and
+ * tightens again after a restart.
  * This file contains the CRITICAL FIX to check Exact Alarm permission before scheduling.
  */
 public class ServiceWatchdog {
     private static final String TAG = "ServiceWatchdog";
+    public static final String EXTRA_WATCHDOG_CHECK = "watchdog_check";
+
     private static final long CHECK_INTERVAL = 5 * 60 * 1000; // 5 minutes
+    private static final long MAX_CHECK_INTERVAL = 30 * 60 * 1000; // 30 minutes
+    private static final long FAILURE_CHECK_INTERVAL = 2 * 60 * 1000; // 2 minutes
+    // SENSOR_DELAY_UI delivers a sample every ~60 ms while the CPU is awake
+    public static final long HEARTBEAT_STALE_MS = 10 * 1000;
+
+    private static final String KEY_INTERVAL = "interval_ms";
 
     public static void scheduleServiceCheck(Context context) {
+        long interval = stats(context).getLong(KEY_INTERVAL, CHECK_INTERVAL);
+        scheduleServiceCheck(context, interval);
+    }
+
+    private static void scheduleServiceCheck(Context context, long interval) {
         // CRITICAL FIX: Check if the app has permission to set exact alarms (API 31+)
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
             AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
@@ -25,52 +46,88 @@ public class ServiceWatchdog {
                 return; // Exit silently if permission is missing (NO CRASH)
             }
         }
-        
+
         AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
         if (alarmManager == null) {
             Log.e(TAG, "AlarmManager not available");
             return;
         }
 
-        Intent intent = new Intent(context, ServiceRestartReceiver.class);
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-            context,
-            1001,
-            intent,
-            PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
-        );
+        PendingIntent pendingIntent = checkPendingIntent(context);
 
-        // Schedule repeating exact alarm to survive Doze mode
+        // Exact alarm to survive Doze mode; each check schedules the next one
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             alarmManager.setExactAndAllowWhileIdle(
                 AlarmManager.ELAPSED_REALTIME_WAKEUP,
-                SystemClock.elapsedRealtime() + CHECK_INTERVAL,
+                SystemClock.elapsedRealtime() + interval,
                 pendingIntent
             );
         } else {
-            alarmManager.setRepeating(
+            alarmManager.setExact(
                 AlarmManager.ELAPSED_REALTIME_WAKEUP,
-                SystemClock.elapsedRealtime() + CHECK_INTERVAL,
-                CHECK_INTERVAL,
+                SystemClock.elapsedRealtime() + interval,
                 pendingIntent
             );
         }
-        Log.d(TAG, "Service watchdog scheduled - will check every 5 minutes");
+        Log.d(TAG, "Service watchdog scheduled - next check in " + (interval / 1000) + " s");
     }
 
     public static void cancelServiceCheck(Context context) {
         AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
         if (alarmManager == null) return;
 
+        alarmManager.cancel(checkPendingIntent(context));
+        Log.d(TAG, "Service watchdog cancelled");
+    }
+
+    /** Quick check: armed, owning process alive and a sample within HEARTBEAT_STALE_MS. */
+    public static boolean isHeartbeatFresh(ServiceStatusPage.Snapshot status) {
+        return status != null && status.isArmed() && status.heartbeatAgeMs() < HEARTBEAT_STALE_MS;
+    }
+
+    /**
+     * Records the outcome of an alarm-driven check and schedules the next one: doubling the
+     * interval while healthy, dropping to FAILURE_CHECK_INTERVAL after a restart.
+     */
+    public static void onCheckCompleted(Context context, boolean restarted) {
+        SharedStateFile stats = stats(context);
+        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+        boolean sameDay = today.equals(stats.getString("day", null));
+        long current = stats.getLong(KEY_INTERVAL, CHECK_INTERVAL);
+        long next = restarted ? FAILURE_CHECK_INTERVAL
+                : Math.min(Math.max(current, CHECK_INTERVAL) * 2, MAX_CHECK_INTERVAL);
+
+        Map<String, String> update = new HashMap<>();
+        update.put("day", today);
+        update.put("wakeups_today", String.valueOf((sameDay ? stats.getLong("wakeups_today", 0) : 0) + 1));
+        update.put("restarts_today", String.valueOf((sameDay ? stats.getLong("restarts_today", 0) : 0)
+                + (restarted ? 1 : 0)));
+        update.put("wakeups_total", String.valueOf(stats.getLong("wakeups_total", 0) + 1));
+        update.put("restarts_total", String.valueOf(stats.getLong("restarts_total", 0) + (restarted ? 1 : 0)));
+        update.put("last_check_ms", String.valueOf(System.currentTimeMillis()));
+        update.put("last_check_restarted", String.valueOf(restarted));
+        update.put(KEY_INTERVAL, String.valueOf(next));
+        stats.putAll(update);
+
+        scheduleServiceCheck(context, next);
+    }
+
+    public static Map<String, String> readStats(Context context) {
+        return stats(context).snapshot();
+    }
+
+    private static SharedStateFile stats(Context context) {
+        return SharedStateFile.get(context, SharedStateFile.WATCHDOG_STATS);
+    }
+
+    private static PendingIntent checkPendingIntent(Context context) {
         Intent intent = new Intent(context, ServiceRestartReceiver.class);
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
+        intent.putExtra(EXTRA_WATCHDOG_CHECK, true);
+        return PendingIntent.getBroadcast(
             context,
             1001,
             intent,
             PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
         );
-
-        alarmManager.cancel(pendingIntent);
-        Log.d(TAG, "Service watchdog cancelled");
     }
-}
\ No newline at end of file
+}
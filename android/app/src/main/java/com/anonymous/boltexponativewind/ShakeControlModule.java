@@ -19,6 +19,8 @@ import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.Arguments;
 
+import java.util.Map;
+
 public class ShakeControlModule extends ReactContextBaseJavaModule {
 
     private static final String TAG = "ShakeControlModule";
@@ -68,6 +70,8 @@ public class ShakeControlModule extends ReactContextBaseJavaModule {
         Intent serviceIntent = new Intent(context, ShakeService.class);
         
         try {
+            // Stopped on purpose: don't let the watchdog bring it back
+            ServiceWatchdog.cancelServiceCheck(context);
             boolean stopped = context.stopService(serviceIntent);
             Log.d(TAG, "Stopped ShakeService: " + stopped);
             promise.resolve("Service stopped");
@@ -77,6 +81,177 @@ public class ShakeControlModule extends ReactContextBaseJavaModule {
         }
     }
 
+    @ReactMethod
+    public void getServiceStatus(Promise promise) {
+        ServiceStatusPage statusPage = ServiceStatusPage.get(getReactApplicationContext());
+        ServiceStatusPage.Snapshot status = statusPage != null ? statusPage.read() : null;
+        if (status == null) {
+            promise.reject("ERROR", "Service status page unavailable");
+            return;
+        }
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("armed", status.isArmed());
+        result.putInt("detectorState", status.detectorState);
+        result.putDouble("heartbeatWallMs", status.heartbeatWallMs);
+        result.putDouble("heartbeatAgeMs", status.heartbeatAgeMs());
+        result.putDouble("sampleCount", status.sampleCount);
+        result.putInt("shakeCount", status.shakeCount);
+        result.putDouble("lastTriggerId", status.lastTriggerId);
+        result.putDouble("lastDispatchId", status.lastDispatchId);
+        result.putInt("dispatchState", status.dispatchState);
+        promise.resolve(result);
+    }
+
+    /** Always-on cost counters: sensor events, detector CPU, wakeups, restarts, uptime, memory, SMS. */
+    @ReactMethod
+    public void getStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, String> entry : ResourceStats.readStats(getReactApplicationContext()).entrySet()) {
+                result.putString(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read resource stats: " + e.getMessage());
+            promise.reject("ERROR", "Failed to read resource stats: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getDetectorProcessStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, String> entry : DetectorProcess.readStats(getReactApplicationContext()).entrySet()) {
+                result.putString(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read detector process stats: " + e.getMessage());
+            promise.reject("ERROR", "Failed to read detector process stats: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getWatchdogStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, String> entry : ServiceWatchdog.readStats(getReactApplicationContext()).entrySet()) {
+                result.putString(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read watchdog stats: " + e.getMessage());
+            promise.reject("ERROR", "Failed to read watchdog stats: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getBootStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, String> entry : DirectBoot.readStats(getReactApplicationContext()).entrySet()) {
+                result.putString(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read boot stats: " + e.getMessage());
+            promise.reject("ERROR", "Failed to read boot stats: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getDispatchStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, String> entry : HedgedDispatch.readStats(getReactApplicationContext()).entrySet()) {
+                result.putString(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read dispatch stats: " + e.getMessage());
+            promise.reject("ERROR", "Failed to read dispatch stats: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getSimStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, String> entry : SimRouter.readStats(getReactApplicationContext()).entrySet()) {
+                result.putString(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read SIM stats: " + e.getMessage());
+            promise.reject("ERROR", "Failed to read SIM stats: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getAutoDispatchStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, String> entry : AutoDispatchCountdown.readStats(getReactApplicationContext()).entrySet()) {
+                result.putString(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read auto-dispatch stats: " + e.getMessage());
+            promise.reject("ERROR", "Failed to read auto-dispatch stats: " + e.getMessage());
+        }
+    }
+
+    /** Lane queue depths, waits and outcomes of the app process's TaskRuntime. */
+    @ReactMethod
+    public void getTaskStats(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, String> entry : AppTasks.get().stats().entrySet()) {
+                result.putString(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read task stats: " + e.getMessage());
+            promise.reject("ERROR", "Failed to read task stats: " + e.getMessage());
+        }
+    }
+
+    /** Merges the alert traces of all processes into one file; resolves its path. */
+    @ReactMethod
+    public void exportAlertTrace(Promise promise) {
+        try {
+            promise.resolve(AlertTrace.export(getReactApplicationContext()).getAbsolutePath());
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to export alert trace: " + e.getMessage());
+            promise.reject("ERROR", "Failed to export alert trace: " + e.getMessage());
+        }
+    }
+
+    /** Decoded support log of every process, as text. */
+    @ReactMethod
+    public void exportSupportLog(Promise promise) {
+        try {
+            promise.resolve(SupportLog.export(getReactApplicationContext()));
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to export support log: " + e.getMessage());
+            promise.reject("ERROR", "Failed to export support log: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getAlertSession(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (Map.Entry<String, String> entry : AlertSessionManager.readState(getReactApplicationContext()).entrySet()) {
+                result.putString(entry.getKey(), entry.getValue());
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read alert session: " + e.getMessage());
+            promise.reject("ERROR", "Failed to read alert session: " + e.getMessage());
+        }
+    }
+
     @ReactMethod
     public void acknowledgeEmergencyEvent() {
         Log.d(TAG, "JS has acknowledged the emergency event. Stopping retries.");
@@ -87,6 +262,30 @@ public class ShakeControlModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /** Without exact alarms the countdown's backstop alarm may be deferred by Doze; Settings says so. */
+    @ReactMethod
+    public void checkExactAlarms(Promise promise) {
+        promise.resolve(AutoDispatchCountdown.exactAlarmsAllowed(getReactApplicationContext()));
+    }
+
+    @ReactMethod
+    public void requestExactAlarms(Promise promise) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            try {
+                Intent intent = new Intent(Settings.ACTION_REQUEST_SCHEDULE_EXACT_ALARM);
+                intent.setData(Uri.parse("package:" + getReactApplicationContext().getPackageName()));
+                intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+                getReactApplicationContext().startActivity(intent);
+                promise.resolve(true);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to open exact alarm settings: " + e.getMessage());
+                promise.reject("ERROR", "Failed to open exact alarm settings: " + e.getMessage());
+            }
+        } else {
+            promise.resolve(true); // Exact alarms need no permission before API 31
+        }
+    }
+
     @ReactMethod
     public void checkBatteryOptimization(Promise promise) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
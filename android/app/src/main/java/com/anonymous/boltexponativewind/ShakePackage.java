@@ -20,6 +20,7 @@ public class ShakePackage implements ReactPackage {
         List<NativeModule> modules = new ArrayList<>();
         modules.add(new AutoSmsModule(reactContext));
         modules.add(new ShakeControlModule(reactContext));
+        modules.add(new AlertHistoryModule(reactContext));
         return modules;
     }
 }
\ No newline at end of file
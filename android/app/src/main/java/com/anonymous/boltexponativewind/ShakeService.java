@@ -7,47 +7,64 @@ import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
-import android.hardware.Sensor;
-import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
-import android.hardware.SensorManager;
+import android.content.pm.PackageManager;
+import android.location.LocationManager;
 import android.os.Build;
+import android.os.FileObserver;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
 import android.app.AlarmManager;
 
-public class ShakeService extends Service implements SensorEventListener {
+import com.anonymous.boltexponativewind.core.DetectionConfig;
+import com.anonymous.boltexponativewind.core.ShakeDetector;
+import com.anonymous.boltexponativewind.core.TaskRuntime;
+
+/** Foreground host for shake detection: feeds the accelerometer into the core ShakeDetector. */
+public class ShakeService extends Service implements ShakeDetector.Listener {
     private static final String TAG = "ShakeService";
     private static final String CHANNEL_ID = "safeher_shake_detection";
     private static final int NOTIFICATION_ID = 1001;
     private static final int ALERT_NOTIFICATION_ID = 1002;
 
-    // Shake detection parameters
-    private static final float SHAKE_THRESHOLD_GRAVITY = 2.7F;
-    private static final int SHAKE_SLOP_TIME_MS = 500;
-    private static final int SHAKE_COUNT_RESET_TIME_MS = 3000;
-    private static final int SHAKE_COUNT_THRESHOLD = 3;
+    // Keep shaking from re-posting (and re-alerting) the confirmation that is already showing
+    private static final long CONFIRMATION_DEBOUNCE_MS = 30000;
+    private static final long BACKGROUND_TIMEOUT_MS = 60 * 1000L;
 
-    private SensorManager sensorManager;
-    private Sensor accelerometer;
-    private long lastShakeTime;
-    private int shakeCount;
+    private AccelerometerSource accelerometer;
+    private final ShakeDetector shakeDetector = new ShakeDetector(this);
+    private long lastConfirmationAt;
 
     private boolean isServiceRunning = false;
+    private ServiceStatusPage statusPage;
+    private FileObserver configObserver;
+    // Main looper: runs only while the CPU is awake for other reasons, never wakes it
+    private final Handler statsHandler = new Handler(Looper.getMainLooper());
+    private final Runnable statsSnapshot = new Runnable() {
+        @Override
+        public void run() {
+            // File I/O: off the sensor thread, and never ahead of an alert
+            AppTasks.get().submit(TaskRuntime.Lane.HOUSEKEEPING, "stats_snapshot", BACKGROUND_TIMEOUT_MS,
+                    task -> ResourceStats.snapshot(ShakeService.this));
+            statsHandler.postDelayed(this, ResourceStats.SNAPSHOT_INTERVAL_MS);
+        }
+    };
 
     @Override
     public void onCreate() {
         super.onCreate();
         Log.d(TAG, "ShakeService onCreate");
-        sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
-        if (sensorManager != null) {
-            accelerometer = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
-            if (accelerometer == null) {
-                Log.e(TAG, "Accelerometer sensor not available!");
-            }
+        accelerometer = new AccelerometerSource(this);
+        if (!accelerometer.isAvailable()) {
+            Log.e(TAG, "Accelerometer sensor not available!");
         }
         createNotificationChannel();
+        statusPage = ServiceStatusPage.get(this);
     }
 
     @Override
@@ -55,13 +72,35 @@ public class ShakeService extends Service implements SensorEventListener {
         Log.d(TAG, "ShakeService onStartCommand");
         if (!isServiceRunning) {
             startForeground(NOTIFICATION_ID, createPersistentNotification());
-            if (accelerometer != null) {
-                sensorManager.registerListener(this, accelerometer, SensorManager.SENSOR_DELAY_UI);
+            ResourceStats.onForegroundStarted();
+            applyDetectionConfig(DetectionSettings.load(this));
+            configObserver = DetectionSettings.watch(this, this::applyDetectionConfig);
+            if (accelerometer.start(shakeDetector)) {
                 Log.d(TAG, "Accelerometer listener registered.");
             }
             isServiceRunning = true;
+            if (statusPage != null) statusPage.markArmed();
+            startBreadcrumbs();
+            DirectBoot.recordArmed(this);
             ServiceWatchdog.scheduleServiceCheck(this);
+            statsHandler.postDelayed(statsSnapshot, ResourceStats.SNAPSHOT_INTERVAL_MS);
+
+            long armedAfterMs = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+            SupportLog.record(SupportLog.ARMED, armedAfterMs, MainApplication.isReactNativeLoaded() ? 1 : 0);
+            Log.d(TAG, "Detection armed " + armedAfterMs + " ms after process start (React Native loaded: "
+                    + MainApplication.isReactNativeLoaded() + ")");
+            if (DetectorProcess.isDetectorProcess(this)) {
+                DetectorProcess.recordResidentMemory(this);
+            }
         }
+        // A BOOT_COMPLETED start after unlock lands here too: refresh the direct-boot mirror
+        // and push anything recorded while locked
+        AppTasks.get().submit(TaskRuntime.Lane.SYNC, "mirror_config", BACKGROUND_TIMEOUT_MS, task -> {
+            DirectBoot.mirrorMinimumConfig(this);
+            AlertSyncWorker.schedulePeriodic(this);
+            EvidenceUploadWorker.enqueueIfPending(this);
+            AlertMessages.composer(this); // compile the alert template now, not on the first alert
+        });
         return START_STICKY;
     }
 
@@ -69,13 +108,48 @@ public class ShakeService extends Service implements SensorEventListener {
     public void onDestroy() {
         super.onDestroy();
         Log.w(TAG, "ShakeService onDestroy - Service is being destroyed.");
-        if (sensorManager != null) {
-            sensorManager.unregisterListener(this);
+        if (accelerometer != null) {
+            accelerometer.stop();
+        }
+        if (configObserver != null) {
+            configObserver.stopWatching();
+            configObserver = null;
         }
+        LocationManager lm = (LocationManager) getSystemService(Context.LOCATION_SERVICE);
+        if (lm != null) lm.removeUpdates(BreadcrumbTrail.get());
         isServiceRunning = false;
+        if (statusPage != null) statusPage.markStopped();
+        statsHandler.removeCallbacks(statsSnapshot);
+        ResourceStats.onForegroundStopped();
+        ResourceStats.snapshot(this);
         // The ServiceRestartReceiver will be triggered by the system or watchdog
     }
     
+    /** Takes effect from the next sample; the sensor is only re-registered when the rate changes. */
+    private void applyDetectionConfig(DetectionConfig config) {
+        if (config.equals(shakeDetector.config())) return;
+        shakeDetector.setConfig(config);
+        accelerometer.setSamplingPeriod(config.samplingPeriodUs);
+        SupportLog.record(SupportLog.CONFIG_APPLIED, Math.round(config.thresholdG * 100), config.count);
+    }
+
+    /** Passive fixes only: the trail rides on location requests other apps already made. */
+    private void startBreadcrumbs() {
+        if (ContextCompat.checkSelfPermission(this, android.Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED) {
+            return;
+        }
+        try {
+            LocationManager lm = (LocationManager) getSystemService(Context.LOCATION_SERVICE);
+            if (lm == null) return;
+            lm.requestLocationUpdates(LocationManager.PASSIVE_PROVIDER, BreadcrumbTrail.PASSIVE_MIN_TIME_MS,
+                    BreadcrumbTrail.PASSIVE_MIN_DISTANCE_M, BreadcrumbTrail.get(), getMainLooper());
+            Log.d(TAG, "Passive breadcrumb trail registered.");
+        } catch (Exception e) {
+            Log.w(TAG, "Breadcrumb trail unavailable: " + e.getMessage());
+        }
+    }
+
     @Override
     public void onTaskRemoved(Intent rootIntent) {
         Log.w(TAG, "onTaskRemoved called - User swiped app away. Scheduling restart.");
@@ -89,47 +163,58 @@ public class ShakeService extends Service implements SensorEventListener {
     }
 
     @Override
-    public void onSensorChanged(SensorEvent event) {
-        if (event.sensor.getType() != Sensor.TYPE_ACCELEROMETER) return;
-
-        long now = System.currentTimeMillis();
-        if ((now - lastShakeTime) > SHAKE_SLOP_TIME_MS) {
-            if ((now - lastShakeTime) > SHAKE_COUNT_RESET_TIME_MS) {
-                shakeCount = 0;
-            }
-
-            float x = event.values[0];
-            float y = event.values[1];
-            float z = event.values[2];
-
-            double gForce = Math.sqrt(x * x + y * y + z * z);
+    public void onSample(long timestampMs, int shakeCount) {
+        if (statusPage != null) statusPage.onSample(timestampMs, shakeCount);
+    }
 
-            if (gForce > SHAKE_THRESHOLD_GRAVITY * SensorManager.GRAVITY_EARTH) {
-                lastShakeTime = now;
-                shakeCount++;
-                Log.d(TAG, "Shake detected! Count: " + shakeCount + "/" + SHAKE_COUNT_THRESHOLD);
-                if (shakeCount >= SHAKE_COUNT_THRESHOLD) {
-                    onTripleShakeDetected();
-                    shakeCount = 0; // Reset after triggering
-                }
-            }
-        }
+    @Override
+    public void onShake(int shakeCount) {
+        SupportLog.record(SupportLog.SHAKE, shakeCount, shakeDetector.config().count);
     }
 
     @Override
-    public void onAccuracyChanged(Sensor sensor, int accuracy) {
-        // Not used
+    public void onTripleShake() {
+        AlertTrace.begin(AlertTrace.TRIGGER);
+        try {
+            handleTripleShake();
+        } finally {
+            AlertTrace.end();
+        }
     }
 
-    private void onTripleShakeDetected() {
+    private void handleTripleShake() {
+        // During an emergency a shake is an escalation of it, not a new alert
+        if (AlertSessionManager.joinIfOpen(this, "shake") != null) {
+            Log.d(TAG, "🚨 TRIPLE SHAKE during active alert; requesting a location update.");
+            LiveLocationSession.requestActiveUpdate();
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        // Answering the confirmation (YES or NO) clears the awaiting state and re-arms prompting
+        // An unreadable page (a writer kept it busy) counts as not awaiting: prompting again is harmless
+        ServiceStatusPage.Snapshot status = statusPage != null ? statusPage.read() : null;
+        boolean awaiting = status != null && status.detectorState == ServiceStatusPage.STATE_AWAITING_CONFIRMATION;
+        if (awaiting && now - lastConfirmationAt < CONFIRMATION_DEBOUNCE_MS) {
+            Log.d(TAG, "🚨 TRIPLE SHAKE again; confirmation already showing.");
+            return;
+        }
+        lastConfirmationAt = now;
         Log.d(TAG, "🚨 TRIPLE SHAKE DETECTED! Showing confirmation notification.");
-        if (MainApplication.hasReactContext()) {
-            MainApplication.sendEvent("onShakeWarning", null);
+        if (statusPage != null) statusPage.recordTrigger(System.currentTimeMillis());
+        UiEventRelay.emit(this, "onShakeWarning");
+        // Countdown mode: send on its own unless NO is tapped, and get ready meanwhile
+        int countdownSeconds = AutoDispatchCountdown.configuredSeconds(this);
+        SupportLog.record(SupportLog.TRIGGER, countdownSeconds, 0);
+        long deadline = -1;
+        if (countdownSeconds > 0) {
+            deadline = AutoDispatchCountdown.start(this, countdownSeconds);
+            DispatchPrewarm.start(this, deadline);
         }
-        showAlertConfirmationNotification();
+        showAlertConfirmationNotification(deadline);
     }
 
-    private void showAlertConfirmationNotification() {
+    /** @param deadline elapsedRealtime of the auto-dispatch, or -1 to wait for an answer */
+    private void showAlertConfirmationNotification(long deadline) {
         Intent yesIntent = new Intent(this, EmergencyActionReceiver.class);
         yesIntent.setAction(EmergencyActionReceiver.ACTION_SEND_EMERGENCY);
         PendingIntent yesPendingIntent = PendingIntent.getBroadcast(
@@ -142,25 +227,45 @@ public class ShakeService extends Service implements SensorEventListener {
             this, 2, noIntent, PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
         );
 
-        Notification notification = new NotificationCompat.Builder(this, CHANNEL_ID)
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
             .setContentTitle("🚨 Emergency Detected!")
             .setContentText("Triple shake detected. Send emergency alert?")
             .setSmallIcon(android.R.drawable.ic_dialog_alert)
             .setPriority(NotificationCompat.PRIORITY_HIGH)
-            .setAutoCancel(true)
-            .addAction(android.R.drawable.ic_menu_send, "YES - SEND ALERT", yesPendingIntent)
+            .setAutoCancel(true);
+        if (deadline > 0) {
+            long remainingMs = deadline - SystemClock.elapsedRealtime();
+            // The chronometer counts the remaining seconds down without us re-posting every second
+            builder.setContentText("Sending alert automatically. Tap NO if you are safe.")
+                .setWhen(System.currentTimeMillis() + remainingMs)
+                .setShowWhen(true)
+                .setUsesChronometer(true)
+                .setChronometerCountDown(true)
+                .setTimeoutAfter(Math.max(0, remainingMs))
+                .setCategory(NotificationCompat.CATEGORY_ALARM)
+                .setAutoCancel(false)
+                .setOngoing(true)
+                .addAction(android.R.drawable.ic_menu_send, "SEND NOW", yesPendingIntent);
+        } else {
+            builder.addAction(android.R.drawable.ic_menu_send, "YES - SEND ALERT", yesPendingIntent);
+        }
+        Notification notification = builder
             .addAction(android.R.drawable.ic_menu_close_clear_cancel, "NO - CANCEL", noPendingIntent)
             .build();
 
         NotificationManager nm = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
         if (nm != null) {
+            AlertTrace.begin(AlertTrace.NOTIFY);
             nm.notify(ALERT_NOTIFICATION_ID, notification);
+            AlertTrace.end();
+            AlertTrace.beginAsync(AlertTrace.CONFIRMATION, AlertTrace.CONFIRMATION_COOKIE);
             Log.d(TAG, "Alert confirmation notification shown.");
         }
     }
 
     private Notification createPersistentNotification() {
-        Intent notificationIntent = new Intent(this, MainActivity.class);
+        // Launch intent instead of MainActivity.class so the detector process never loads RN classes
+        Intent notificationIntent = getPackageManager().getLaunchIntentForPackage(getPackageName());
         PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, notificationIntent, PendingIntent.FLAG_IMMUTABLE);
 
         return new NotificationCompat.Builder(this, CHANNEL_ID)
@@ -0,0 +1,282 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Small key/value file shared between the UI process and the detector process.
+ * SharedPreferences caches per process and never sees another process's writes, so
+ * anything both sides read goes through here: writers hold a FileLock on "<file>.lock" while
+ * they re-read, merge and replace the file (write a per-process temp + rename), so concurrent
+ * writers in different processes don't lose each other's keys. Counters and peaks must be
+ * computed from the values under that same lock, with addAll() or merge(); a value read earlier
+ * and written back loses another process's update in between. Readers need no lock and
+ * reload only when the file's mtime or length changes.
+ * Lives in device-protected storage so ShakeService can use it before the first unlock.
+ */
+public class SharedStateFile {
+    private static final String TAG = "SharedStateFile";
+    private static final String DIR_NAME = "safeher_shared";
+
+    public static final String CONFIG = "config";
+    public static final String DETECTOR_STATS = "detector_stats";
+    public static final String WATCHDOG_STATS = "watchdog_stats";
+    public static final String BOOT_STATS = "boot_stats";
+    public static final String DISPATCH_STATS = "dispatch_stats";
+    public static final String SIM_STATS = "sim_stats";
+    public static final String ALERT_SESSION = "alert_session";
+    public static final String AUTO_DISPATCH = "auto_dispatch";
+    public static final String AUTO_DISPATCH_STATS = "auto_dispatch_stats";
+    public static final String RESOURCE_STATS = "resource_stats";
+
+    private static final Map<String, SharedStateFile> instances = new HashMap<>();
+    // Set once this process has migrated pre-direct-boot state, or found none, while unlocked
+    private static volatile boolean legacyChecked;
+
+    /** Computes the entries to write from the values on disk; called with the file's lock held. */
+    public interface Merge {
+        Map<String, String> apply(Map<String, String> current);
+    }
+
+    private final File file;
+    private final Properties values = new Properties();
+    private long loadedModified = -1;
+    private long loadedLength = -1;
+
+    private SharedStateFile(File file) {
+        this.file = file;
+    }
+
+    public static synchronized SharedStateFile get(Context context, String name) {
+        SharedStateFile instance = instances.get(name);
+        if (instance == null) {
+            instance = new SharedStateFile(new File(sharedDir(context), fileName(name)));
+            instances.put(name, instance);
+        }
+        return instance;
+    }
+
+    /** Name of the file backing the given state within sharedDir(). */
+    public static String fileName(String name) {
+        return name + ".properties";
+    }
+
+    /** Directory for state shared between processes (also holds the ServiceStatusPage). */
+    public static File sharedDir(Context context) {
+        Context deviceContext = context.getApplicationContext().createDeviceProtectedStorageContext();
+        File dir = new File(deviceContext.getFilesDir(), DIR_NAME);
+        // Not keyed on dir existing: a start before the first unlock creates it, legacy state or not
+        if (!legacyChecked && DirectBoot.isUserUnlocked(context)) {
+            synchronized (SharedStateFile.class) {
+                if (!legacyChecked) {
+                    migrateFromCredentialStorage(context, dir);
+                    legacyChecked = true;
+                }
+            }
+        }
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.e(TAG, "Could not create " + dir);
+        }
+        return dir;
+    }
+
+    /**
+     * Releases before direct-boot support kept this directory in credential-protected storage.
+     * The two storages have different encryption policies (and may be different mounts), so a
+     * rename can fail; each file is copied, synced, and only then deleted from the old place.
+     * Runs on the first unlocked access in each process while the legacy directory is there.
+     * A key already written in device-protected storage (a locked-boot start got there first)
+     * is newer, so legacy values only fill in keys it doesn't have.
+     */
+    private static void migrateFromCredentialStorage(Context context, File target) {
+        File legacy = new File(context.getApplicationContext().getFilesDir(), DIR_NAME);
+        File[] files = legacy.listFiles();
+        if (files == null) return;
+        if (!target.mkdirs() && !target.isDirectory()) {
+            Log.e(TAG, "Could not create " + target + "; shared state stays in credential storage");
+            return;
+        }
+        int moved = 0;
+        for (File from : files) {
+            // Temp files are half-written; lock files are recreated on demand
+            if (!from.isFile() || from.getName().endsWith(".tmp") || from.getName().endsWith(".lock")) continue;
+            File to = new File(target, from.getName());
+            if (to.exists()) {
+                if (from.getName().endsWith(".properties") && !fillMissing(from, to)) continue;
+                // Anything else written since is newer than the legacy copy
+                if (!from.delete()) Log.w(TAG, "Could not delete superseded " + from.getName());
+                moved++;
+                continue;
+            }
+            try (FileInputStream in = new FileInputStream(from); FileOutputStream out = new FileOutputStream(to)) {
+                byte[] buf = new byte[8192];
+                int n;
+                while ((n = in.read(buf)) != -1) out.write(buf, 0, n);
+                out.getFD().sync();
+            } catch (IOException e) {
+                // Config is mirrored again from SafeHerPrefs; counters in this file start over
+                Log.e(TAG, "Failed to migrate " + from.getName() + " to device-protected storage", e);
+                if (to.exists() && !to.delete()) Log.w(TAG, "Could not delete partial " + to.getName());
+                continue;
+            }
+            if (!from.delete()) Log.w(TAG, "Migrated " + from.getName() + " but could not delete the original");
+            moved++;
+        }
+        if (!legacy.delete()) Log.w(TAG, "Legacy shared state directory kept: not every file was moved");
+        Log.d(TAG, "Moved " + moved + " of " + files.length + " shared state file(s) into device-protected storage");
+    }
+
+    /** Adds the keys of legacy file {@code from} that {@code to} doesn't have yet, under to's lock. */
+    private static boolean fillMissing(File from, File to) {
+        Properties legacy = new Properties();
+        try (FileInputStream in = new FileInputStream(from)) {
+            legacy.load(in);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read legacy " + from.getName(), e);
+            return false;
+        }
+        try {
+            new SharedStateFile(to).merge(current -> {
+                Map<String, String> missing = new HashMap<>();
+                for (String key : legacy.stringPropertyNames()) {
+                    if (!current.containsKey(key)) missing.put(key, legacy.getProperty(key));
+                }
+                return missing;
+            });
+        } catch (OverlappingFileLockException e) {
+            // Being written from this process right now; the next process start tries again
+            return false;
+        }
+        // merge() logs a failed write; the legacy file is only deleted once its keys are there
+        return new SharedStateFile(to).snapshot().keySet().containsAll(legacy.stringPropertyNames());
+    }
+
+    public synchronized String getString(String key, String defaultValue) {
+        reloadIfChanged();
+        return values.getProperty(key, defaultValue);
+    }
+
+    public synchronized long getLong(String key, long defaultValue) {
+        return parseLong(getString(key, null), defaultValue);
+    }
+
+    /** A stored value as a long; {@code defaultValue} when it is missing or not a number. */
+    public static long parseLong(String value, long defaultValue) {
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public synchronized Map<String, String> snapshot() {
+        reloadIfChanged();
+        Map<String, String> copy = new HashMap<>();
+        for (String key : values.stringPropertyNames()) {
+            copy.put(key, values.getProperty(key));
+        }
+        return copy;
+    }
+
+    public synchronized void putString(String key, String value) {
+        Map<String, String> single = new HashMap<>();
+        single.put(key, value);
+        putAll(single);
+    }
+
+    /**
+     * Applies all entries (null values remove the key) and rewrites the file once. Runs under the
+     * file's lock and starts from a fresh read, so keys another process wrote are kept.
+     */
+    public synchronized void putAll(Map<String, String> entries) {
+        merge(current -> entries);
+    }
+
+    /** Adds each delta to the number stored under its key (0 if none), as one locked update. */
+    public synchronized void addAll(Map<String, Long> deltas) {
+        merge(current -> {
+            Map<String, String> update = new HashMap<>();
+            for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+                String key = entry.getKey();
+                update.put(key, String.valueOf(parseLong(current.get(key), 0) + entry.getValue()));
+            }
+            return update;
+        });
+    }
+
+    /**
+     * Like putAll(), with the entries computed by {@code merge} from the values just re-read
+     * under the lock, so a read-modify-write can't lose another process's update.
+     */
+    public synchronized void merge(Merge merge) {
+        // A different path from any lock callers hold around us (e.g. AlertSessionManager's)
+        File lockFile = new File(file.getPath() + ".lock");
+        try (RandomAccessFile raf = new RandomAccessFile(lockFile, "rw");
+             FileChannel channel = raf.getChannel();
+             FileLock ignored = channel.lock()) {
+            invalidate(); // the other process may have written within our mtime granularity
+            reloadIfChanged();
+            Map<String, String> entries = merge.apply(snapshot());
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                if (entry.getValue() == null) {
+                    values.remove(entry.getKey());
+                } else {
+                    values.setProperty(entry.getKey(), entry.getValue());
+                }
+            }
+            // Per process, so a writer that ignored the lock still can't clobber our temp file
+            File tmp = new File(file.getPath() + "." + Process.myPid() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                values.store(out, null);
+                out.getFD().sync();
+            }
+            if (!tmp.renameTo(file)) {
+                Log.e(TAG, "Failed to replace " + file.getName());
+                if (!tmp.delete()) Log.w(TAG, "Could not delete " + tmp.getName());
+                invalidate();
+                return;
+            }
+            loadedModified = file.lastModified();
+            loadedLength = file.length();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write " + file.getName(), e);
+            invalidate(); // the in-memory values may now hold entries that never reached disk
+        }
+    }
+
+    /** Forces the next read to go to disk; for callers that hold a cross-process lock. */
+    public synchronized void invalidate() {
+        loadedModified = -1;
+        loadedLength = -1;
+    }
+
+    private void reloadIfChanged() {
+        long modified = file.lastModified();
+        long length = file.length();
+        if (modified == loadedModified && length == loadedLength) return;
+        values.clear();
+        if (modified != 0L) {
+            try (FileInputStream in = new FileInputStream(file)) {
+                values.load(in);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to read " + file.getName(), e);
+            }
+        }
+        loadedModified = modified;
+        loadedLength = length;
+    }
+}
@@ -0,0 +1,278 @@
+package com.anonymous.boltexponativewind;
+
+import android.app.Activity;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Process;
+import android.os.SystemClock;
+import android.telephony.SmsManager;
+import android.util.Log;
+
+import com.anonymous.boltexponativewind.core.SmsSink;
+import com.anonymous.boltexponativewind.core.TaskRuntime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads one alert's recipients round-robin across the active SIMs. When the radio reports
+ * NO_SERVICE or RADIO_OFF for a recipient, the send moves to a SIM that hasn't been tried for
+ * that recipient, and the failed SIM is avoided for the rest of the alert. A tier-1 resend takes
+ * its SMS quota at once, like the first send; a lower-tier resend waits for it on the PACED
+ * lane, and is recorded failed only if no SIM takes it. Per-SIM attempts,
+ * successes, failovers and submit-to-sent latency are flushed to the sim_stats file when the alert finishes.
+ */
+public class SimRouter implements SmsSink {
+    private static final String TAG = "SimRouter";
+    public static final String EXTRA_SUBSCRIPTION_ID = "subscription_id";
+    /** Pid of the process that sent; only its receiver counts the result in ResourceStats. */
+    public static final String EXTRA_SENDER_PID = "sender_pid";
+    /** Unique per status broadcast, so a process that hears it twice handles it once. */
+    public static final String EXTRA_STATUS_ID = "status_id";
+
+    private static final Map<Long, SimRouter> active = new ConcurrentHashMap<>();
+    private static final AtomicInteger requestCodes = new AtomicInteger((int) (System.currentTimeMillis() & 0xffffff));
+
+    // Indexes into the per-SIM stats arrays
+    private static final int STAT_ATTEMPTS = 0, STAT_SENT = 1, STAT_FAILED = 2, STAT_FAILOVERS = 3, STAT_LATENCY = 4;
+    private static final String[] STAT_NAMES = { "attempts", "sent", "failed", "failovers", "latency_total_ms" };
+    // On top of the quota wait, for a lower-tier failover
+    private static final long FAILOVER_TIMEOUT_MS = 60 * 1000L;
+
+    private final Context context;
+    private final long alertId;
+    private final SmsSender sender;
+    private final List<Integer> subscriptions;
+    private final Set<Integer> down = new HashSet<>();
+    private int next;
+
+    private final Map<String, ArrayList<String>> partsByPhone = new HashMap<>();
+    private final Map<String, Set<Integer>> tried = new HashMap<>();
+    private final Map<String, Long> submittedAt = new HashMap<>();
+    private final Set<String> settled = new HashSet<>(); // "phone|sub" already counted
+    private final Set<String> failedOver = new HashSet<>();
+    private final Set<String> paced = new HashSet<>();
+    private final Map<Integer, long[]> stats = new HashMap<>();
+
+    SimRouter(Context context, long alertId, SmsSender sender) {
+        this.context = context.getApplicationContext();
+        this.alertId = alertId;
+        this.sender = sender;
+        this.subscriptions = sender.activeSubscriptions();
+    }
+
+    public static SimRouter start(Context context, long alertId, SmsSender sender) {
+        SimRouter router = new SimRouter(context, alertId, sender);
+        if (alertId > 0) active.put(alertId, router);
+        if (router.subscriptions.size() > 1) {
+            Log.d(TAG, "📶 Spreading alert across " + router.subscriptions.size() + " SIMs");
+        }
+        return router;
+    }
+
+    public static SimRouter get(long alertId) {
+        return active.get(alertId);
+    }
+
+    /** Recipients below tier 1, whose sends wait for SMS quota; failovers for them wait too. */
+    public synchronized void pace(Collection<String> phones) {
+        paced.addAll(phones);
+    }
+
+    /** Sends to one recipient on the next healthy SIM; tries the others if the platform refuses outright. */
+    @Override
+    public synchronized void send(String phone, List<String> parts) {
+        partsByPhone.put(phone, parts instanceof ArrayList ? (ArrayList<String>) parts : new ArrayList<>(parts));
+        RuntimeException last = null;
+        for (int i = 0; i < subscriptions.size(); i++) {
+            Integer sub = pick(phone);
+            if (sub == null) break;
+            try {
+                submit(phone, sub);
+                return;
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Send refused on SIM " + sub + ": " + e.getMessage());
+                stat(sub)[STAT_FAILED]++;
+                ResourceStats.onSmsRefused(parts.size());
+                last = e;
+            }
+        }
+        throw last != null ? last : new IllegalStateException("No SIM left to try");
+    }
+
+    /** Next SIM in round-robin order not yet tried for this recipient, preferring ones not marked down. */
+    private Integer pick(String phone) {
+        Set<Integer> used = tried.get(phone);
+        Integer fallback = null;
+        for (int i = 0; i < subscriptions.size(); i++) {
+            Integer sub = subscriptions.get((next + i) % subscriptions.size());
+            if (used != null && used.contains(sub)) continue;
+            if (down.contains(sub)) {
+                if (fallback == null) fallback = sub;
+                continue;
+            }
+            next = (next + i + 1) % subscriptions.size();
+            return sub;
+        }
+        return fallback;
+    }
+
+    private void submit(String phone, int sub) {
+        Set<Integer> used = tried.get(phone);
+        if (used == null) {
+            used = new HashSet<>();
+            tried.put(phone, used);
+        }
+        used.add(sub);
+        ArrayList<String> parts = partsByPhone.get(phone);
+        ArrayList<PendingIntent> sentPIs = new ArrayList<>();
+        ArrayList<PendingIntent> deliveredPIs = new ArrayList<>();
+        for (int i = 0; i < parts.size(); i++) {
+            sentPIs.add(statusIntent("SMS_SENT", phone, sub));
+            deliveredPIs.add(statusIntent("SMS_DELIVERED", phone, sub));
+        }
+        stat(sub)[STAT_ATTEMPTS]++;
+        ResourceStats.onSmsAttempt(parts.size());
+        submittedAt.put(phone + "|" + sub, SystemClock.elapsedRealtime());
+        int cookie = AlertTrace.sendCookie(alertId, phone, sub);
+        // Ends at the first SMS_SENT for this recipient and SIM, in onSentResult
+        AlertTrace.beginAsync(AlertTrace.SMS, cookie);
+        AlertTrace.begin(AlertTrace.SUBMIT);
+        try {
+            sender.send(sub, phone, parts, sentPIs, deliveredPIs);
+        } catch (RuntimeException e) {
+            AlertTrace.endAsync(AlertTrace.SMS, cookie);
+            throw e;
+        } finally {
+            AlertTrace.end();
+        }
+        SupportLog.record(SupportLog.SIM_SUBMIT, sub, parts.size());
+    }
+
+    private PendingIntent statusIntent(String action, String phone, int sub) {
+        Intent intent = new Intent(action);
+        // Carries the recipient's number; only our own receivers may hear it
+        intent.setPackage(context.getPackageName());
+        intent.putExtra("recipient", phone);
+        intent.putExtra(SmsStatusReceiver.EXTRA_ALERT_ID, alertId);
+        intent.putExtra(EXTRA_SUBSCRIPTION_ID, sub);
+        intent.putExtra(EXTRA_SENDER_PID, Process.myPid());
+        int requestCode = requestCodes.incrementAndGet();
+        intent.putExtra(EXTRA_STATUS_ID, requestCode);
+        return PendingIntent.getBroadcast(context, requestCode, intent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+
+    /**
+     * Handles an SMS_SENT result. Returns true when the recipient was failed over to another SIM,
+     * in which case this failure is not final.
+     */
+    public synchronized boolean onSentResult(String phone, int sub, int resultCode) {
+        if (phone == null) return false;
+        String key = phone + "|" + sub;
+        // Multipart sends report once per part; only the first result per SIM counts
+        if (!settled.add(key)) return resultCode != Activity.RESULT_OK && failedOver.contains(phone);
+        AlertTrace.endAsync(AlertTrace.SMS, AlertTrace.sendCookie(alertId, phone, sub));
+
+        long[] s = stat(sub);
+        if (resultCode == Activity.RESULT_OK) {
+            s[STAT_SENT]++;
+            Long at = submittedAt.get(key);
+            if (at != null) s[STAT_LATENCY] += SystemClock.elapsedRealtime() - at;
+            return false;
+        }
+        s[STAT_FAILED]++;
+        if (resultCode != SmsManager.RESULT_ERROR_NO_SERVICE && resultCode != SmsManager.RESULT_ERROR_RADIO_OFF) {
+            return false;
+        }
+        down.add(sub);
+        ArrayList<String> parts = partsByPhone.get(phone);
+        if (parts == null || untried(phone) == null) return false;
+        if (paced.contains(phone)) {
+            // Off the receiver thread: the quota wait can take minutes
+            long timeoutMs = SmsSendScheduler.get().estimateWaitMs(parts.size()) + FAILOVER_TIMEOUT_MS;
+            AppTasks.get().submit(TaskRuntime.Lane.PACED, "sim_failover", timeoutMs, task -> {
+                boolean resent = false;
+                try {
+                    SmsSendScheduler.get().acquire(parts.size());
+                    resent = failOver(phone, sub);
+                } finally {
+                    if (!resent) {
+                        Thread.interrupted(); // past the deadline; the failure still has to be recorded
+                        AlertHistoryStore.get(context).updateRecipientStatus(alertId, phone,
+                                AlertHistoryStore.RECIPIENT_FAILED);
+                    }
+                }
+            });
+            // Later parts' failures aren't final either
+            failedOver.add(phone);
+            return true;
+        }
+        SmsSendScheduler.get().take(parts.size());
+        return failOver(phone, sub);
+    }
+
+    /** First SIM not yet tried for this recipient, or null. */
+    private Integer untried(String phone) {
+        Set<Integer> used = tried.get(phone);
+        for (Integer candidate : subscriptions) {
+            if (used == null || !used.contains(candidate)) return candidate;
+        }
+        return null;
+    }
+
+    /** Resends to the SIMs not yet tried for this recipient until one takes it. */
+    private synchronized boolean failOver(String phone, int failedSub) {
+        ArrayList<String> parts = partsByPhone.get(phone);
+        for (Integer candidate = untried(phone); candidate != null; candidate = untried(phone)) {
+            try {
+                submit(phone, candidate);
+                stat(failedSub)[STAT_FAILOVERS]++;
+                failedOver.add(phone);
+                SupportLog.record(SupportLog.SIM_FAILOVER, failedSub, candidate);
+                return true;
+            } catch (RuntimeException e) {
+                stat(candidate)[STAT_FAILED]++;
+                ResourceStats.onSmsRefused(parts.size());
+            }
+        }
+        return false;
+    }
+
+    private long[] stat(int sub) {
+        long[] s = stats.get(sub);
+        if (s == null) {
+            s = new long[STAT_NAMES.length];
+            stats.put(sub, s);
+        }
+        return s;
+    }
+
+    /** Forgets the alert and adds its per-SIM counters to the running totals. */
+    public void finish() {
+        active.remove(alertId);
+        Map<String, Long> deltas = new HashMap<>();
+        synchronized (this) {
+            if (stats.isEmpty()) return;
+            for (Map.Entry<Integer, long[]> entry : stats.entrySet()) {
+                String prefix = "sim" + entry.getKey() + "_";
+                for (int i = 0; i < STAT_NAMES.length; i++) {
+                    deltas.put(prefix + STAT_NAMES[i], entry.getValue()[i]);
+                }
+            }
+            SharedStateFile.get(context, SharedStateFile.SIM_STATS).addAll(deltas);
+        }
+    }
+
+    public static Map<String, String> readStats(Context context) {
+        return SharedStateFile.get(context, SharedStateFile.SIM_STATS).snapshot();
+    }
+}
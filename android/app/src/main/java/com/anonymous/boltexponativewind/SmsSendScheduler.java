@@ -0,0 +1,16 @@
+package com.anonymous.boltexponativewind;
+
+import com.anonymous.boltexponativewind.core.SendScheduler;
+
+/**
+ * The process-wide SMS quota bucket (see SendScheduler). Shared by everything that sends SMS
+ * from this process: alert fan-out, live location follow-ups and SIM failover. The UI process
+ * (JS SMS jobs) has a bucket of its own, and either starts full again after a restart.
+ */
+public class SmsSendScheduler {
+    private static final SendScheduler INSTANCE = new SendScheduler(AndroidClock.INSTANCE);
+
+    public static SendScheduler get() {
+        return INSTANCE;
+    }
+}
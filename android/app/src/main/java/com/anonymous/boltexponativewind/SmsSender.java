@@ -0,0 +1,25 @@
+package com.anonymous.boltexponativewind;
+
+import android.app.PendingIntent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Send layer under the alert paths, one call per recipient and subscription. PlatformSmsSender
+ * is the real one; SimRouter only talks to this interface, so routing and failover can be
+ * driven by a fake.
+ */
+public interface SmsSender {
+    /** Stands for "whatever SmsManager.getDefault() uses" when subscriptions can't be listed. */
+    int DEFAULT_SUBSCRIPTION = -1;
+
+    /** Active subscription ids, never empty. */
+    List<Integer> activeSubscriptions();
+
+    ArrayList<String> divideMessage(String message);
+
+    /** Sends all parts to one recipient; intents may be null. Throws if the platform refuses outright. */
+    void send(int subscriptionId, String destination, ArrayList<String> parts,
+              ArrayList<PendingIntent> sentIntents, ArrayList<PendingIntent> deliveryIntents);
+}
@@ -4,43 +4,119 @@ import android.app.Activity;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.os.Process;
 import android.telephony.SmsManager;
 import android.util.Log;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records SMS_SENT and SMS_DELIVERED results. The manifest receiver and the dynamic ones
+ * (EmergencyDispatchService, AutoSmsModule) can share a process and all hear each result, so
+ * every result is handled once per process, by whichever receiver gets it first. Anything else
+ * that wants the outcome registers a Listener instead of another receiver.
+ */
 public class SmsStatusReceiver extends BroadcastReceiver {
     private static final String TAG = "SmsStatusReceiver";
+    public static final String EXTRA_ALERT_ID = "alert_id";
+    private static final int MAX_HANDLED = 512;
+
+    /** Hears each recipient status this process records. */
+    public interface Listener {
+        void onRecipientStatus(long alertId, String recipient, String status);
+    }
+
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Status ids already handled here, newest last
+    private static final Set<Integer> handled = Collections.synchronizedSet(Collections.newSetFromMap(
+            new LinkedHashMap<Integer, Boolean>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+                    return size() > MAX_HANDLED;
+                }
+            }));
+
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
 
     @Override
     public void onReceive(Context context, Intent intent) {
+        int statusId = intent.getIntExtra(SimRouter.EXTRA_STATUS_ID, 0);
+        if (statusId != 0 && !handled.add(statusId)) return;
         String action = intent.getAction();
+        long alertId = intent.getLongExtra(EXTRA_ALERT_ID, -1);
+        String recipient = intent.getStringExtra("recipient");
+        int subscriptionId = intent.getIntExtra(SimRouter.EXTRA_SUBSCRIPTION_ID, SmsSender.DEFAULT_SUBSCRIPTION);
+        String status = null;
+        // Every process with a receiver hears this; only the sender's counts it
+        boolean counted = intent.getIntExtra(SimRouter.EXTRA_SENDER_PID, -1) == Process.myPid();
+
+        if ("SMS_SENT".equals(action)) {
+            SupportLog.record(SupportLog.SMS_SENT, subscriptionId, getResultCode());
+            // Also when the router is gone or lives in another process
+            if (counted) ResourceStats.onSmsSent(getResultCode() == Activity.RESULT_OK);
+            SimRouter router = SimRouter.get(alertId);
+            if (router != null && router.onSentResult(recipient, subscriptionId, getResultCode())) {
+                // Retrying on another SIM; this failure isn't final
+                return;
+            }
+        } else if ("SMS_DELIVERED".equals(action)) {
+            SupportLog.record(SupportLog.SMS_DELIVERED, subscriptionId, getResultCode());
+            if (counted) ResourceStats.onSmsDelivered(getResultCode() == Activity.RESULT_OK);
+        }
         
         if ("SMS_SENT".equals(action)) {
             switch (getResultCode()) {
                 case Activity.RESULT_OK:
                     Log.i(TAG, "✅ SMS SENT successfully");
+                    status = AlertHistoryStore.RECIPIENT_SENT;
                     break;
                 case SmsManager.RESULT_ERROR_GENERIC_FAILURE:
                     Log.e(TAG, "❌ SMS SEND FAILED: Generic failure");
+                    status = AlertHistoryStore.RECIPIENT_FAILED;
                     break;
                 case SmsManager.RESULT_ERROR_NO_SERVICE:
                     Log.e(TAG, "❌ SMS SEND FAILED: No service");
+                    status = AlertHistoryStore.RECIPIENT_FAILED;
                     break;
                 case SmsManager.RESULT_ERROR_NULL_PDU:
                     Log.e(TAG, "❌ SMS SEND FAILED: Null PDU");
+                    status = AlertHistoryStore.RECIPIENT_FAILED;
                     break;
                 case SmsManager.RESULT_ERROR_RADIO_OFF:
                     Log.e(TAG, "❌ SMS SEND FAILED: Radio off");
+                    status = AlertHistoryStore.RECIPIENT_FAILED;
                     break;
             }
         } else if ("SMS_DELIVERED".equals(action)) {
             switch (getResultCode()) {
                 case Activity.RESULT_OK:
                     Log.i(TAG, "✅ SMS DELIVERED successfully");
+                    status = AlertHistoryStore.RECIPIENT_DELIVERED;
+                    // Sent only means the SMSC took it; the relay confirms on delivery too
+                    HedgedDispatch hedge = HedgedDispatch.get(alertId);
+                    if (hedge != null) hedge.onConfirmed(recipient, HedgedDispatch.CHANNEL_SMS);
                     break;
                 case Activity.RESULT_CANCELED:
                     Log.e(TAG, "❌ SMS DELIVERY FAILED");
+                    status = AlertHistoryStore.RECIPIENT_FAILED;
                     break;
             }
         }
+
+        if (status != null && alertId > 0) {
+            AlertHistoryStore.get(context).updateRecipientStatus(alertId, recipient, status);
+            for (Listener listener : listeners) listener.onRecipientStatus(alertId, recipient, status);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,158 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.anonymous.boltexponativewind.core.DetectionConfig;
+import com.anonymous.boltexponativewind.core.EventRing;
+import com.anonymous.boltexponativewind.core.Outbox;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Always-on event history for support, in place of Log.d string building on the detector and
+ * dispatch paths. Records are binary (see EventRing) and hold numbers only: recipients appear
+ * as their position in the contact list, never as phone numbers. Each process flushes its ring
+ * to the shared directory when a dispatch ends; export() decodes every process's flush to text.
+ */
+public final class SupportLog {
+    private static final String TAG = "SupportLog";
+
+    public static final int ARMED = 1;          // a: ms since process start, b: React Native loaded
+    public static final int SHAKE = 2;          // a: shake count, b: count needed
+    public static final int TRIGGER = 3;        // a: auto-dispatch countdown seconds (0 = wait for answer)
+    public static final int DISPATCH_START = 4; // a: contacts, b: SMS parts per contact
+    public static final int RECIPIENT = 5;      // a: contact position, b: state code
+    public static final int RELAY_SKIP = 6;     // a: contact position
+    public static final int DISPATCH_DONE = 7;  // a: contacts submitted, b: alert counted as sent
+    public static final int SIM_SUBMIT = 8;     // a: subscription, b: parts
+    public static final int SIM_FAILOVER = 9;   // a: from subscription, b: to subscription
+    public static final int SMS_SENT = 10;      // a: subscription, b: result code
+    public static final int SMS_DELIVERED = 11; // a: subscription, b: result code
+    public static final int STORAGE_SET = 12;   // a: key code, b: value length
+    public static final int CONFIG_APPLIED = 13; // a: threshold in centi-g, b: shakes needed
+
+    private static final int CAPACITY = 1024;
+    private static final String FILE_PREFIX = "support_log_";
+
+    private static final String[] STATES = { Outbox.PENDING, Outbox.QUEUED, Outbox.SUBMITTED, Outbox.SENT,
+            Outbox.DELIVERED, Outbox.FAILED, Outbox.CANCELLED };
+    private static final String[] KEYS = { DirectBoot.KEY_EMERGENCY_CONTACTS, DirectBoot.KEY_ALERT_TEMPLATE,
+            DirectBoot.KEY_API_BASE, DirectBoot.KEY_AUTO_DISPATCH_SECONDS, AlertSyncWorker.KEY_AUTH_TOKEN,
+            DetectionConfig.KEY_THRESHOLD_G, DetectionConfig.KEY_SLOP_MS, DetectionConfig.KEY_RESET_MS,
+            DetectionConfig.KEY_COUNT, DetectionConfig.KEY_MODE, DetectionConfig.KEY_SAMPLING_US,
+            DirectBoot.KEY_RECORD_EVIDENCE, DirectBoot.KEY_ALERT_NOTE };
+
+    private static final EventRing ring = new EventRing(AndroidClock.INSTANCE, CAPACITY);
+
+    private SupportLog() {
+    }
+
+    public static void record(int event, long a, long b) {
+        ring.record(event, a, b);
+    }
+
+    /** Recipient state as a small code; no allocation, unlike logging the string. */
+    public static int stateCode(String state) {
+        for (int i = 0; i < STATES.length; i++) {
+            if (STATES[i].equals(state)) return i;
+        }
+        return -1;
+    }
+
+    public static int keyCode(String key) {
+        for (int i = 0; i < KEYS.length; i++) {
+            if (KEYS[i].equals(key)) return i;
+        }
+        return -1;
+    }
+
+    /** Writes this process's records to the shared directory, replacing its previous flush. */
+    public static void flush(Context context) {
+        File target = new File(SharedStateFile.sharedDir(context), FILE_PREFIX + processLabel(context) + ".bin");
+        File tmp = new File(target.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            ring.writeTo(out);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not flush support log: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(target)) Log.w(TAG, "Could not replace " + target);
+    }
+
+    /** Flushes this process, then decodes every process's last flush into text. */
+    public static String export(Context context) {
+        flush(context);
+        StringBuilder out = new StringBuilder();
+        File[] flushed = SharedStateFile.sharedDir(context).listFiles(
+                (dir, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(".bin"));
+        if (flushed == null) return "";
+        for (File file : flushed) {
+            out.append("== ").append(file.getName(), FILE_PREFIX.length(), file.getName().length() - 4).append(" ==\n");
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                EventRing.decode(in, SupportLog::format, out);
+            } catch (IOException e) {
+                out.append("unreadable: ").append(e.getMessage()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private static String processLabel(Context context) {
+        return DetectorProcess.isDetectorProcess(context) ? "detector" : "app";
+    }
+
+    private static void format(StringBuilder out, int event, long a, long b) {
+        switch (event) {
+            case ARMED:
+                out.append("armed ").append(a).append(" ms after process start, RN loaded=").append(b != 0);
+                break;
+            case SHAKE:
+                out.append("shake ").append(a).append('/').append(b);
+                break;
+            case TRIGGER:
+                out.append("trigger, countdown ").append(a).append(" s");
+                break;
+            case DISPATCH_START:
+                out.append("dispatch to ").append(a).append(" contact(s), ").append(b).append(" part(s) each");
+                break;
+            case RECIPIENT:
+                out.append("contact #").append(a).append(' ').append(b >= 0 && b < STATES.length ? STATES[(int) b] : "?");
+                break;
+            case RELAY_SKIP:
+                out.append("contact #").append(a).append(" reached by relay, SMS skipped");
+                break;
+            case DISPATCH_DONE:
+                out.append("dispatch done, ").append(a).append(" submitted, ").append(b != 0 ? "sent" : "failed");
+                break;
+            case SIM_SUBMIT:
+                out.append("submitted ").append(b).append(" part(s) on SIM ").append(a);
+                break;
+            case SIM_FAILOVER:
+                out.append("SIM ").append(a).append(" no service, failed over to SIM ").append(b);
+                break;
+            case SMS_SENT:
+                out.append("SMS_SENT on SIM ").append(a).append(" result ").append(b);
+                break;
+            case SMS_DELIVERED:
+                out.append("SMS_DELIVERED on SIM ").append(a).append(" result ").append(b);
+                break;
+            case STORAGE_SET:
+                out.append("stored ").append(a >= 0 && a < KEYS.length ? KEYS[(int) a] : "other key")
+                        .append(", ").append(b).append(" char(s)");
+                break;
+            case CONFIG_APPLIED:
+                out.append("detection config ").append(a / 100.0).append(" g, ").append(b).append(" shake(s)");
+                break;
+            default:
+                out.append("event ").append(event).append(' ').append(a).append(' ').append(b);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.anonymous.boltexponativewind;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.util.Log;
+
+/**
+ * Delivers native -> JS events from code that may live in the detector process.
+ * In the UI process the event goes straight to MainApplication.sendEvent; from the
+ * detector process it is sent as a package-local broadcast that the UI process
+ * forwards once React Native is loaded.
+ */
+public class UiEventRelay {
+    private static final String TAG = "UiEventRelay";
+    private static final String ACTION_UI_EVENT = "com.anonymous.boltexponativewind.ACTION_UI_EVENT";
+    private static final String EXTRA_EVENT_NAME = "event_name";
+
+    private static BroadcastReceiver forwarder;
+
+    public static void emit(Context context, String eventName) {
+        if (!DetectorProcess.isDetectorProcess(context)) {
+            if (MainApplication.hasReactContext()) {
+                MainApplication.sendEvent(eventName, null);
+            }
+            return;
+        }
+        Intent intent = new Intent(ACTION_UI_EVENT);
+        intent.setPackage(context.getPackageName());
+        intent.putExtra(EXTRA_EVENT_NAME, eventName);
+        context.sendBroadcast(intent);
+    }
+
+    /** Registered by the UI process when React Native is initialized. */
+    public static synchronized void registerForwarder(Context context) {
+        if (forwarder != null) return;
+        forwarder = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context ctx, Intent intent) {
+                String eventName = intent.getStringExtra(EXTRA_EVENT_NAME);
+                if (eventName != null && MainApplication.hasReactContext()) {
+                    MainApplication.sendEvent(eventName, null);
+                }
+            }
+        };
+        IntentFilter filter = new IntentFilter(ACTION_UI_EVENT);
+        Context app = context.getApplicationContext();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            app.registerReceiver(forwarder, filter, Context.RECEIVER_NOT_EXPORTED);
+        } else {
+            app.registerReceiver(forwarder, filter);
+        }
+        Log.d(TAG, "UI event forwarder registered");
+    }
+}
@@ -0,0 +1,180 @@
+package com.anonymous.boltexponativewind;
+
+import android.Manifest;
+import android.app.Application;
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.Intent;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorManager;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.work.testing.WorkManagerTestInitHelper;
+
+import com.anonymous.boltexponativewind.core.TieredContacts;
+
+import org.robolectric.Robolectric;
+import org.robolectric.android.controller.ServiceController;
+import org.robolectric.shadows.ShadowSensor;
+import org.robolectric.shadows.ShadowSensorManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Drives the real alert chain under Robolectric: accelerometer samples into ShakeService, the
+ * confirmation notification, a tap on one of its actions through EmergencyActionReceiver,
+ * EmergencyDispatchService, and SMS_SENT/DELIVERED back through SmsStatusReceiver. Only the
+ * radio is fake (FakeSmsSender).
+ *
+ * Two clocks are in play. Android time (SystemClock, and System.currentTimeMillis, which
+ * Robolectric also fakes) only moves when the main looper is idled, so sensor timing and radio
+ * delays are deterministic. The dispatch itself runs on a real thread, so latency budgets are
+ * checked against realTimeMs().
+ *
+ * Tier 1 goes out unpaced, SIM failover resends included, so tier-1 scenarios may run the SMS
+ * quota into debt. Lower-tier sends have to stay within what is left of SendScheduler.BURST:
+ * the alert is five UCS-2 parts (it starts with an emoji), and past the burst
+ * SendScheduler.acquire waits real minutes for a refill that the frozen Android clock never
+ * grants.
+ */
+class AlertPipelineHarness {
+    private static final long SAMPLE_MS = 60; // SENSOR_DELAY_UI
+    private static final int REST_SAMPLES_PER_SHAKE = 10; // keeps shakes past SLOP_TIME_MS apart
+    private static final float SHAKE_MS2 = 30f; // ~3 g, over the 2.7 g threshold
+    private static final float GRAVITY_MS2 = SensorManager.STANDARD_GRAVITY;
+    private static final int ALERT_NOTIFICATION_ID = 1002;
+
+    final Application app = ApplicationProvider.getApplicationContext();
+    final FakeSmsSender radio;
+    final List<String> recipients;
+
+    private final SensorManager sensorManager;
+    private final Sensor accelerometer;
+    private ServiceController<ShakeService> shakeService;
+    private ServiceController<EmergencyDispatchService> dispatchService;
+
+    /** Real time at which the last triple shake completed, or -1. */
+    long triggeredAtRealMs = -1;
+    /** Real time of the last notification action tap, or -1. */
+    long tappedAtRealMs = -1;
+
+    /** @param contacts mirrored contact list, "phone;tier,phone;tier" */
+    AlertPipelineHarness(String contacts, Integer... subscriptions) {
+        radio = new FakeSmsSender(app, subscriptions);
+        recipients = TieredContacts.phones(TieredContacts.parse(contacts));
+        PlatformSmsSender.factory = context -> radio;
+        shadowOf(app).grantPermissions(Manifest.permission.SEND_SMS);
+        WorkManagerTestInitHelper.initializeTestWorkManager(app);
+        SharedStateFile.get(app, SharedStateFile.CONFIG)
+                .putAll(Collections.singletonMap(DirectBoot.KEY_EMERGENCY_CONTACTS, contacts));
+
+        sensorManager = app.getSystemService(SensorManager.class);
+        shadowOf(sensorManager).addSensor(ShadowSensor.newInstance(Sensor.TYPE_ACCELEROMETER));
+        accelerometer = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+    }
+
+    static long realTimeMs() {
+        // Robolectric swaps System.currentTimeMillis/nanoTime for its fake clock; java.time doesn't
+        return Clock.systemUTC().millis();
+    }
+
+    void armDetector() {
+        shakeService = Robolectric.buildService(ShakeService.class).create().startCommand(0, 1);
+    }
+
+    /** Feeds {@code count} distinct shakes, each followed by the phone at rest. */
+    void shake(int count) {
+        for (int i = 0; i < count; i++) {
+            triggeredAtRealMs = realTimeMs();
+            sample(SHAKE_MS2, SHAKE_MS2 / 2, GRAVITY_MS2);
+            for (int j = 0; j < REST_SAMPLES_PER_SHAKE; j++) sample(0f, 0f, GRAVITY_MS2);
+        }
+    }
+
+    private void sample(float x, float y, float z) {
+        SensorEvent event = ShadowSensorManager.createSensorEvent(3);
+        event.sensor = accelerometer;
+        event.values[0] = x;
+        event.values[1] = y;
+        event.values[2] = z;
+        shadowOf(sensorManager).sendSensorEventToListeners(event);
+        advance(SAMPLE_MS);
+    }
+
+    Notification confirmation() {
+        NotificationManager nm = app.getSystemService(NotificationManager.class);
+        return shadowOf(nm).getNotification(ALERT_NOTIFICATION_ID);
+    }
+
+    /** Taps the confirmation action whose label starts with {@code label}, e.g. "YES" or "NO". */
+    void tap(String label) {
+        Notification notification = confirmation();
+        assertNotNull("no confirmation notification to tap", notification);
+        for (Notification.Action action : notification.actions) {
+            if (!action.title.toString().startsWith(label)) continue;
+            Intent intent = shadowOf(action.actionIntent).getSavedIntent();
+            tappedAtRealMs = realTimeMs();
+            new EmergencyActionReceiver().onReceive(app, intent);
+            startRequestedDispatch();
+            return;
+        }
+        fail("confirmation has no \"" + label + "\" action");
+    }
+
+    /** Robolectric records startService() calls; this runs the dispatch service they asked for. */
+    private void startRequestedDispatch() {
+        Intent started = shadowOf(app).getNextStartedService();
+        if (started == null) return;
+        dispatchService = Robolectric.buildService(EmergencyDispatchService.class, started)
+                .create().startCommand(0, 1);
+    }
+
+    /** Waits, in real time, until the radio has been handed {@code count} sends. */
+    void awaitSubmissions(int count, long timeoutMs) throws InterruptedException {
+        long deadline = realTimeMs() + timeoutMs;
+        while (radio.submissions.size() < count) {
+            if (realTimeMs() > deadline) {
+                fail("only " + radio.submissions.size() + " of " + count + " sends reached the radio in "
+                        + timeoutMs + " ms");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    /** Lets {@code ms} of Android time pass: the radio reports, receivers run. */
+    void advance(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+
+    /** Waits, in real time, for the dispatch to settle its alert record; returns the record. */
+    AlertHistoryStore.Alert awaitAlertSettled(long timeoutMs) throws InterruptedException {
+        long deadline = realTimeMs() + timeoutMs;
+        while (realTimeMs() < deadline) {
+            List<AlertHistoryStore.Alert> alerts = AlertHistoryStore.get(app).queryAlerts(Long.MAX_VALUE, 1);
+            if (!alerts.isEmpty() && !AlertHistoryStore.STATUS_SENDING.equals(alerts.get(0).status)) {
+                // Anything the radio still owes lands before the record is judged
+                advance(60 * 1000L);
+                return AlertHistoryStore.get(app).queryAlerts(Long.MAX_VALUE, 1).get(0);
+            }
+            advance(SAMPLE_MS);
+            Thread.sleep(20);
+        }
+        fail("alert still sending after " + timeoutMs + " ms");
+        return null;
+    }
+
+    void tearDown() {
+        if (dispatchService != null) dispatchService.destroy();
+        if (shakeService != null) shakeService.destroy();
+        PlatformSmsSender.factory = PlatformSmsSender::new;
+    }
+}
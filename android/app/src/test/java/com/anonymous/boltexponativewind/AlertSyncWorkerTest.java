@@ -0,0 +1,109 @@
+package com.anonymous.boltexponativewind;
+
+import android.app.Application;
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.work.ListenableWorker;
+import androidx.work.testing.TestListenableWorkerBuilder;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * AlertSyncWorker against a local stand-in for the backend. A delivery report that lands while
+ * the first upload is in flight must not be lost: the alert stays unsynced and goes up again,
+ * under a new Idempotency-Key so the backend doesn't drop it as a duplicate.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AlertSyncWorkerTest {
+    private static final String PHONE = "+15550000001";
+
+    private final Application app = ApplicationProvider.getApplicationContext();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final List<String> keys = new CopyOnWriteArrayList<>();
+    // The alert's version while each request was in flight, i.e. the version it carried
+    private final List<Long> versions = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private AlertHistoryStore store;
+    private long alertId;
+
+    @Before
+    public void setUp() throws Exception {
+        store = AlertHistoryStore.get(app);
+        alertId = store.insertAlert(1000L, 12.5, 77.25, "MG Road", "native_dispatch", Arrays.asList(PHONE));
+        store.updateRecipientStatus(alertId, PHONE, AlertHistoryStore.RECIPIENT_SENT);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/alerts/sync", exchange -> {
+            bodies.add(gunzip(exchange.getRequestBody()));
+            keys.add(exchange.getRequestHeaders().getFirst("Idempotency-Key"));
+            versions.add(store.queryAlerts(Long.MAX_VALUE, 1).get(0).version);
+            if (bodies.size() == 1) {
+                // SMS_DELIVERED arriving while the first upload is in flight
+                store.updateRecipientStatus(alertId, PHONE, AlertHistoryStore.RECIPIENT_DELIVERED);
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+
+        app.getSharedPreferences("SafeHerPrefs", Context.MODE_PRIVATE).edit()
+                .putString(AlertSyncWorker.KEY_API_BASE, "http://127.0.0.1:" + server.getAddress().getPort())
+                .commit();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void statusChangedDuringUploadIsSentAgain() {
+        AlertSyncWorker worker = TestListenableWorkerBuilder.from(app, AlertSyncWorker.class).build();
+
+        assertEquals(ListenableWorker.Result.success(), worker.doWork());
+
+        assertEquals(2, bodies.size());
+        assertTrue(bodies.get(0).contains("\"status\":\"" + AlertHistoryStore.RECIPIENT_SENT + "\""));
+        assertTrue(bodies.get(1).contains("\"status\":\"" + AlertHistoryStore.RECIPIENT_DELIVERED + "\""));
+        assertNotEquals(keys.get(0), keys.get(1));
+        assertEquals(0, store.countUnsynced());
+        // Each key is the one for the batch at the version it uploaded, so a re-sent batch at
+        // unchanged versions is recognisably the same
+        long[] ids = { alertId };
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(AlertSyncWorker.idempotencyKey(ids, new long[] { versions.get(i) }), keys.get(i));
+        }
+    }
+
+    private static String gunzip(InputStream body) {
+        try (InputStream in = new GZIPInputStream(body)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) != -1) out.write(buf, 0, n);
+            return out.toString(StandardCharsets.UTF_8.name());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.anonymous.boltexponativewind;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** NO on the confirmation must leave the radio untouched and no alert behind. */
+@RunWith(RobolectricTestRunner.class)
+public class CancelledConfirmationTest {
+    private AlertPipelineHarness harness;
+
+    @Before
+    public void setUp() {
+        harness = new AlertPipelineHarness("+15550000001;1,+15550000002;1");
+        harness.armDetector();
+    }
+
+    @After
+    public void tearDown() {
+        harness.tearDown();
+    }
+
+    @Test
+    public void noSendsNothing() {
+        harness.shake(3);
+        harness.tap("NO");
+        harness.advance(60 * 1000L);
+
+        assertNull(harness.confirmation());
+        assertTrue(harness.radio.submissions.isEmpty());
+        assertTrue(AlertHistoryStore.get(harness.app).queryAlerts(Long.MAX_VALUE, 1).isEmpty());
+    }
+}
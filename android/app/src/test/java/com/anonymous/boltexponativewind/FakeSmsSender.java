@@ -0,0 +1,122 @@
+package com.anonymous.boltexponativewind;
+
+import android.app.Activity;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.anonymous.boltexponativewind.core.SmsSegmenter;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * SmsSender standing in for the radio. Each SIM can be told to refuse sends outright or to
+ * answer SMS_SENT with a failure code, after a delay on the main looper's (fake) clock. The
+ * SENT and DELIVERED results go out as ordered broadcasts so SmsStatusReceiver reads them
+ * through getResultCode(), as it does on a device.
+ */
+class FakeSmsSender implements SmsSender {
+    static final class Submission {
+        final int subscriptionId;
+        final String phone;
+        final int parts;
+        /** Wall-clock time of the call, for real latency budgets. */
+        final long realTimeMs;
+
+        Submission(int subscriptionId, String phone, int parts, long realTimeMs) {
+            this.subscriptionId = subscriptionId;
+            this.phone = phone;
+            this.parts = parts;
+            this.realTimeMs = realTimeMs;
+        }
+    }
+
+    private final Context context;
+    private final Handler radio = new Handler(Looper.getMainLooper());
+    private final List<Integer> subscriptions;
+    private final Map<Integer, Integer> sentResults = new HashMap<>();
+    private final Map<Integer, Boolean> refusing = new HashMap<>();
+    private long sentDelayMs = 1500;
+    private long deliveredDelayMs = 4000;
+
+    final List<Submission> submissions = new CopyOnWriteArrayList<>();
+
+    FakeSmsSender(Context context, Integer... subscriptions) {
+        this.context = context;
+        this.subscriptions = subscriptions.length > 0
+                ? Arrays.asList(subscriptions) : Collections.singletonList(DEFAULT_SUBSCRIPTION);
+    }
+
+    /** SMS_SENT result code for every send on this SIM, e.g. SmsManager.RESULT_ERROR_NO_SERVICE. */
+    FakeSmsSender failSends(int subscriptionId, int resultCode) {
+        sentResults.put(subscriptionId, resultCode);
+        return this;
+    }
+
+    /** send() on this SIM throws, as SmsManager does when the platform refuses outright. */
+    FakeSmsSender refuse(int subscriptionId) {
+        refusing.put(subscriptionId, true);
+        return this;
+    }
+
+    FakeSmsSender delays(long sentMs, long deliveredMs) {
+        sentDelayMs = sentMs;
+        deliveredDelayMs = deliveredMs;
+        return this;
+    }
+
+    @Override
+    public List<Integer> activeSubscriptions() {
+        return subscriptions;
+    }
+
+    /** SmsSegmenter follows SmsManager.divideMessage's GSM-7 and UCS-2 limits. */
+    @Override
+    public ArrayList<String> divideMessage(String message) {
+        return new ArrayList<>(SmsSegmenter.divide(message));
+    }
+
+    @Override
+    public void send(int subscriptionId, String destination, ArrayList<String> parts,
+                     ArrayList<PendingIntent> sentIntents, ArrayList<PendingIntent> deliveryIntents) {
+        if (Boolean.TRUE.equals(refusing.get(subscriptionId))) {
+            throw new IllegalStateException("SIM " + subscriptionId + " refused the send");
+        }
+        submissions.add(new Submission(subscriptionId, destination, parts.size(), Clock.systemUTC().millis()));
+        Integer failure = sentResults.get(subscriptionId);
+        int sentCode = failure != null ? failure : Activity.RESULT_OK;
+        for (int i = 0; i < parts.size(); i++) {
+            PendingIntent sent = sentIntents != null ? sentIntents.get(i) : null;
+            PendingIntent delivered = deliveryIntents != null ? deliveryIntents.get(i) : null;
+            radio.postDelayed(() -> deliver(sent, sentCode), sentDelayMs);
+            if (sentCode == Activity.RESULT_OK) {
+                radio.postDelayed(() -> deliver(delivered, Activity.RESULT_OK), deliveredDelayMs);
+            }
+        }
+    }
+
+    int submissionsTo(String phone) {
+        int count = 0;
+        for (Submission submission : submissions) {
+            if (submission.phone.equals(phone)) count++;
+        }
+        return count;
+    }
+
+    private void deliver(PendingIntent pendingIntent, int resultCode) {
+        if (pendingIntent == null) return;
+        Intent intent = shadowOf(pendingIntent).getSavedIntent();
+        context.sendOrderedBroadcast(intent, null, null, null, resultCode, null, null);
+    }
+}
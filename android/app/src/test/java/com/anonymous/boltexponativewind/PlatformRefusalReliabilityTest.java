@@ -0,0 +1,50 @@
+package com.anonymous.boltexponativewind;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * SIM 1 throws on every send, as SmsManager does when the platform refuses outright. SimRouter
+ * must move each recipient to SIM 2 within the same dispatch, with no recipient lost.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PlatformRefusalReliabilityTest {
+    private static final int SIM_1 = 1, SIM_2 = 2;
+
+    private AlertPipelineHarness harness;
+
+    @Before
+    public void setUp() {
+        harness = new AlertPipelineHarness("+15550000001;1,+15550000002;2", SIM_1, SIM_2);
+        harness.radio.refuse(SIM_1);
+        harness.armDetector();
+    }
+
+    @After
+    public void tearDown() {
+        harness.tearDown();
+    }
+
+    @Test
+    public void refusedSimLosesNoRecipient() throws Exception {
+        harness.shake(3);
+        harness.tap("YES");
+        harness.awaitSubmissions(harness.recipients.size(), 3000);
+
+        AlertHistoryStore.Alert alert = harness.awaitAlertSettled(20000);
+        assertEquals(AlertHistoryStore.STATUS_SENT, alert.status);
+        assertEquals(harness.recipients.size(), alert.recipients.size());
+        for (AlertHistoryStore.Recipient recipient : alert.recipients) {
+            assertEquals(recipient.phone, AlertHistoryStore.RECIPIENT_DELIVERED, recipient.status);
+            assertEquals(recipient.phone, 1, harness.radio.submissionsTo(recipient.phone));
+        }
+        for (FakeSmsSender.Submission submission : harness.radio.submissions) {
+            assertEquals(SIM_2, submission.subscriptionId);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.anonymous.boltexponativewind;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A local stand-in for the relay answers "accepted" for everyone it is given. That is no
+ * delivery receipt, so each recipient must still get the SMS and be confirmed by it. The relay
+ * is only given tier 1; tier 2 is left to the paced SMS.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RelayAcceptedReliabilityTest {
+    private static final String TIER_1 = "+15550000001";
+    private static final String TIER_2 = "+15550000002";
+
+    private final List<String> relayed = new CopyOnWriteArrayList<>();
+    private AlertPipelineHarness harness;
+    private HttpServer relay;
+
+    @Before
+    public void setUp() throws Exception {
+        harness = new AlertPipelineHarness(TIER_1 + ";1," + TIER_2 + ";2");
+
+        relay = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        relay.createContext("/api/alerts/relay", exchange -> {
+            JSONArray acks = new JSONArray();
+            try {
+                JSONArray recipients = new JSONObject(read(exchange.getRequestBody())).getJSONArray("recipients");
+                for (int i = 0; i < recipients.length(); i++) {
+                    relayed.add(recipients.getString(i));
+                    acks.put(new JSONObject().put("phone", recipients.getString(i)).put("status", "accepted"));
+                }
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+            byte[] response = ("{\"acks\":" + acks + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        relay.createContext("/api/alerts/relay/cancel", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        relay.start();
+        SharedStateFile.get(harness.app, SharedStateFile.CONFIG).putAll(Collections.singletonMap(
+                DirectBoot.KEY_API_BASE, "http://127.0.0.1:" + relay.getAddress().getPort()));
+
+        harness.armDetector();
+    }
+
+    @After
+    public void tearDown() {
+        harness.tearDown();
+        relay.stop(0);
+    }
+
+    @Test
+    public void acceptedByRelayStillGetsSms() throws Exception {
+        harness.shake(3);
+        harness.tap("YES");
+
+        AlertHistoryStore.Alert alert = harness.awaitAlertSettled(20000);
+        assertEquals(AlertHistoryStore.STATUS_SENT, alert.status);
+        assertEquals(Collections.singletonList(TIER_1), relayed);
+        assertEquals(1, harness.radio.submissionsTo(TIER_1));
+        assertEquals(1, harness.radio.submissionsTo(TIER_2));
+        for (AlertHistoryStore.Recipient recipient : alert.recipients) {
+            if (recipient.phone.equals(TIER_1)) assertEquals(HedgedDispatch.CHANNEL_SMS, recipient.channel);
+        }
+    }
+
+    private static String read(InputStream body) throws Exception {
+        try (InputStream in = body) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[1024];
+            int n;
+            while ((n = in.read(buf)) != -1) out.write(buf, 0, n);
+            return out.toString(StandardCharsets.UTF_8.name());
+        }
+    }
+}
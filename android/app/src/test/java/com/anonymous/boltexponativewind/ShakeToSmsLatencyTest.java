@@ -0,0 +1,66 @@
+package com.anonymous.boltexponativewind;
+
+import android.app.Notification;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Happy path with latency budgets. The budgets are loose for a JVM on purpose: they catch a
+ * blocking wait creeping onto the path (a location fix, a quota sleep), not device speed.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ShakeToSmsLatencyTest {
+    private static final long CONFIRMATION_BUDGET_MS = 250;
+    private static final long TAP_TO_ALL_SUBMITTED_BUDGET_MS = 3000;
+
+    private AlertPipelineHarness harness;
+
+    @Before
+    public void setUp() {
+        harness = new AlertPipelineHarness("+15550000001;1,+15550000002;2");
+        harness.armDetector();
+    }
+
+    @After
+    public void tearDown() {
+        harness.tearDown();
+    }
+
+    @Test
+    public void tripleShakeThenYesReachesEveryContact() throws Exception {
+        harness.shake(2);
+        assertNull("two shakes must not prompt", harness.confirmation());
+
+        harness.shake(1);
+        Notification confirmation = harness.confirmation();
+        assertNotNull(confirmation);
+        long toConfirmation = AlertPipelineHarness.realTimeMs() - harness.triggeredAtRealMs;
+        assertTrue("confirmation took " + toConfirmation + " ms", toConfirmation <= CONFIRMATION_BUDGET_MS);
+
+        harness.tap("YES");
+        harness.awaitSubmissions(harness.recipients.size(), TAP_TO_ALL_SUBMITTED_BUDGET_MS);
+        long toLastSubmit = harness.radio.submissions.get(harness.recipients.size() - 1).realTimeMs
+                - harness.tappedAtRealMs;
+        assertTrue("all contacts handed to the radio after " + toLastSubmit + " ms",
+                toLastSubmit <= TAP_TO_ALL_SUBMITTED_BUDGET_MS);
+        // Tier 1 goes out before tier 2
+        assertEquals("+15550000002", harness.radio.submissions.get(1).phone);
+
+        AlertHistoryStore.Alert alert = harness.awaitAlertSettled(20000);
+        assertEquals(AlertHistoryStore.STATUS_SENT, alert.status);
+        assertEquals(harness.recipients.size(), alert.recipients.size());
+        for (AlertHistoryStore.Recipient recipient : alert.recipients) {
+            assertEquals(recipient.phone, AlertHistoryStore.RECIPIENT_DELIVERED, recipient.status);
+            assertEquals(recipient.phone, 1, harness.radio.submissionsTo(recipient.phone));
+        }
+    }
+}
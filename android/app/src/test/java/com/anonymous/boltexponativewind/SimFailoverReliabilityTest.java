@@ -0,0 +1,85 @@
+package com.anonymous.boltexponativewind;
+
+import android.telephony.SmsManager;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * SIM 1 has no service: every send it takes comes back RESULT_ERROR_NO_SERVICE. Each recipient
+ * routed to it must be resent on SIM 2 and end up delivered, including when tier 1 alone is past
+ * the SMS quota's burst and the resends find the bucket in debt.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SimFailoverReliabilityTest {
+    private static final int SIM_1 = 1, SIM_2 = 2;
+    private static final long SENT_DELAY_MS = 2000;
+
+    private AlertPipelineHarness harness;
+
+    private void start(String contacts) {
+        harness = new AlertPipelineHarness(contacts, SIM_1, SIM_2);
+        harness.radio.failSends(SIM_1, SmsManager.RESULT_ERROR_NO_SERVICE).delays(SENT_DELAY_MS, 5000);
+        harness.armDetector();
+    }
+
+    @After
+    public void tearDown() {
+        harness.tearDown();
+    }
+
+    @Test
+    public void noServiceOnOneSimLosesNoRecipient() throws Exception {
+        start("+15550000001;1");
+        harness.shake(3);
+        harness.tap("YES");
+        harness.awaitSubmissions(harness.recipients.size(), 3000);
+
+        assertEquals(SIM_1, harness.radio.submissions.get(0).subscriptionId);
+
+        // SIM 1's failure arrives and the recipient is resent on SIM 2
+        harness.advance(SENT_DELAY_MS);
+        harness.awaitSubmissions(2, 1000);
+
+        assertAllDelivered(harness.awaitAlertSettled(20000));
+        assertEquals(SIM_2, harness.radio.submissions.get(1).subscriptionId);
+    }
+
+    @Test
+    public void noServiceWithTierOnePastTheBurstLosesNoRecipient() throws Exception {
+        // Three five-part alerts are 15 parts against a burst of 12, before any resend
+        start("+15550000001;1,+15550000002;1,+15550000003;1");
+        harness.shake(3);
+        harness.tap("YES");
+        harness.awaitSubmissions(harness.recipients.size(), 3000);
+
+        // Round-robin put the first and third on SIM 1; both are resent on SIM 2
+        harness.advance(SENT_DELAY_MS);
+        harness.awaitSubmissions(harness.recipients.size() + 2, 1000);
+
+        assertAllDelivered(harness.awaitAlertSettled(20000));
+        for (String phone : harness.recipients) {
+            assertEquals(phone, 1, countOn(SIM_2, phone));
+        }
+    }
+
+    private void assertAllDelivered(AlertHistoryStore.Alert alert) {
+        assertEquals(AlertHistoryStore.STATUS_SENT, alert.status);
+        assertEquals(harness.recipients.size(), alert.recipients.size());
+        for (AlertHistoryStore.Recipient recipient : alert.recipients) {
+            assertEquals(recipient.phone, AlertHistoryStore.RECIPIENT_DELIVERED, recipient.status);
+        }
+    }
+
+    private int countOn(int subscriptionId, String phone) {
+        int count = 0;
+        for (FakeSmsSender.Submission submission : harness.radio.submissions) {
+            if (submission.subscriptionId == subscriptionId && submission.phone.equals(phone)) count++;
+        }
+        return count;
+    }
+}
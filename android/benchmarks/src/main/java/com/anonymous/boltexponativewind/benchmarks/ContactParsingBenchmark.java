@@ -0,0 +1,68 @@
+package com.anonymous.boltexponativewind.benchmarks;
+
+import com.anonymous.boltexponativewind.core.AsyncStorageContacts;
+import com.anonymous.boltexponativewind.core.TieredContacts;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contact parsing from both stored formats: the mirrored "phone;tier" list that
+ * EmergencyDispatchService reads, and the AsyncStorage dump EmergencyAlertService scans.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ContactParsingBenchmark {
+    @Param({ "3", "20" })
+    public int contacts;
+
+    private String mirrored;
+    private String asyncStorageDump;
+
+    @Setup
+    public void setUp() {
+        StringBuilder list = new StringBuilder();
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < contacts; i++) {
+            String phone = String.valueOf(9876500000L + i * 7919L);
+            if (i > 0) {
+                list.append(',');
+                json.append(',');
+            }
+            list.append(i % 3 == 0 ? phone : "+91" + phone).append(';').append(1 + i % 3);
+            json.append("{\"id\":\"").append(1700000000000L + i).append("\",\"name\":\"Contact ").append(i)
+                    .append("\",\"phone\":\"").append(phone).append("\"}");
+        }
+        json.append(']');
+        mirrored = list.toString();
+        // Other AsyncStorage entries around ours, as in the real file
+        asyncStorageDump = "@safeher_user{\"id\":42,\"email\":\"user@example.com\"}"
+                + AsyncStorageContacts.STORAGE_KEY + json + "@safeher_settings{\"theme\":\"light\"}";
+    }
+
+    @Benchmark
+    public List<TieredContacts.Contact> mirroredList() {
+        return TieredContacts.parse(mirrored);
+    }
+
+    @Benchmark
+    public List<String> asyncStorage() {
+        return AsyncStorageContacts.parse(asyncStorageDump);
+    }
+}
@@ -0,0 +1,90 @@
+package com.anonymous.boltexponativewind.benchmarks;
+
+import com.anonymous.boltexponativewind.core.AlertDispatcher;
+import com.anonymous.boltexponativewind.core.Clock;
+import com.anonymous.boltexponativewind.core.Outbox;
+import com.anonymous.boltexponativewind.core.SendScheduler;
+import com.anonymous.boltexponativewind.core.SmsSink;
+import com.anonymous.boltexponativewind.core.TieredContacts;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recipient fan-out overhead (outbox, scheduler, listener) against a sink that only counts.
+ * The clock jumps a full refill per reading, so the quota never blocks and what is measured
+ * is our own bookkeeping, not the platform's wait.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FanOutBenchmark {
+    @Param({ "3", "20" })
+    public int recipients;
+
+    private List<TieredContacts.Contact> contacts;
+    private final List<String> parts = Arrays.asList("part one", "part two");
+    private AlertDispatcher dispatcher;
+    private int sent;
+
+    private final AlertDispatcher.Listener listener = new AlertDispatcher.Listener() {
+        @Override
+        public boolean isAlreadyReached(String phone) {
+            return false;
+        }
+
+        @Override
+        public void onTierStarted(int tier, int queued, long etaMs) {
+        }
+
+        @Override
+        public void onRecipientResult(String phone, String status) {
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        StringBuilder list = new StringBuilder();
+        for (int i = 0; i < recipients; i++) {
+            if (i > 0) list.append(',');
+            list.append(9876500000L + i).append(';').append(1 + i % 3);
+        }
+        contacts = TieredContacts.parse(list.toString());
+        Clock jumpingClock = new Clock() {
+            private long elapsed;
+
+            @Override
+            public long elapsedRealtime() {
+                return elapsed += SendScheduler.PLATFORM_WINDOW_MS;
+            }
+
+            @Override
+            public long currentTimeMillis() {
+                return elapsed;
+            }
+        };
+        SmsSink countingSink = (phone, smsParts) -> sent += smsParts.size();
+        dispatcher = new AlertDispatcher(countingSink, new SendScheduler(jumpingClock));
+    }
+
+    @Benchmark
+    public int dispatch() {
+        return dispatcher.dispatch(new Outbox(contacts), parts, listener) + sent;
+    }
+}
@@ -0,0 +1,70 @@
+package com.anonymous.boltexponativewind.benchmarks;
+
+import com.anonymous.boltexponativewind.core.AlertComposer;
+import com.anonymous.boltexponativewind.core.AlertTemplate;
+import com.anonymous.boltexponativewind.core.LocationSource;
+import com.anonymous.boltexponativewind.core.SmsSegmenter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/** Building the alert text and cutting it into SMS parts, as done once per dispatch. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageBenchmark {
+    private static final String ADDRESS = "12, MG Road, Shanthala Nagar, Ashok Nagar, Bengaluru, Karnataka 560001, India";
+    private static final String TRAIL = "https://www.google.com/maps/dir/12.9716,77.5946/12.9721,77.5952/12.9730,77.5961";
+
+    private final LocationSource.Fix fix = new LocationSource.Fix(12.971599, 77.594566, 12f, 0L);
+    private static final String CUSTOM = "SOS {time}: {address} ({coords}) {maps}{#trail} via {trail}{/trail}{#note}. {note}{/note}";
+
+    private AlertComposer composer;
+    private AlertComposer customComposer;
+    private String composed;
+
+    @Setup
+    public void setUp() {
+        composer = new AlertComposer(Locale.US, TimeZone.getTimeZone("Asia/Kolkata"));
+        customComposer = new AlertComposer(AlertTemplate.compile(CUSTOM), Locale.US,
+                TimeZone.getTimeZone("Asia/Kolkata"), "Asthmatic, inhaler in bag");
+        composed = composer.compose(System.currentTimeMillis(), fix, ADDRESS, TRAIL);
+    }
+
+    @Benchmark
+    public String compose() {
+        return composer.compose(System.currentTimeMillis(), fix, ADDRESS, TRAIL);
+    }
+
+    /** A user template with every slot; compiled once in setUp, as AlertMessages caches it. */
+    @Benchmark
+    public String composeCustomTemplate() {
+        return customComposer.compose(System.currentTimeMillis(), fix, ADDRESS, TRAIL);
+    }
+
+    @Benchmark
+    public List<String> segment() {
+        return SmsSegmenter.divide(composed);
+    }
+
+    @Benchmark
+    public List<String> composeAndSegment() {
+        return SmsSegmenter.divide(composer.compose(System.currentTimeMillis(), fix, ADDRESS, TRAIL));
+    }
+}
@@ -0,0 +1,75 @@
+package com.anonymous.boltexponativewind.benchmarks;
+
+import com.anonymous.boltexponativewind.core.ShakeDetector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one accelerometer sample through the detector; this runs ~16 times a second for as
+ * long as the app is armed. A steady stream of samples replays a recorded-like trace:
+ * mostly gravity plus noise, with a burst of shakes every few seconds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShakeDetectorBenchmark {
+    private static final int TRACE = 4096; // ~4 minutes at SENSOR_DELAY_UI
+    private static final long SAMPLE_MS = 60;
+
+    private final float[] x = new float[TRACE];
+    private final float[] y = new float[TRACE];
+    private final float[] z = new float[TRACE];
+    private ShakeDetector detector;
+    private int next;
+    private long now;
+    private int triggers;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < TRACE; i++) {
+            boolean shake = i % 400 < 30 && i % 10 == 0;
+            x[i] = (float) random.nextGaussian() * (shake ? 25f : 0.3f);
+            y[i] = (float) random.nextGaussian() * (shake ? 25f : 0.3f);
+            z[i] = 9.81f + (float) random.nextGaussian() * 0.3f;
+        }
+        detector = new ShakeDetector(new ShakeDetector.Listener() {
+            @Override
+            public void onSample(long timestampMs, int shakeCount) {
+            }
+
+            @Override
+            public void onShake(int shakeCount) {
+            }
+
+            @Override
+            public void onTripleShake() {
+                triggers++;
+            }
+        });
+    }
+
+    @Benchmark
+    public int sample() {
+        int i = next;
+        next = (i + 1) & (TRACE - 1);
+        now += SAMPLE_MS;
+        detector.onAcceleration(now, x[i], y[i], z[i]);
+        return detector.shakeCount() + triggers;
+    }
+}
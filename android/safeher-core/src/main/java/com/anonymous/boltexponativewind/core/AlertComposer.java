@@ -0,0 +1,175 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.text.FieldPosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Builds the emergency SMS text from an AlertTemplate: the user's own, or the built-in one for
+ * the locale. The date format, Date and output builder are created once and reused, so a
+ * cached composer renders an alert with a single String allocation. Thread-safe; compose()
+ * is synchronized since those buffers are shared.
+ */
+public class AlertComposer implements AlertTemplate.Slots {
+    public static final String LOCATION_UNAVAILABLE = "Location unavailable";
+
+    private static final String MAPS_PREFIX = "https://www.google.com/maps/search/?api=1&query=";
+    private static final String TIME_PATTERN = "dd/MM/yyyy, hh:mm:ss a";
+
+    public static final String DEFAULT_TEMPLATE = "🚨 EMERGENCY ALERT from SafeHer\n\n"
+            + "I NEED HELP IMMEDIATELY!\n\n"
+            + "Time: {time}\n"
+            + "Location: {address}\n\n"
+            + "Google Maps: {maps}\n\n"
+            + "{#trail}Recent path: {trail}\n\n{/trail}"
+            + "{#note}{note}\n\n{/note}"
+            + "Please check on me or call emergency services!\n\n"
+            + "- Sent automatically by SafeHer";
+
+    // Per language: template and the text for a missing location
+    private static final String[][] BUILT_IN = {
+            { "en", DEFAULT_TEMPLATE, LOCATION_UNAVAILABLE },
+            { "hi", "🚨 SafeHer से आपातकालीन अलर्ट\n\n"
+                    + "मुझे तुरंत मदद चाहिए!\n\n"
+                    + "समय: {time}\n"
+                    + "स्थान: {address}\n\n"
+                    + "Google Maps: {maps}\n\n"
+                    + "{#trail}हाल का रास्ता: {trail}\n\n{/trail}"
+                    + "{#note}{note}\n\n{/note}"
+                    + "कृपया मेरी खबर लें या आपातकालीन सेवाओं को कॉल करें!\n\n"
+                    + "- SafeHer द्वारा स्वचालित रूप से भेजा गया",
+                    "स्थान उपलब्ध नहीं" },
+    };
+    private static final Map<String, AlertTemplate> builtInTemplates = new HashMap<>();
+    private static final Map<String, String> unavailableTexts = new HashMap<>();
+
+    static {
+        for (String[] entry : BUILT_IN) {
+            builtInTemplates.put(entry[0], AlertTemplate.compile(entry[1]));
+            unavailableTexts.put(entry[0], entry[2]);
+        }
+    }
+
+    private final AlertTemplate template;
+    private final String unavailable;
+    private final String note;
+    private final SimpleDateFormat timeFormat;
+    private final Date date = new Date();
+    private final StringBuffer timeText = new StringBuffer(32);
+    private final FieldPosition timeField = new FieldPosition(0);
+    private final StringBuilder out;
+
+    // The alert being composed; only valid inside compose()
+    private long timeMs;
+    private LocationSource.Fix fix;
+    private String address;
+    private String trailLink;
+
+    public AlertComposer(Locale locale, TimeZone timeZone) {
+        this(builtIn(locale), locale, timeZone, null);
+    }
+
+    /** @param note the user's own line for the {note} slot, or null */
+    public AlertComposer(AlertTemplate template, Locale locale, TimeZone timeZone, String note) {
+        this.template = template;
+        this.unavailable = unavailableTexts.getOrDefault(locale.getLanguage(), LOCATION_UNAVAILABLE);
+        this.note = note != null && !note.isEmpty() ? note : null;
+        timeFormat = new SimpleDateFormat(TIME_PATTERN, locale);
+        timeFormat.setTimeZone(timeZone);
+        out = new StringBuilder(template.literalLength() + 256);
+    }
+
+    /** The built-in template for the locale's language; English when there is none. */
+    public static AlertTemplate builtIn(Locale locale) {
+        AlertTemplate template = builtInTemplates.get(locale.getLanguage());
+        return template != null ? template : builtInTemplates.get("en");
+    }
+
+    public AlertTemplate template() {
+        return template;
+    }
+
+    /** Fallback address text when geocoding gives nothing. */
+    public static String coordinates(double latitude, double longitude) {
+        return appendCoordinates(new StringBuilder(40), latitude, longitude).toString();
+    }
+
+    private static StringBuilder appendCoordinates(StringBuilder out, double latitude, double longitude) {
+        return out.append("Lat: ").append(latitude).append(", Lon: ").append(longitude);
+    }
+
+    /**
+     * @param fix where the user is, or null if unknown
+     * @param address geocoded address, or null to fall back to coordinates
+     * @param trailLink link to the recent path, or null to leave it out
+     */
+    public synchronized String compose(long timeMs, LocationSource.Fix fix, String address, String trailLink) {
+        this.timeMs = timeMs;
+        this.fix = fix;
+        this.address = address;
+        this.trailLink = trailLink;
+        try {
+            out.setLength(0);
+            template.render(this, out);
+            return out.toString();
+        } finally {
+            this.fix = null;
+            this.address = null;
+            this.trailLink = null;
+        }
+    }
+
+    @Override
+    public boolean has(int slot) {
+        switch (slot) {
+            case AlertTemplate.COORDINATES:
+                return fix != null;
+            case AlertTemplate.TRAIL:
+                return trailLink != null;
+            case AlertTemplate.NOTE:
+                return note != null;
+            default:
+                return true;
+        }
+    }
+
+    @Override
+    public void append(int slot, StringBuilder out) {
+        double latitude = fix != null ? fix.latitude : 0.0;
+        double longitude = fix != null ? fix.longitude : 0.0;
+        switch (slot) {
+            case AlertTemplate.TIME:
+                date.setTime(timeMs);
+                timeText.setLength(0);
+                out.append(timeFormat.format(date, timeText, timeField));
+                break;
+            case AlertTemplate.COORDINATES:
+                out.append(latitude).append(',').append(longitude);
+                break;
+            case AlertTemplate.ADDRESS:
+                if (address != null) {
+                    out.append(address);
+                } else if (fix != null) {
+                    appendCoordinates(out, latitude, longitude);
+                } else {
+                    out.append(unavailable);
+                }
+                break;
+            case AlertTemplate.MAPS_LINK:
+                out.append(MAPS_PREFIX).append(latitude).append(',').append(longitude);
+                break;
+            case AlertTemplate.TRAIL:
+                if (trailLink != null) out.append(trailLink);
+                break;
+            case AlertTemplate.NOTE:
+                if (note != null) out.append(note);
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.util.List;
+
+/**
+ * The per-recipient send loop: walks an Outbox in order, paces sends through the
+ * SendScheduler and hands each one to the SmsSink. Tier 1 is never paced; its parts are
+ * taken from the quota so that only the lower tiers wait. Used by both the native dispatch and
+ * JS-started SMS jobs; everything Android-specific happens in the Listener.
+ */
+public class AlertDispatcher {
+    public interface Listener {
+        /** True when another channel already reached this recipient, so no SMS is needed. */
+        boolean isAlreadyReached(String phone);
+
+        /** The loop moved on to a lower tier; {@code etaMs} is the quota wait for everyone left. */
+        void onTierStarted(int tier, int queued, long etaMs);
+
+        void onRecipientResult(String phone, String status);
+    }
+
+    private final SmsSink sink;
+    private final SendScheduler scheduler;
+
+    public AlertDispatcher(SmsSink sink, SendScheduler scheduler) {
+        this.sink = sink;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sends {@code parts} to every recipient still waiting in {@code outbox}. An interrupt
+     * cancels the rest, and so does Outbox.cancel() from another thread.
+     *
+     * @return the number of recipients handed to the radio
+     */
+    public int dispatch(Outbox outbox, List<String> parts, Listener listener) {
+        int submitted = 0;
+        int currentTier = TieredContacts.TIER_IMMEDIATE;
+        List<Outbox.Entry> entries = outbox.entries();
+        for (int position = 0; position < entries.size(); position++) {
+            Outbox.Entry entry = entries.get(position);
+            String state = outbox.state(entry.phone);
+            if (!Outbox.PENDING.equals(state) && !Outbox.QUEUED.equals(state)) continue;
+
+            String result;
+            if (outbox.isCancelled()) {
+                result = Outbox.CANCELLED;
+            } else if (listener.isAlreadyReached(entry.phone)) {
+                continue;
+            } else {
+                if (entry.tier != currentTier) {
+                    currentTier = entry.tier;
+                    int queued = entries.size() - position;
+                    listener.onTierStarted(currentTier, queued, scheduler.estimateWaitMs(queued * parts.size()));
+                }
+                try {
+                    if (entry.tier == TieredContacts.TIER_IMMEDIATE) {
+                        scheduler.take(parts.size());
+                    } else {
+                        // Blocks while over the platform quota
+                        scheduler.acquire(parts.size());
+                    }
+                    sink.send(entry.phone, parts);
+                    submitted++;
+                    result = Outbox.SUBMITTED;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    outbox.cancel();
+                    result = Outbox.CANCELLED;
+                } catch (Exception e) {
+                    result = Outbox.FAILED;
+                }
+            }
+            // A radio callback may already have moved it further; then there is nothing to report
+            if (outbox.transition(entry.phone, result)) {
+                listener.onRecipientResult(entry.phone, result);
+            }
+        }
+        return submitted;
+    }
+}
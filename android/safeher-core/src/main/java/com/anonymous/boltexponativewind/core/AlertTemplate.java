@@ -0,0 +1,159 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A user-editable alert text, parsed once into a flat program of literal runs and typed slots.
+ * Rendering walks that program into a caller-supplied StringBuilder; it never re-parses and
+ * allocates nothing of its own, so a compiled template is immutable and can be shared.
+ *
+ * Syntax: {time}, {coords}, {address}, {maps}, {trail} and {note} are replaced by the slot's
+ * value. {#name}...{/name} is kept only when that slot has a value, e.g. to drop the
+ * "Recent path" line when there is no trail. {{ and }} stand for literal braces.
+ */
+public final class AlertTemplate {
+    public static final int TIME = 0, COORDINATES = 1, ADDRESS = 2, MAPS_LINK = 3, TRAIL = 4, NOTE = 5;
+    private static final String[] SLOT_NAMES = { "time", "coords", "address", "maps", "trail", "note" };
+
+    /** Supplies slot values while rendering. */
+    public interface Slots {
+        /** False when the slot has nothing to show; {#slot} sections are then skipped. */
+        boolean has(int slot);
+
+        void append(int slot, StringBuilder out);
+    }
+
+    private static final int OP_TEXT = 0, OP_SLOT = 1, OP_SECTION = 2;
+
+    private final String source;
+    private final int[] ops;
+    // OP_TEXT: index into literals; OP_SLOT and OP_SECTION: the slot
+    private final int[] args;
+    // OP_SECTION: index of the last op inside the section
+    private final int[] sectionEnds;
+    private final String[] literals;
+    private final int literalLength;
+
+    private AlertTemplate(String source, int[] ops, int[] args, int[] sectionEnds, String[] literals) {
+        this.source = source;
+        this.ops = ops;
+        this.args = args;
+        this.sectionEnds = sectionEnds;
+        this.literals = literals;
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+    }
+
+    /** @throws IllegalArgumentException on an unknown slot, a stray brace or an unclosed section */
+    public static AlertTemplate compile(String source) {
+        List<Integer> ops = new ArrayList<>();
+        List<Integer> args = new ArrayList<>();
+        List<Integer> ends = new ArrayList<>();
+        List<String> literals = new ArrayList<>();
+        // Open sections: slot and index of their OP_SECTION
+        List<int[]> open = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if ((c == '{' || c == '}') && i + 1 < source.length() && source.charAt(i + 1) == c) {
+                text.append(c);
+                i += 2;
+                continue;
+            }
+            if (c == '}') throw new IllegalArgumentException("Unmatched '}' at " + i);
+            if (c != '{') {
+                text.append(c);
+                i++;
+                continue;
+            }
+
+            int close = source.indexOf('}', i);
+            if (close < 0) throw new IllegalArgumentException("Unclosed '{' at " + i);
+            String tag = source.substring(i + 1, close);
+            char kind = tag.isEmpty() ? 0 : tag.charAt(0);
+            int slot = slot(kind == '#' || kind == '/' ? tag.substring(1) : tag, i);
+            if (text.length() > 0) {
+                ops.add(OP_TEXT);
+                args.add(literals.size());
+                ends.add(0);
+                literals.add(text.toString());
+                text.setLength(0);
+            }
+            if (kind == '#') {
+                open.add(new int[] { slot, ops.size() });
+                ops.add(OP_SECTION);
+                args.add(slot);
+                ends.add(0);
+            } else if (kind == '/') {
+                int[] section = open.isEmpty() ? null : open.remove(open.size() - 1);
+                if (section == null || section[0] != slot) {
+                    throw new IllegalArgumentException("Unexpected {/" + SLOT_NAMES[slot] + "} at " + i);
+                }
+                ends.set(section[1], ops.size() - 1);
+            } else {
+                ops.add(OP_SLOT);
+                args.add(slot);
+                ends.add(0);
+            }
+            i = close + 1;
+        }
+        if (!open.isEmpty()) {
+            throw new IllegalArgumentException("Unclosed {#" + SLOT_NAMES[open.get(open.size() - 1)[0]] + "}");
+        }
+        if (text.length() > 0) {
+            ops.add(OP_TEXT);
+            args.add(literals.size());
+            ends.add(0);
+            literals.add(text.toString());
+        }
+
+        int[] opArray = new int[ops.size()];
+        int[] argArray = new int[ops.size()];
+        int[] endArray = new int[ops.size()];
+        for (int op = 0; op < opArray.length; op++) {
+            opArray[op] = ops.get(op);
+            argArray[op] = args.get(op);
+            endArray[op] = ends.get(op);
+        }
+        return new AlertTemplate(source, opArray, argArray, endArray, literals.toArray(new String[0]));
+    }
+
+    private static int slot(String name, int position) {
+        for (int slot = 0; slot < SLOT_NAMES.length; slot++) {
+            if (SLOT_NAMES[slot].equals(name)) return slot;
+        }
+        throw new IllegalArgumentException("Unknown slot {" + name + "} at " + position);
+    }
+
+    /** Appends the rendered text to out. */
+    public void render(Slots slots, StringBuilder out) {
+        for (int op = 0; op < ops.length; op++) {
+            switch (ops[op]) {
+                case OP_TEXT:
+                    out.append(literals[args[op]]);
+                    break;
+                case OP_SLOT:
+                    slots.append(args[op], out);
+                    break;
+                case OP_SECTION:
+                    if (!slots.has(args[op])) op = sectionEnds[op];
+                    break;
+                default:
+                    throw new IllegalStateException("Bad op " + ops[op]);
+            }
+        }
+    }
+
+    /** Length of the fixed text; a starting capacity for the output builder. */
+    public int literalLength() {
+        return literalLength;
+    }
+
+    public String source() {
+        return source;
+    }
+}
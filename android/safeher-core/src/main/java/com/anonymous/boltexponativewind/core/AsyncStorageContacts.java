@@ -0,0 +1,70 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads phone numbers out of a raw dump of React Native's AsyncStorage ("RKStorage"), the
+ * format EmergencyAlertService falls back to: the "@safeher_emergency_contacts" entry holds a
+ * JSON array of {id, name, phone} objects. Only the "phone" strings are extracted, so the
+ * surrounding bytes don't have to be valid JSON.
+ */
+public class AsyncStorageContacts {
+    public static final String STORAGE_KEY = "@safeher_emergency_contacts";
+
+    private static final String PHONE_FIELD = "\"phone\"";
+
+    public static List<String> parse(String dump) {
+        List<String> phones = new ArrayList<>();
+        if (dump == null) return phones;
+        int key = dump.indexOf(STORAGE_KEY);
+        if (key < 0) return phones;
+        int start = dump.indexOf('[', key);
+        if (start < 0) return phones;
+        int end = dump.indexOf(']', start);
+        if (end < 0) end = dump.length();
+
+        int at = start;
+        while ((at = dump.indexOf(PHONE_FIELD, at)) >= 0 && at < end) {
+            int colon = skipSpaces(dump, at + PHONE_FIELD.length());
+            if (colon >= end || dump.charAt(colon) != ':') {
+                at += PHONE_FIELD.length();
+                continue;
+            }
+            int quote = skipSpaces(dump, colon + 1);
+            if (quote >= end || dump.charAt(quote) != '"') {
+                at = quote;
+                continue;
+            }
+            StringBuilder phone = new StringBuilder(16);
+            at = readString(dump, quote + 1, phone);
+            if (phone.length() > 0) phones.add(phone.toString());
+        }
+        return phones;
+    }
+
+    private static int skipSpaces(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+        return i;
+    }
+
+    /** Reads a JSON string body up to the closing quote; returns the index after it. */
+    private static int readString(String s, int i, StringBuilder out) {
+        while (i < s.length()) {
+            char c = s.charAt(i++);
+            if (c == '"') return i;
+            if (c == '\\' && i < s.length()) {
+                char escaped = s.charAt(i++);
+                if (escaped == 'u' && i + 4 <= s.length()) {
+                    out.append((char) Integer.parseInt(s.substring(i, i + 4), 16));
+                    i += 4;
+                } else {
+                    out.append(escaped);
+                }
+            } else {
+                out.append(c);
+            }
+        }
+        return i;
+    }
+}
@@ -0,0 +1,32 @@
+package com.anonymous.boltexponativewind.core;
+
+/** Time source; the app passes SystemClock-backed time, tests pass a fake. */
+public interface Clock {
+    /** Monotonic milliseconds, including deep sleep on Android. */
+    long elapsedRealtime();
+
+    /** Wall-clock milliseconds since the epoch. */
+    long currentTimeMillis();
+
+    /** elapsedRealtime in nanoseconds, the clock Perfetto traces are stamped with. */
+    default long elapsedRealtimeNanos() {
+        return elapsedRealtime() * 1_000_000L;
+    }
+
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long elapsedRealtime() {
+            return System.nanoTime() / 1_000_000L;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public long elapsedRealtimeNanos() {
+            return System.nanoTime();
+        }
+    };
+}
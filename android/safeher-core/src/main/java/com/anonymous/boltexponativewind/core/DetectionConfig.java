@@ -0,0 +1,99 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The tunable detection parameters as one immutable snapshot. ShakeDetector reads its snapshot
+ * once per sample, so swapping in a new one takes effect on the next sample without locking the
+ * sensor thread. Values arrive as the strings stored under KEYS; a missing, malformed or
+ * out-of-range value keeps its default rather than rejecting the whole config.
+ */
+public final class DetectionConfig {
+    public static final String KEY_THRESHOLD_G = "shake_threshold_g";
+    public static final String KEY_SLOP_MS = "shake_slop_ms";
+    public static final String KEY_RESET_MS = "shake_reset_ms";
+    public static final String KEY_COUNT = "shake_count";
+    public static final String KEY_MODE = "shake_mode";
+    public static final String KEY_SAMPLING_US = "shake_sampling_us";
+    public static final String[] KEYS = {
+            KEY_THRESHOLD_G, KEY_SLOP_MS, KEY_RESET_MS, KEY_COUNT, KEY_MODE, KEY_SAMPLING_US };
+
+    /** Total acceleration with gravity included, as detection has always worked. */
+    public static final String MODE_MAGNITUDE = "magnitude";
+    /** Gravity removed by a low-pass filter first, so holding the phone still never contributes. */
+    public static final String MODE_LINEAR = "linear";
+
+    /** SensorManager.SENSOR_DELAY_UI expressed as a period. */
+    public static final int DEFAULT_SAMPLING_US = 66_667;
+
+    private static final float STANDARD_GRAVITY = 9.80665F;
+
+    public static final DetectionConfig DEFAULT = new DetectionConfig(ShakeDetector.THRESHOLD_GRAVITY,
+            ShakeDetector.SLOP_TIME_MS, ShakeDetector.COUNT_RESET_TIME_MS, ShakeDetector.COUNT_THRESHOLD,
+            MODE_MAGNITUDE, DEFAULT_SAMPLING_US);
+
+    public final float thresholdG;
+    public final int slopMs;
+    public final int resetMs;
+    public final int count;
+    public final String mode;
+    public final int samplingPeriodUs;
+
+    // Precomputed for the hot path, which compares squared magnitudes and needs no sqrt
+    final double thresholdSquared;
+    final boolean linear;
+
+    public DetectionConfig(float thresholdG, int slopMs, int resetMs, int count, String mode, int samplingPeriodUs) {
+        this.thresholdG = thresholdG;
+        this.slopMs = slopMs;
+        this.resetMs = resetMs;
+        this.count = count;
+        this.mode = mode;
+        this.samplingPeriodUs = samplingPeriodUs;
+        double threshold = (double) thresholdG * STANDARD_GRAVITY;
+        this.thresholdSquared = threshold * threshold;
+        this.linear = MODE_LINEAR.equals(mode);
+    }
+
+    public static DetectionConfig from(Map<String, String> values) {
+        float threshold = (float) number(values.get(KEY_THRESHOLD_G), DEFAULT.thresholdG, 1.2, 8.0);
+        int slop = (int) number(values.get(KEY_SLOP_MS), DEFAULT.slopMs, 100, 2000);
+        // The reset window has to outlast the slop, or the count could never reach two
+        int reset = (int) number(values.get(KEY_RESET_MS), DEFAULT.resetMs, slop + 1, 10_000);
+        int count = (int) number(values.get(KEY_COUNT), DEFAULT.count, 2, 6);
+        String mode = values.get(KEY_MODE) != null ? values.get(KEY_MODE).trim() : null;
+        if (!MODE_MAGNITUDE.equals(mode) && !MODE_LINEAR.equals(mode)) mode = DEFAULT.mode;
+        int sampling = (int) number(values.get(KEY_SAMPLING_US), DEFAULT.samplingPeriodUs, 10_000, 200_000);
+        return new DetectionConfig(threshold, slop, reset, count, mode, sampling);
+    }
+
+    private static double number(String value, double fallback, double min, double max) {
+        if (value == null) return fallback;
+        try {
+            double parsed = Double.parseDouble(value.trim());
+            return parsed >= min && parsed <= max ? parsed : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof DetectionConfig)) return false;
+        DetectionConfig other = (DetectionConfig) o;
+        return thresholdG == other.thresholdG && slopMs == other.slopMs && resetMs == other.resetMs
+                && count == other.count && mode.equals(other.mode) && samplingPeriodUs == other.samplingPeriodUs;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(thresholdG, slopMs, resetMs, count, mode, samplingPeriodUs);
+    }
+
+    @Override
+    public String toString() {
+        return mode + " " + thresholdG + " g, slop " + slopMs + " ms, reset " + resetMs + " ms, count " + count
+                + ", " + samplingPeriodUs + " us";
+    }
+}
@@ -0,0 +1,84 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Structured event log in a preallocated ring: each record is a timestamp, an event id and two
+ * long arguments, written into a fixed long[] without allocating. Nothing is turned into text
+ * until export, which hands every record to a Formatter. Records carry numbers only, so callers
+ * log positions, counts and codes rather than phone numbers or message text.
+ */
+public class EventRing {
+    /** Turns one record back into text at export time. */
+    public interface Formatter {
+        void format(StringBuilder out, int event, long a, long b);
+    }
+
+    private static final int MAGIC = 0x53484556; // "SHEV"
+    private static final int FIELDS = 4; // wall time, event, a, b
+
+    private final Clock clock;
+    private final int capacity;
+    private final long[] records;
+    private long written;
+
+    public EventRing(Clock clock, int capacity) {
+        this.clock = clock;
+        this.capacity = capacity;
+        this.records = new long[capacity * FIELDS];
+    }
+
+    public synchronized void record(int event, long a, long b) {
+        int base = (int) (written % capacity) * FIELDS;
+        records[base] = clock.currentTimeMillis();
+        records[base + 1] = event;
+        records[base + 2] = a;
+        records[base + 3] = b;
+        written++;
+    }
+
+    /** Records currently held, at most the capacity. */
+    public synchronized int size() {
+        return (int) Math.min(written, capacity);
+    }
+
+    /** Raw records, oldest first, for decode(); this is what gets persisted. */
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        long first = Math.max(0, written - capacity);
+        out.writeInt(MAGIC);
+        out.writeLong(first); // records lost to wrap-around
+        out.writeInt(size());
+        for (long i = first; i < written; i++) {
+            int base = (int) (i % capacity) * FIELDS;
+            out.writeLong(records[base]);
+            out.writeInt((int) records[base + 1]);
+            out.writeLong(records[base + 2]);
+            out.writeLong(records[base + 3]);
+        }
+    }
+
+    /** Appends one line per record written by writeTo(), stamped in UTC. */
+    public static void decode(DataInput in, Formatter formatter, StringBuilder out) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("not an event log");
+        long dropped = in.readLong();
+        int count = in.readInt();
+        SimpleDateFormat time = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        time.setTimeZone(TimeZone.getTimeZone("UTC"));
+        if (dropped > 0) out.append("… ").append(dropped).append(" older event(s) overwritten\n");
+        for (int i = 0; i < count; i++) {
+            long timeMs = in.readLong();
+            int event = in.readInt();
+            long a = in.readLong();
+            long b = in.readLong();
+            out.append(time.format(new Date(timeMs))).append(' ');
+            formatter.format(out, event, a, b);
+            out.append('\n');
+        }
+    }
+}
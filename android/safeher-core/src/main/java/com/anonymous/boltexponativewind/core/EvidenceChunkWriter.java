@@ -0,0 +1,199 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
+import java.util.Locale;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Turns captured PCM into size-bounded evidence chunks. Each chunk is IMA ADPCM, sealed with
+ * AES-GCM under the given key, and written through a FileChannel to a ".part" file. The file
+ * is renamed into place once complete, so the upload queue never sees a half-written chunk.
+ * Every buffer is allocated up front; memory does not grow with the length of the recording.
+ *
+ * File layout: MAGIC, version, sample rate, sequence number, start wall-clock ms, sample count
+ * and IV length (the header, authenticated as AAD), then the IV, then ciphertext and tag.
+ * Chunks start from a fresh ADPCM state, so each one decodes on its own.
+ */
+public class EvidenceChunkWriter implements Closeable {
+    public static final String SUFFIX = ".chunk";
+    private static final String PART_SUFFIX = ".part";
+
+    private static final int MAGIC = 0x53484155; // "SHAU"
+    private static final byte VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 1 + 4 + 4 + 8 + 4 + 1;
+    private static final int TAG_BITS = 128;
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    public interface Listener {
+        /** A chunk was completed and renamed into place. Called on the writing thread. */
+        void onChunk(File chunk, int seq, int samples);
+    }
+
+    /** A decrypted chunk. */
+    public static final class Chunk {
+        public final int sampleRate;
+        public final int seq;
+        public final long startMs;
+        public final int samples;
+        public final byte[] adpcm;
+
+        Chunk(int sampleRate, int seq, long startMs, int samples, byte[] adpcm) {
+            this.sampleRate = sampleRate;
+            this.seq = seq;
+            this.startMs = startMs;
+            this.samples = samples;
+            this.adpcm = adpcm;
+        }
+
+        public short[] decode() {
+            short[] pcm = new short[samples];
+            new ImaAdpcm().decode(ByteBuffer.wrap(adpcm), pcm, 0, samples);
+            return pcm;
+        }
+    }
+
+    private final File dir;
+    private final String name;
+    private final SecretKey key;
+    private final int sampleRate;
+    private final int maxSamples;
+    private final Listener listener;
+
+    private final ImaAdpcm encoder = new ImaAdpcm();
+    private final Cipher cipher;
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    private final ByteBuffer plain;
+    private final ByteBuffer sealed;
+
+    private int seq;
+    private int samples;
+    private long startMs;
+
+    /** @param name file name prefix, e.g. the alert session id */
+    public EvidenceChunkWriter(File dir, String name, SecretKey key, int sampleRate, int chunkSeconds,
+                               Listener listener) throws IOException {
+        this.dir = dir;
+        this.name = name;
+        this.key = key;
+        this.sampleRate = sampleRate;
+        this.maxSamples = sampleRate * chunkSeconds;
+        this.listener = listener;
+        plain = ByteBuffer.allocate(ImaAdpcm.encodedBytes(maxSamples));
+        sealed = ByteBuffer.allocate(plain.capacity() + TAG_BITS / 8);
+        try {
+            cipher = Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("AES-GCM unavailable", e);
+        }
+    }
+
+    /** Appends captured samples, sealing chunks as they fill. */
+    public void write(short[] pcm, int length, long capturedAtMs) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            if (samples == 0) {
+                encoder.reset();
+                plain.clear();
+                startMs = capturedAtMs + offset * 1000L / sampleRate;
+            }
+            int n = Math.min(length - offset, maxSamples - samples);
+            encoder.encode(pcm, offset, n, plain);
+            samples += n;
+            offset += n;
+            if (samples == maxSamples) seal();
+        }
+    }
+
+    /** Seals the partial chunk, if any. */
+    @Override
+    public void close() throws IOException {
+        if (samples > 0) seal();
+    }
+
+    public int chunksWritten() {
+        return seq;
+    }
+
+    private void seal() throws IOException {
+        encoder.flush(plain);
+        plain.flip();
+        byte[] iv;
+        try {
+            // No IV passed in: the provider picks a fresh one, which Android Keystore keys require
+            cipher.init(Cipher.ENCRYPT_MODE, key);
+            iv = cipher.getIV();
+            header.clear();
+            header.putInt(MAGIC).put(VERSION).putInt(sampleRate).putInt(seq).putLong(startMs).putInt(samples)
+                    .put((byte) iv.length);
+            header.flip();
+            cipher.updateAAD(header.duplicate());
+            sealed.clear();
+            cipher.doFinal(plain, sealed);
+            sealed.flip();
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Could not seal evidence chunk " + seq, e);
+        }
+
+        String base = String.format(Locale.US, "%s_%04d", name, seq);
+        File part = new File(dir, base + PART_SUFFIX);
+        File done = new File(dir, base + SUFFIX);
+        try (FileOutputStream out = new FileOutputStream(part); FileChannel channel = out.getChannel()) {
+            ByteBuffer[] buffers = { header, ByteBuffer.wrap(iv), sealed };
+            long total = HEADER_BYTES + iv.length + sealed.remaining();
+            long written = 0;
+            while (written < total) written += channel.write(buffers);
+            channel.force(false);
+        }
+        if (!part.renameTo(done)) throw new IOException("Could not complete " + done.getName());
+
+        int chunkSeq = seq;
+        int chunkSamples = samples;
+        seq++;
+        samples = 0;
+        listener.onChunk(done, chunkSeq, chunkSamples);
+    }
+
+    /** Reads and authenticates a chunk; fails if it was truncated or altered. */
+    public static Chunk read(File file, SecretKey key) throws IOException {
+        ByteBuffer bytes;
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            bytes = ByteBuffer.allocate((int) channel.size());
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) { /* fill */ }
+        }
+        bytes.flip();
+        if (bytes.remaining() < HEADER_BYTES || bytes.getInt(0) != MAGIC || bytes.get(4) != VERSION) {
+            throw new IOException("Not an evidence chunk: " + file.getName());
+        }
+        ByteBuffer headerBytes = bytes.duplicate().limit(HEADER_BYTES);
+        bytes.position(5);
+        int sampleRate = bytes.getInt();
+        int seq = bytes.getInt();
+        long startMs = bytes.getLong();
+        int samples = bytes.getInt();
+        byte[] iv = new byte[bytes.get() & 0xff];
+        bytes.get(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(headerBytes);
+            ByteBuffer adpcm = ByteBuffer.allocate(cipher.getOutputSize(bytes.remaining()));
+            cipher.doFinal(bytes, adpcm);
+            byte[] out = new byte[adpcm.position()];
+            adpcm.flip();
+            adpcm.get(out);
+            return new Chunk(sampleRate, seq, startMs, samples, out);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Evidence chunk failed authentication: " + file.getName(), e);
+        }
+    }
+}
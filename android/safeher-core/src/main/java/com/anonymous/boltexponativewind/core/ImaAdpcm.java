@@ -0,0 +1,113 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * IMA ADPCM: 16-bit PCM at 4 bits per sample, two samples per byte with the earlier one in the
+ * low nibble. The predictor carries across encode() calls, so a stream can be fed buffer by
+ * buffer; reset() starts a new independently decodable stream.
+ */
+public final class ImaAdpcm {
+    private static final int[] INDEX_TABLE = {
+            -1, -1, -1, -1, 2, 4, 6, 8,
+            -1, -1, -1, -1, 2, 4, 6, 8 };
+
+    private static final int[] STEP_TABLE = {
+            7, 8, 9, 10, 11, 12, 13, 14, 16, 17, 19, 21, 23, 25, 28, 31, 34, 37, 41, 45,
+            50, 55, 60, 66, 73, 80, 88, 97, 107, 118, 130, 143, 157, 173, 190, 209, 230, 253, 279, 307,
+            337, 371, 408, 449, 494, 544, 598, 658, 724, 796, 876, 963, 1060, 1166, 1282, 1411, 1552, 1707,
+            1878, 2066, 2272, 2499, 2749, 3024, 3327, 3660, 4026, 4428, 4871, 5358, 5894, 6484, 7132, 7845,
+            8630, 9493, 10442, 11487, 12635, 13899, 15289, 16818, 18500, 20350, 22385, 24623, 27086, 29794,
+            32767 };
+
+    private int predictor;
+    private int index;
+    // Low nibble waiting for the next sample to complete its byte, or -1
+    private int pending = -1;
+
+    public static int encodedBytes(int samples) {
+        return (samples + 1) / 2;
+    }
+
+    public void reset() {
+        predictor = 0;
+        index = 0;
+        pending = -1;
+    }
+
+    /** Appends the encoded samples to out, which needs room for encodedBytes(length) + 1 bytes. */
+    public void encode(short[] pcm, int offset, int length, ByteBuffer out) {
+        for (int i = offset; i < offset + length; i++) {
+            int nibble = encodeSample(pcm[i]);
+            if (pending < 0) {
+                pending = nibble;
+            } else {
+                out.put((byte) (pending | (nibble << 4)));
+                pending = -1;
+            }
+        }
+    }
+
+    /** Writes a trailing odd sample, if any, padded with a zero nibble. */
+    public void flush(ByteBuffer out) {
+        if (pending >= 0) {
+            out.put((byte) pending);
+            pending = -1;
+        }
+    }
+
+    /** Decodes samples from in, continuing from this instance's predictor. */
+    public void decode(ByteBuffer in, short[] out, int offset, int samples) {
+        for (int i = 0; i < samples; i++) {
+            int nibble;
+            if (pending < 0) {
+                int b = in.get() & 0xff;
+                nibble = b & 0x0f;
+                pending = b >> 4;
+            } else {
+                nibble = pending;
+                pending = -1;
+            }
+            out[offset + i] = (short) decodeSample(nibble);
+        }
+    }
+
+    private int encodeSample(int sample) {
+        int step = STEP_TABLE[index];
+        int diff = sample - predictor;
+        int nibble = 0;
+        if (diff < 0) {
+            nibble = 8;
+            diff = -diff;
+        }
+        if (diff >= step) {
+            nibble |= 4;
+            diff -= step;
+        }
+        if (diff >= step >> 1) {
+            nibble |= 2;
+            diff -= step >> 1;
+        }
+        if (diff >= step >> 2) {
+            nibble |= 1;
+        }
+        // Track the decoder exactly, not the input, so errors don't accumulate
+        decodeSample(nibble);
+        return nibble;
+    }
+
+    private int decodeSample(int nibble) {
+        int step = STEP_TABLE[index];
+        int delta = step >> 3;
+        if ((nibble & 4) != 0) delta += step;
+        if ((nibble & 2) != 0) delta += step >> 1;
+        if ((nibble & 1) != 0) delta += step >> 2;
+        predictor += (nibble & 8) != 0 ? -delta : delta;
+        if (predictor > Short.MAX_VALUE) predictor = Short.MAX_VALUE;
+        else if (predictor < Short.MIN_VALUE) predictor = Short.MIN_VALUE;
+        index += INDEX_TABLE[nibble];
+        if (index < 0) index = 0;
+        else if (index > STEP_TABLE.length - 1) index = STEP_TABLE.length - 1;
+        return predictor;
+    }
+}
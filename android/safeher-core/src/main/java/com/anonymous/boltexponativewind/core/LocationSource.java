@@ -0,0 +1,21 @@
+package com.anonymous.boltexponativewind.core;
+
+/** Where the user is, as far as the device already knows without waiting for a new fix. */
+public interface LocationSource {
+    final class Fix {
+        public final double latitude;
+        public final double longitude;
+        public final float accuracyMeters;
+        public final long timeMs;
+
+        public Fix(double latitude, double longitude, float accuracyMeters, long timeMs) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.accuracyMeters = accuracyMeters;
+            this.timeMs = timeMs;
+        }
+    }
+
+    /** Best recent fix, or null if there is none (or no permission). */
+    Fix lastKnownFix();
+}
@@ -0,0 +1,129 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-alert recipient states, in send order. States only move forward:
+ * pending/queued → submitted → sent → delivered, with failed reachable until delivery and
+ * cancelled only before a send. That way a late SMS_SENT for one part of a multipart
+ * message can't undo "delivered", and a failover retry can't resurrect a cancelled recipient.
+ */
+public class Outbox {
+    public static final String PENDING = "pending";
+    // Waiting for SMS quota behind higher tiers
+    public static final String QUEUED = "queued";
+    public static final String SUBMITTED = "submitted";
+    public static final String SENT = "sent";
+    public static final String DELIVERED = "delivered";
+    public static final String FAILED = "failed";
+    // Never sent: the job was cancelled first
+    public static final String CANCELLED = "cancelled";
+
+    public static class Entry {
+        public final String phone;
+        public final int tier;
+        private String state;
+
+        Entry(String phone, int tier, String state) {
+            this.phone = phone;
+            this.tier = tier;
+            this.state = state;
+        }
+    }
+
+    private final List<Entry> entries;
+    private volatile boolean cancelled;
+
+    public Outbox(List<TieredContacts.Contact> contacts) {
+        List<Entry> list = new ArrayList<>(contacts.size());
+        for (TieredContacts.Contact contact : contacts) {
+            list.add(new Entry(contact.phone, contact.tier,
+                    contact.tier > TieredContacts.TIER_IMMEDIATE ? QUEUED : PENDING));
+        }
+        entries = Collections.unmodifiableList(list);
+    }
+
+    /** All recipients in one tier, in the given order. */
+    public static Outbox untiered(List<String> phones) {
+        List<TieredContacts.Contact> contacts = new ArrayList<>(phones.size());
+        for (String phone : phones) contacts.add(new TieredContacts.Contact(phone, TieredContacts.TIER_IMMEDIATE));
+        return new Outbox(contacts);
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Recipients not sent yet will be cancelled instead; safe from any thread. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public synchronized String state(String phone) {
+        Entry entry = find(phone);
+        return entry != null ? entry.state : null;
+    }
+
+    /** Applies the change if the state machine allows it; returns whether it did. */
+    public synchronized boolean transition(String phone, String to) {
+        Entry entry = find(phone);
+        if (entry == null || !canTransition(entry.state, to)) return false;
+        entry.state = to;
+        return true;
+    }
+
+    public synchronized int count(String state) {
+        int n = 0;
+        for (Entry entry : entries) {
+            if (entry.state.equals(state)) n++;
+        }
+        return n;
+    }
+
+    public static boolean canTransition(String from, String to) {
+        int fromRank = rank(from);
+        int toRank = rank(to);
+        if (fromRank < 0 || toRank < 0) return false;
+        if (FAILED.equals(from) || CANCELLED.equals(from)) return false;
+        if (CANCELLED.equals(to)) return fromRank == 0;
+        if (FAILED.equals(to)) return !DELIVERED.equals(from);
+        // Callbacks can land before the submit is recorded, so skipping ahead is fine
+        return toRank > fromRank;
+    }
+
+    private static int rank(String state) {
+        switch (state) {
+            case PENDING:
+            case QUEUED:
+                return 0;
+            case SUBMITTED:
+                return 1;
+            case SENT:
+                return 2;
+            case DELIVERED:
+                return 3;
+            case FAILED:
+            case CANCELLED:
+                return 4;
+            default:
+                return -1;
+        }
+    }
+
+    private Entry find(String phone) {
+        for (Entry entry : entries) {
+            if (entry.phone.equals(phone)) return entry;
+        }
+        return null;
+    }
+}
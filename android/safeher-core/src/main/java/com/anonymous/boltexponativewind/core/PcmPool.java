@@ -0,0 +1,51 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed set of PCM buffers handed from the capture thread to the encoder thread and back.
+ * Nothing is allocated after construction: when the encoder falls behind, acquire() returns
+ * null and the capture side drops that stretch of audio instead of growing a queue.
+ */
+public final class PcmPool {
+    public static final class Buffer {
+        public final short[] samples;
+        public int length;
+        /** Wall-clock time of the first sample. */
+        public long capturedAtMs;
+
+        Buffer(int capacity) {
+            samples = new short[capacity];
+        }
+    }
+
+    private final ArrayBlockingQueue<Buffer> free;
+    private final ArrayBlockingQueue<Buffer> filled;
+
+    public PcmPool(int buffers, int samplesPerBuffer) {
+        free = new ArrayBlockingQueue<>(buffers);
+        filled = new ArrayBlockingQueue<>(buffers);
+        for (int i = 0; i < buffers; i++) free.add(new Buffer(samplesPerBuffer));
+    }
+
+    /** A buffer to capture into, or null when all of them are waiting for the encoder. */
+    public Buffer acquire() {
+        return free.poll();
+    }
+
+    /** Passes a captured buffer to the encoder; never blocks, the pool bounds the queue. */
+    public void submit(Buffer buffer) {
+        filled.add(buffer);
+    }
+
+    /** The next captured buffer, or null after timeoutMs without one. */
+    public Buffer take(long timeoutMs) throws InterruptedException {
+        return filled.poll(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void release(Buffer buffer) {
+        buffer.length = 0;
+        free.add(buffer);
+    }
+}
@@ -0,0 +1,67 @@
+package com.anonymous.boltexponativewind.core;
+
+/**
+ * Token bucket that keeps the app's SMS under Android's per-app quota (30 messages in any
+ * 30 minutes by default, counted in parts). Beyond it the platform starts prompting the user
+ * or silently blocks sends. A burst of BURST parts goes out at once, then one part per
+ * REFILL_MS. BURST + window / REFILL_MS stays within the quota, so no 30-minute window can
+ * exceed it. Sends that must not wait (tier 1 of an alert) take() their parts regardless and
+ * leave the bucket in debt, which the paced sends after them wait off.
+ *
+ * The bucket lives in memory and starts full, so it only paces the sends of one process
+ * lifetime; a process restarted mid-alert can go past the platform quota, and the platform
+ * then prompts the user as it would without pacing.
+ */
+public class SendScheduler {
+    public static final int PLATFORM_QUOTA = 30;
+    public static final long PLATFORM_WINDOW_MS = 30 * 60 * 1000L;
+    public static final int BURST = 12;
+    public static final long REFILL_MS = PLATFORM_WINDOW_MS / (PLATFORM_QUOTA - BURST);
+
+    private final Clock clock;
+    private double tokens = BURST;
+    private long lastRefill;
+
+    public SendScheduler(Clock clock) {
+        this.clock = clock;
+        this.lastRefill = clock.elapsedRealtime();
+    }
+
+    private void refill() {
+        long now = clock.elapsedRealtime();
+        tokens = Math.min(BURST, tokens + (now - lastRefill) / (double) REFILL_MS);
+        lastRefill = now;
+    }
+
+    /** Takes tokens for a send of {@code parts} parts if they are available right now. */
+    public synchronized boolean tryAcquire(int parts) {
+        refill();
+        if (tokens < parts) return false;
+        tokens -= parts;
+        return true;
+    }
+
+    /** Takes tokens for a send of {@code parts} parts at once, going into debt if there aren't enough. */
+    public synchronized void take(int parts) {
+        refill();
+        tokens -= parts;
+    }
+
+    /** Blocks until {@code parts} tokens are available. A send larger than the burst waits for a full bucket. */
+    public synchronized void acquire(int parts) throws InterruptedException {
+        int needed = Math.min(parts, BURST);
+        refill();
+        while (tokens < needed) {
+            wait((long) Math.ceil((needed - tokens) * REFILL_MS));
+            refill();
+        }
+        tokens -= parts; // may go negative for oversized sends; later sends wait it off
+    }
+
+    /** Estimated wait before {@code partsAhead} queued parts (plus this one) can be sent. */
+    public synchronized long estimateWaitMs(int partsAhead) {
+        refill();
+        double deficit = partsAhead - tokens;
+        return deficit <= 0 ? 0 : (long) Math.ceil(deficit * REFILL_MS);
+    }
+}
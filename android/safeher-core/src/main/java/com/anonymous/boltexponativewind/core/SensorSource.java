@@ -0,0 +1,13 @@
+package com.anonymous.boltexponativewind.core;
+
+/** Accelerometer samples in m/s², delivered on whatever thread the source uses. */
+public interface SensorSource {
+    interface Listener {
+        void onAcceleration(long timestampMs, float x, float y, float z);
+    }
+
+    /** Returns false when the sensor is not available. */
+    boolean start(Listener listener);
+
+    void stop();
+}
@@ -0,0 +1,78 @@
+package com.anonymous.boltexponativewind.core;
+
+/**
+ * Triple-shake detection over raw accelerometer samples. A shake is a sample above the
+ * threshold at least the slop time after the previous one; the count resets after the reset
+ * window without a shake, and the required count of shakes triggers. The constants below are
+ * the defaults; setConfig() swaps in a tuned DetectionConfig that applies from the next sample.
+ */
+public class ShakeDetector implements SensorSource.Listener {
+    public static final float THRESHOLD_GRAVITY = 2.7F;
+    public static final int SLOP_TIME_MS = 500;
+    public static final int COUNT_RESET_TIME_MS = 3000;
+    public static final int COUNT_THRESHOLD = 3;
+
+    // Low-pass weight of the gravity estimate used by DetectionConfig.MODE_LINEAR
+    private static final float GRAVITY_ALPHA = 0.8F;
+
+    public interface Listener {
+        /** Every sample, with the shake count it was judged against; used for the heartbeat. */
+        void onSample(long timestampMs, int shakeCount);
+
+        void onShake(int shakeCount);
+
+        void onTripleShake();
+    }
+
+    private final Listener listener;
+    private volatile DetectionConfig config = DetectionConfig.DEFAULT;
+    private long lastShakeTime;
+    private int shakeCount;
+    // Updated on every sample whatever the mode, so switching to linear needs no warm-up
+    private float gravityX, gravityY, gravityZ;
+
+    public ShakeDetector(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void onAcceleration(long now, float x, float y, float z) {
+        DetectionConfig c = config; // one volatile read; the whole sample is judged against it
+        gravityX = GRAVITY_ALPHA * gravityX + (1 - GRAVITY_ALPHA) * x;
+        gravityY = GRAVITY_ALPHA * gravityY + (1 - GRAVITY_ALPHA) * y;
+        gravityZ = GRAVITY_ALPHA * gravityZ + (1 - GRAVITY_ALPHA) * z;
+        listener.onSample(now, shakeCount);
+        if ((now - lastShakeTime) <= c.slopMs) return;
+        if ((now - lastShakeTime) > c.resetMs) {
+            shakeCount = 0;
+        }
+        if (c.linear) {
+            x -= gravityX;
+            y -= gravityY;
+            z -= gravityZ;
+        }
+        double squared = (double) x * x + (double) y * y + (double) z * z;
+        if (squared > c.thresholdSquared) {
+            lastShakeTime = now;
+            shakeCount++;
+            listener.onShake(shakeCount);
+            if (shakeCount >= c.count) {
+                shakeCount = 0; // Reset after triggering
+                listener.onTripleShake();
+            }
+        }
+    }
+
+    /** Safe from any thread; the sensor thread picks it up at its next sample. */
+    public void setConfig(DetectionConfig config) {
+        this.config = config;
+    }
+
+    public DetectionConfig config() {
+        return config;
+    }
+
+    public int shakeCount() {
+        return shakeCount;
+    }
+}
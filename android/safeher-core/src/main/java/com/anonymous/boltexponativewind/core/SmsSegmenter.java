@@ -0,0 +1,72 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JVM stand-in for SmsManager.divideMessage, with the same limits: 160 septets in a single
+ * GSM-7 message, or 153 per part once a concatenation header is needed. Extension-table
+ * characters count double. Anything outside GSM-7 switches the whole message to UCS-2, which
+ * allows 70 UTF-16 units in a single message or 67 per part. Surrogate pairs are never split.
+ * On the device the platform's divideMessage stays authoritative; this is for sizing
+ * messages off-device, in tests and benchmarks.
+ */
+public class SmsSegmenter {
+    private static final String GSM_BASIC =
+            "@£$¥èéùìòÇ\nØø\rÅåΔ_ΦΓΛΩΠΨΣΘΞÆæßÉ !\"#¤%&'()*+,-./0123456789:;<=>?"
+                    + "¡ABCDEFGHIJKLMNOPQRSTUVWXYZÄÖÑÜ§¿abcdefghijklmnopqrstuvwxyzäöñüà";
+    private static final String GSM_EXTENSION = "\f^{}\\[~]|€";
+
+    public static final int GSM_SINGLE = 160, GSM_PART = 153;
+    public static final int UCS2_SINGLE = 70, UCS2_PART = 67;
+
+    public static boolean isGsm7(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (septets(text.charAt(i)) == 0) return false;
+        }
+        return true;
+    }
+
+    public static List<String> divide(String text) {
+        List<String> parts = new ArrayList<>();
+        if (isGsm7(text)) {
+            int total = 0;
+            for (int i = 0; i < text.length(); i++) total += septets(text.charAt(i));
+            if (total <= GSM_SINGLE) {
+                parts.add(text);
+                return parts;
+            }
+            int start = 0, used = 0;
+            for (int i = 0; i < text.length(); i++) {
+                int cost = septets(text.charAt(i));
+                if (used + cost > GSM_PART) {
+                    parts.add(text.substring(start, i));
+                    start = i;
+                    used = 0;
+                }
+                used += cost;
+            }
+            parts.add(text.substring(start));
+            return parts;
+        }
+        if (text.length() <= UCS2_SINGLE) {
+            parts.add(text);
+            return parts;
+        }
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(text.length(), start + UCS2_PART);
+            if (end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) end--;
+            parts.add(text.substring(start, end));
+            start = end;
+        }
+        return parts;
+    }
+
+    /** 1 for the basic table, 2 for the extension table (escape + char), 0 if not GSM-7. */
+    private static int septets(char c) {
+        if (GSM_BASIC.indexOf(c) >= 0) return 1;
+        if (GSM_EXTENSION.indexOf(c) >= 0) return 2;
+        return 0;
+    }
+}
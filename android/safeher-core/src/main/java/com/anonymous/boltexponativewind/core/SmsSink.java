@@ -0,0 +1,8 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.util.List;
+
+/** Hands one already-divided message to the radio; throws when it could not even be submitted. */
+public interface SmsSink {
+    void send(String phone, List<String> parts) throws Exception;
+}
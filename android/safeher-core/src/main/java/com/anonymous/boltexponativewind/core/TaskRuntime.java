@@ -0,0 +1,295 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide background work in lanes, each a small fixed pool of named threads over a
+ * bounded queue. EMERGENCY runs at the highest thread priority. PACED is for alert work that
+ * mostly waits, such as lower tiers streaming out under the SMS quota. SYNC and HOUSEKEEPING run
+ * lower and also hold back: while any EMERGENCY task is queued or running, they start nothing
+ * new. PACED doesn't hold them back, so a fan-out that takes an hour doesn't stall sync for an
+ * hour. Idle lanes keep no threads.
+ *
+ * A task has a deadline and can be cancelled. Once either happens, isCancelled() turns true for
+ * the body to check, a task that has not started yet is skipped, and a running one is
+ * interrupted. A full EMERGENCY or PACED queue runs the task on a spare thread instead of
+ * dropping it, never on the caller, which may be the main thread. The other lanes reject.
+ * Every lane counts queue depth, wait and run time for stats().
+ */
+public class TaskRuntime {
+    public enum Lane {
+        EMERGENCY(Thread.MAX_PRIORITY, 3, 16, true),
+        PACED(Thread.NORM_PRIORITY, 2, 16, true),
+        SYNC(Thread.NORM_PRIORITY - 1, 1, 32, false),
+        HOUSEKEEPING(Thread.MIN_PRIORITY, 1, 64, false);
+
+        final int priority;
+        final int threads;
+        final int queueCapacity;
+        // Never waits for emergencies and never dropped
+        final boolean urgent;
+
+        Lane(int priority, int threads, int queueCapacity, boolean urgent) {
+            this.priority = priority;
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+            this.urgent = urgent;
+        }
+    }
+
+    public interface Body {
+        void run(Task task) throws Exception;
+    }
+
+    public static final int QUEUED = 0, RUNNING = 1, DONE = 2, FAILED = 3, CANCELLED = 4, TIMED_OUT = 5, REJECTED = 6;
+
+    private static final long KEEP_ALIVE_S = 30;
+
+    public final class Task implements Runnable {
+        public final String name;
+        public final Lane lane;
+        private final Body body;
+        private final long submittedAt;
+        private final long deadline;
+        private volatile boolean cancelled;
+        private Thread runner;
+        private int state = QUEUED;
+
+        Task(Lane lane, String name, long timeoutMs, Body body) {
+            this.lane = lane;
+            this.name = name;
+            this.body = body;
+            this.submittedAt = clock.elapsedRealtime();
+            this.deadline = submittedAt + timeoutMs;
+        }
+
+        /**
+         * True once cancelled or past the deadline. A running body is interrupted then too;
+         * one that doesn't block checks this between steps.
+         */
+        public boolean isCancelled() {
+            return cancelled || clock.elapsedRealtime() > deadline;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            interruptRunner();
+        }
+
+        // Under the lock, so an interrupt can't land on the thread's next task
+        private synchronized void interruptRunner() {
+            if (runner != null) runner.interrupt();
+        }
+
+        public synchronized int state() {
+            return state;
+        }
+
+        /** Waits up to timeoutMs for the task to end; returns false if it is still queued or running. */
+        public synchronized boolean await(long timeoutMs) throws InterruptedException {
+            long end = clock.elapsedRealtime() + timeoutMs;
+            while (state <= RUNNING) {
+                long left = end - clock.elapsedRealtime();
+                if (left <= 0) return false;
+                wait(left);
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            LaneStats stats = laneStats[lane.ordinal()];
+            try {
+                if (!lane.urgent) awaitEmergencyIdle(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                finish(CANCELLED);
+                return;
+            }
+            long startedAt = clock.elapsedRealtime();
+            stats.record(stats.waitMs, stats.maxWaitMs, startedAt - submittedAt);
+            if (isCancelled()) {
+                finish(cancelled ? CANCELLED : TIMED_OUT);
+                return;
+            }
+            synchronized (this) {
+                state = RUNNING;
+                runner = Thread.currentThread();
+            }
+            // A cancel() that came before runner was set had nothing to interrupt
+            if (cancelled) Thread.currentThread().interrupt();
+            ScheduledFuture<?> expiry = deadlines.schedule(this::interruptRunner,
+                    Math.max(0, deadline - clock.elapsedRealtime()), TimeUnit.MILLISECONDS);
+            int outcome = DONE;
+            try {
+                body.run(this);
+            } catch (InterruptedException e) {
+                outcome = cancelled ? CANCELLED : TIMED_OUT;
+            } catch (Exception e) {
+                outcome = FAILED;
+                stats.lastFailure = name + ": " + e;
+            } finally {
+                expiry.cancel(false);
+                synchronized (this) {
+                    runner = null;
+                }
+                Thread.interrupted(); // a late cancel or deadline must not hit the thread's next task
+                stats.record(stats.runMs, stats.maxRunMs, clock.elapsedRealtime() - startedAt);
+                finish(outcome);
+            }
+        }
+
+        private void finish(int outcome) {
+            synchronized (this) {
+                state = outcome;
+                notifyAll();
+            }
+            laneStats[lane.ordinal()].outcomes[outcome].increment();
+            if (lane == Lane.EMERGENCY) emergencyEnded();
+        }
+    }
+
+    private static final class LaneStats {
+        final LongAdder submitted = new LongAdder();
+        final LongAdder[] outcomes = new LongAdder[REJECTED + 1];
+        final AtomicLong waitMs = new AtomicLong();
+        final AtomicLong maxWaitMs = new AtomicLong();
+        final AtomicLong runMs = new AtomicLong();
+        final AtomicLong maxRunMs = new AtomicLong();
+        final AtomicInteger maxQueued = new AtomicInteger();
+        volatile String lastFailure;
+
+        LaneStats() {
+            for (int i = 0; i < outcomes.length; i++) outcomes[i] = new LongAdder();
+        }
+
+        void record(AtomicLong total, AtomicLong max, long ms) {
+            total.addAndGet(ms);
+            max.accumulateAndGet(ms, Math::max);
+        }
+    }
+
+    private static final String[] OUTCOME_NAMES = { "queued", "running", "done", "failed", "cancelled",
+            "timed_out", "rejected" };
+
+    private final Clock clock;
+    private final ThreadPoolExecutor[] executors = new ThreadPoolExecutor[Lane.values().length];
+    // Interrupts tasks still running at their deadline
+    private final ScheduledThreadPoolExecutor deadlines;
+    private final AtomicInteger spareThreads = new AtomicInteger();
+    private final LaneStats[] laneStats = new LaneStats[Lane.values().length];
+    private final Object emergencyLock = new Object();
+    private int emergencyInFlight;
+
+    public TaskRuntime(Clock clock) {
+        this.clock = clock;
+        for (Lane lane : Lane.values()) {
+            AtomicInteger count = new AtomicInteger();
+            String prefix = threadPrefix(lane);
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(lane.threads, lane.threads,
+                    KEEP_ALIVE_S, TimeUnit.SECONDS, new ArrayBlockingQueue<>(lane.queueCapacity), r -> {
+                        Thread thread = new Thread(r, prefix + count.incrementAndGet());
+                        thread.setPriority(lane.priority);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            executors[lane.ordinal()] = executor;
+            laneStats[lane.ordinal()] = new LaneStats();
+        }
+        deadlines = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "SafeHer-Deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        deadlines.setRemoveOnCancelPolicy(true);
+        deadlines.setKeepAliveTime(KEEP_ALIVE_S, TimeUnit.SECONDS);
+        deadlines.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues a task. The returned handle is already REJECTED when a SYNC or HOUSEKEEPING queue
+     * is full; a full EMERGENCY or PACED queue starts a spare thread for it.
+     */
+    public Task submit(Lane lane, String name, long timeoutMs, Body body) {
+        Task task = new Task(lane, name, timeoutMs, body);
+        LaneStats stats = laneStats[lane.ordinal()];
+        stats.submitted.increment();
+        if (lane == Lane.EMERGENCY) emergencyStarted();
+        ThreadPoolExecutor executor = executors[lane.ordinal()];
+        try {
+            executor.execute(task);
+            stats.maxQueued.accumulateAndGet(executor.getQueue().size(), Math::max);
+        } catch (RejectedExecutionException e) {
+            if (lane.urgent) {
+                Thread spare = new Thread(task, threadPrefix(lane) + "spare-" + spareThreads.incrementAndGet());
+                spare.setPriority(lane.priority);
+                spare.start();
+            } else {
+                task.finish(REJECTED);
+            }
+        }
+        return task;
+    }
+
+    private static String threadPrefix(Lane lane) {
+        return "SafeHer-" + lane.name().charAt(0) + lane.name().substring(1).toLowerCase(Locale.US) + "-";
+    }
+
+    /** Waits until no emergency task is queued or running; false if timeoutMs passed first. */
+    public boolean awaitEmergencyIdle(long timeoutMs) throws InterruptedException {
+        synchronized (emergencyLock) {
+            long end = timeoutMs == Long.MAX_VALUE ? Long.MAX_VALUE : clock.elapsedRealtime() + timeoutMs;
+            while (emergencyInFlight > 0) {
+                long left = end - clock.elapsedRealtime();
+                if (left <= 0) return false;
+                emergencyLock.wait(left);
+            }
+            return true;
+        }
+    }
+
+    private void emergencyStarted() {
+        synchronized (emergencyLock) {
+            emergencyInFlight++;
+        }
+    }
+
+    private void emergencyEnded() {
+        synchronized (emergencyLock) {
+            if (--emergencyInFlight == 0) emergencyLock.notifyAll();
+        }
+    }
+
+    /** Per lane: queue depth now and at most, submissions, outcomes, and total/max wait and run ms. */
+    public Map<String, String> stats() {
+        Map<String, String> out = new HashMap<>();
+        for (Lane lane : Lane.values()) {
+            String prefix = lane.name().toLowerCase(Locale.US) + "_";
+            LaneStats stats = laneStats[lane.ordinal()];
+            ThreadPoolExecutor executor = executors[lane.ordinal()];
+            out.put(prefix + "queue_depth", String.valueOf(executor.getQueue().size()));
+            out.put(prefix + "max_queue_depth", String.valueOf(stats.maxQueued.get()));
+            out.put(prefix + "active", String.valueOf(executor.getActiveCount()));
+            out.put(prefix + "submitted", String.valueOf(stats.submitted.sum()));
+            for (int i = DONE; i <= REJECTED; i++) {
+                out.put(prefix + OUTCOME_NAMES[i], String.valueOf(stats.outcomes[i].sum()));
+            }
+            out.put(prefix + "wait_total_ms", String.valueOf(stats.waitMs.get()));
+            out.put(prefix + "wait_max_ms", String.valueOf(stats.maxWaitMs.get()));
+            out.put(prefix + "run_total_ms", String.valueOf(stats.runMs.get()));
+            out.put(prefix + "run_max_ms", String.valueOf(stats.maxRunMs.get()));
+            if (stats.lastFailure != null) out.put(prefix + "last_failure", stats.lastFailure);
+        }
+        return out;
+    }
+}
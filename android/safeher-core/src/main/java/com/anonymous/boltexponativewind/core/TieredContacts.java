@@ -0,0 +1,78 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parses the mirrored emergency_contacts value: comma-separated entries of "phone" or
+ * "phone;tier". Tier 1 is alerted immediately, higher tiers stream after it. Entries
+ * without a tier (the format before tiers existed) count as tier 1.
+ */
+public class TieredContacts {
+    public static final int TIER_IMMEDIATE = 1;
+
+    public static class Contact {
+        public final String phone;
+        public final int tier;
+
+        public Contact(String phone, int tier) {
+            this.phone = phone;
+            this.tier = tier;
+        }
+    }
+
+    /** Contacts ordered by tier, keeping list order within a tier; duplicates keep their best tier. */
+    public static List<Contact> parse(String value) {
+        List<Contact> contacts = new ArrayList<>();
+        if (value == null) return contacts;
+        for (String entry : value.split(",")) {
+            String[] fields = entry.split(";", 2);
+            String phone = normalize(fields[0]);
+            if (phone.isEmpty()) continue;
+
+            int tier = TIER_IMMEDIATE;
+            if (fields.length > 1) {
+                try {
+                    tier = Math.max(TIER_IMMEDIATE, Integer.parseInt(fields[1].trim()));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+            int existing = indexOf(contacts, phone);
+            if (existing < 0) {
+                contacts.add(new Contact(phone, tier));
+            } else if (tier < contacts.get(existing).tier) {
+                contacts.set(existing, new Contact(phone, tier));
+            }
+        }
+        // Stable sort: list order is preserved within a tier
+        Collections.sort(contacts, (a, b) -> Integer.compare(a.tier, b.tier));
+        return contacts;
+    }
+
+    /** Trims and adds the +91 prefix if missing; empty input stays empty. */
+    public static String normalize(String phone) {
+        String trimmed = phone.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("+")) return trimmed;
+        return "+91" + trimmed;
+    }
+
+    private static int indexOf(List<Contact> contacts, String phone) {
+        for (int i = 0; i < contacts.size(); i++) {
+            if (contacts.get(i).phone.equals(phone)) return i;
+        }
+        return -1;
+    }
+
+    public static List<String> phones(List<Contact> contacts) {
+        List<String> phones = new ArrayList<>(contacts.size());
+        for (Contact contact : contacts) phones.add(contact.phone);
+        return phones;
+    }
+
+    public static int[] tiers(List<Contact> contacts) {
+        int[] tiers = new int[contacts.size()];
+        for (int i = 0; i < tiers.length; i++) tiers[i] = contacts.get(i).tier;
+        return tiers;
+    }
+}
@@ -0,0 +1,144 @@
+package com.anonymous.boltexponativewind.core;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Fixed-size ring of trace events that exports as Chrome trace-event JSON, which both
+ * ui.perfetto.dev and chrome://tracing open. Slots are preallocated and overwritten oldest first,
+ * so recording never allocates and the buffer always holds the latest alert. Timestamps come
+ * from Clock.elapsedRealtimeNanos, the same clock in every process, so traces exported from the
+ * app and the detector process line up when merged.
+ */
+public class TraceRecorder {
+    public static final char BEGIN = 'B', END = 'E', ASYNC_BEGIN = 'b', ASYNC_END = 'e', INSTANT = 'i';
+    /** Category of async events; Perfetto groups them into one track per name and cookie. */
+    public static final String CATEGORY = "safeher";
+
+    private final Clock clock;
+    private final String[] names;
+    private final char[] phases;
+    private final long[] timestampsNs;
+    private final int[] threadIds;
+    private final long[] cookies;
+    private long written;
+
+    public TraceRecorder(Clock clock, int capacity) {
+        this.clock = clock;
+        names = new String[capacity];
+        phases = new char[capacity];
+        timestampsNs = new long[capacity];
+        threadIds = new int[capacity];
+        cookies = new long[capacity];
+    }
+
+    public void begin(String name, int threadId) {
+        record(BEGIN, name, threadId, 0);
+    }
+
+    /** Closes the innermost open section on {@code threadId}. */
+    public void end(int threadId) {
+        record(END, null, threadId, 0);
+    }
+
+    /** Starts a section that may end on another thread; {@code cookie} pairs it with its end. */
+    public void beginAsync(String name, long cookie) {
+        record(ASYNC_BEGIN, name, 0, cookie);
+    }
+
+    public void endAsync(String name, long cookie) {
+        record(ASYNC_END, name, 0, cookie);
+    }
+
+    public void instant(String name, int threadId) {
+        record(INSTANT, name, threadId, 0);
+    }
+
+    private synchronized void record(char phase, String name, int threadId, long cookie) {
+        int slot = (int) (written % names.length);
+        names[slot] = name;
+        phases[slot] = phase;
+        timestampsNs[slot] = clock.elapsedRealtimeNanos();
+        threadIds[slot] = threadId;
+        cookies[slot] = cookie;
+        written++;
+    }
+
+    /** Events currently held, at most the capacity. */
+    public synchronized int size() {
+        return (int) Math.min(written, names.length);
+    }
+
+    /**
+     * Appends the held events, oldest first, as trace-event objects separated by commas, without
+     * the surrounding array, so several processes can be merged into one "traceEvents" list.
+     * An END whose BEGIN was overwritten is dropped, as the viewers would misnest it.
+     *
+     * @return the number of events appended
+     */
+    public synchronized int appendEvents(StringBuilder out, int pid, String processName) {
+        int count = 0;
+        if (processName != null) {
+            out.append("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":").append(pid)
+                    .append(",\"tid\":0,\"args\":{\"name\":");
+            appendString(out, processName);
+            out.append("}}");
+            count++;
+        }
+        long first = Math.max(0, written - names.length);
+        Map<Integer, Integer> depth = new HashMap<>();
+        for (long i = first; i < written; i++) {
+            int slot = (int) (i % names.length);
+            char phase = phases[slot];
+            int tid = threadIds[slot];
+            if (phase == BEGIN) {
+                depth.merge(tid, 1, Integer::sum);
+            } else if (phase == END) {
+                Integer open = depth.get(tid);
+                if (open == null || open == 0) continue;
+                depth.put(tid, open - 1);
+            }
+            if (count > 0) out.append(',');
+            out.append("{\"ph\":\"").append(phase).append('"');
+            if (names[slot] != null) {
+                out.append(",\"name\":");
+                appendString(out, names[slot]);
+            }
+            // Microseconds, with the sub-microsecond part kept so close events stay ordered
+            long ns = timestampsNs[slot];
+            out.append(",\"ts\":").append(ns / 1000).append('.').append(String.format(Locale.US, "%03d", ns % 1000));
+            out.append(",\"pid\":").append(pid).append(",\"tid\":").append(tid);
+            if (phase == ASYNC_BEGIN || phase == ASYNC_END) {
+                out.append(",\"cat\":\"").append(CATEGORY).append("\",\"id\":\"0x").append(Long.toHexString(cookies[slot])).append('"');
+            } else if (phase == INSTANT) {
+                out.append(",\"s\":\"t\"");
+            }
+            out.append('}');
+            count++;
+        }
+        return count;
+    }
+
+    /** A complete trace file for this recorder alone. */
+    public String toJson(int pid, String processName) {
+        StringBuilder out = new StringBuilder("{\"traceEvents\":[");
+        appendEvents(out, pid, processName);
+        return out.append("],\"displayTimeUnit\":\"ms\"}").toString();
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format(Locale.US, "\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
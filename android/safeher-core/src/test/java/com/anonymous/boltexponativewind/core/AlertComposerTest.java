@@ -0,0 +1,48 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class AlertComposerTest {
+    private final AlertComposer composer = new AlertComposer(Locale.US, TimeZone.getTimeZone("UTC"));
+
+    @Test
+    public void includesTimeAddressAndMapsLink() {
+        LocationSource.Fix fix = new LocationSource.Fix(12.5, 77.25, 10f, 0L);
+        String message = composer.compose(0L, fix, "MG Road", null);
+        assertTrue(message.contains("Time: 01/01/1970, 12:00:00 AM\n"));
+        assertTrue(message.contains("Location: MG Road\n"));
+        assertTrue(message.contains("query=12.5,77.25\n"));
+        assertFalse(message.contains("Recent path"));
+    }
+
+    @Test
+    public void fallsBackWithoutAddressOrFix() {
+        LocationSource.Fix fix = new LocationSource.Fix(1.0, 2.0, 10f, 0L);
+        assertTrue(composer.compose(0L, fix, null, null).contains("Location: Lat: 1.0, Lon: 2.0\n"));
+        assertTrue(composer.compose(0L, null, null, "https://t").contains("Location: Location unavailable\n"));
+        assertTrue(composer.compose(0L, null, null, "https://t").contains("Recent path: https://t\n"));
+    }
+
+    @Test
+    public void rendersCustomTemplateAndLocalizedFallback() {
+        AlertTemplate template = AlertTemplate.compile("Help! {address} {maps}{#note} - {note}{/note}");
+        AlertComposer custom = new AlertComposer(template, Locale.US, TimeZone.getTimeZone("UTC"), "Blue car");
+        LocationSource.Fix fix = new LocationSource.Fix(1.0, 2.0, 10f, 0L);
+        String expected = "Help! Home https://www.google.com/maps/search/?api=1&query=1.0,2.0 - Blue car";
+        assertEquals(expected, custom.compose(0L, fix, "Home", null));
+        // The reused builder must not carry anything over
+        assertEquals(expected, custom.compose(0L, fix, "Home", null));
+
+        Locale hindi = new Locale("hi", "IN");
+        AlertComposer composer = new AlertComposer(hindi, TimeZone.getTimeZone("UTC"));
+        assertTrue(composer.compose(0L, null, null, null).contains("स्थान: स्थान उपलब्ध नहीं\n"));
+        assertEquals(AlertComposer.builtIn(Locale.US), AlertComposer.builtIn(Locale.JAPAN));
+    }
+}
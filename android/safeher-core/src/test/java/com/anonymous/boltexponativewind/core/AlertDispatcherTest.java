@@ -0,0 +1,134 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class AlertDispatcherTest {
+    private final List<String> sent = new ArrayList<>();
+    private final List<String> results = new ArrayList<>();
+    private final List<Integer> tiers = new ArrayList<>();
+
+    private AlertDispatcher.Listener listener(String reached) {
+        return new AlertDispatcher.Listener() {
+            @Override
+            public boolean isAlreadyReached(String phone) {
+                return phone.equals(reached);
+            }
+
+            @Override
+            public void onTierStarted(int tier, int queued, long etaMs) {
+                tiers.add(tier);
+            }
+
+            @Override
+            public void onRecipientResult(String phone, String status) {
+                results.add(phone + "=" + status);
+            }
+        };
+    }
+
+    @Test
+    public void sendsInTierOrderAndSkipsReached() {
+        SmsSink sink = (phone, parts) -> sent.add(phone);
+        AlertDispatcher dispatcher = new AlertDispatcher(sink, new SendScheduler(new FakeClock()));
+        Outbox outbox = new Outbox(TieredContacts.parse("+3;2,+1,+2"));
+        int submitted = dispatcher.dispatch(outbox, Collections.singletonList("help"), listener("+2"));
+
+        assertEquals(2, submitted);
+        assertEquals(Arrays.asList("+1", "+3"), sent);
+        assertEquals(Arrays.asList("+1=submitted", "+3=submitted"), results);
+        assertEquals(Collections.singletonList(2), tiers);
+        assertEquals(Outbox.PENDING, outbox.state("+2"));
+    }
+
+    @Test(timeout = 5000)
+    public void tierOneNeverWaitsForQuota() {
+        // Six UCS-2 parts each: four recipients are twice the burst
+        List<String> parts = Collections.nCopies(6, "help");
+        SmsSink sink = (phone, sentParts) -> sent.add(phone);
+        SendScheduler scheduler = new SendScheduler(new FakeClock());
+        AlertDispatcher dispatcher = new AlertDispatcher(sink, scheduler);
+        int submitted = dispatcher.dispatch(Outbox.untiered(Arrays.asList("+1", "+2", "+3", "+4")), parts,
+                listener(null));
+
+        assertEquals(4, submitted);
+        assertEquals(Arrays.asList("+1", "+2", "+3", "+4"), sent);
+        // The lower tiers after it wait off the debt
+        assertEquals(12 * SendScheduler.REFILL_MS, scheduler.estimateWaitMs(0));
+    }
+
+    @Test
+    public void failureIsPerRecipient() {
+        SmsSink sink = (phone, parts) -> {
+            if (phone.equals("+1")) throw new IllegalStateException("No SIM left to try");
+            sent.add(phone);
+        };
+        AlertDispatcher dispatcher = new AlertDispatcher(sink, new SendScheduler(new FakeClock()));
+        int submitted = dispatcher.dispatch(Outbox.untiered(Arrays.asList("+1", "+2")),
+                Collections.singletonList("help"), listener(null));
+
+        assertEquals(1, submitted);
+        assertEquals(Arrays.asList("+1=failed", "+2=submitted"), results);
+    }
+
+    @Test
+    public void cancelStopsRemainingRecipients() {
+        Outbox outbox = Outbox.untiered(Arrays.asList("+1", "+2", "+3"));
+        SmsSink sink = (phone, parts) -> {
+            sent.add(phone);
+            outbox.cancel();
+        };
+        AlertDispatcher dispatcher = new AlertDispatcher(sink, new SendScheduler(new FakeClock()));
+        int submitted = dispatcher.dispatch(outbox, Collections.singletonList("help"), listener(null));
+
+        assertEquals(1, submitted);
+        assertEquals(Arrays.asList("+1=submitted", "+2=cancelled", "+3=cancelled"), results);
+    }
+
+    @Test(timeout = 5000)
+    public void cancellingTheTaskEndsAQuotaWait() throws Exception {
+        SendScheduler scheduler = new SendScheduler(new FakeClock());
+        assertTrue(scheduler.tryAcquire(SendScheduler.BURST));
+        CountDownLatch waiting = new CountDownLatch(1);
+        AlertDispatcher.Listener listener = listener(null);
+        AlertDispatcher.Listener signalling = new AlertDispatcher.Listener() {
+            @Override
+            public boolean isAlreadyReached(String phone) {
+                return listener.isAlreadyReached(phone);
+            }
+
+            @Override
+            public void onTierStarted(int tier, int queued, long etaMs) {
+                waiting.countDown();
+            }
+
+            @Override
+            public void onRecipientResult(String phone, String status) {
+                listener.onRecipientResult(phone, status);
+            }
+        };
+        Outbox outbox = new Outbox(TieredContacts.parse("+1;2,+2;2"));
+        AlertDispatcher dispatcher = new AlertDispatcher((phone, parts) -> sent.add(phone), scheduler);
+        TaskRuntime.Task task = new TaskRuntime(Clock.SYSTEM).submit(TaskRuntime.Lane.EMERGENCY, "sms_job", 60_000,
+                t -> dispatcher.dispatch(outbox, Collections.singletonList("help"), signalling));
+
+        // The bucket is empty and the fake clock never refills it, so the job waits until cancelled
+        assertTrue(waiting.await(2, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        task.cancel();
+
+        assertTrue(task.await(2_000));
+        assertTrue(sent.isEmpty());
+        assertEquals(Arrays.asList("+1=cancelled", "+2=cancelled"), results);
+        assertTrue(outbox.isCancelled());
+    }
+}
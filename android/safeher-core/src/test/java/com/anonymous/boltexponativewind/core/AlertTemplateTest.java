@@ -0,0 +1,55 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class AlertTemplateTest {
+    /** Renders each slot as its name in brackets; slots listed in present have a value. */
+    private static String render(String source, int... present) {
+        StringBuilder out = new StringBuilder();
+        AlertTemplate.compile(source).render(new AlertTemplate.Slots() {
+            @Override
+            public boolean has(int slot) {
+                for (int p : present) {
+                    if (p == slot) return true;
+                }
+                return false;
+            }
+
+            @Override
+            public void append(int slot, StringBuilder sb) {
+                sb.append('[').append(slot).append(']');
+            }
+        }, out);
+        return out.toString();
+    }
+
+    @Test
+    public void rendersSlotsAndEscapedBraces() {
+        assertEquals("At [0] near [2] {ok}", render("At {time} near {address} {{ok}}"));
+        assertEquals("", render(""));
+    }
+
+    @Test
+    public void sectionsRenderOnlyWhenTheirSlotHasAValue() {
+        String source = "a{#trail}, path [{trail}]{/trail}{#note}, {note}{/note}.";
+        assertEquals("a.", render(source));
+        assertEquals("a, path [[4]].", render(source, AlertTemplate.TRAIL));
+        assertEquals("a, path [[4]], [5].", render(source, AlertTemplate.TRAIL, AlertTemplate.NOTE));
+        assertEquals("x[5]y", render("x{#coords}{/coords}{#note}{#trail}t{/trail}{note}{/note}y",
+                AlertTemplate.NOTE));
+    }
+
+    @Test
+    public void rejectsMalformedTemplates() {
+        for (String bad : new String[] { "{nope}", "{time", "time}", "{#note}x", "{#note}{/trail}", "{}" }) {
+            try {
+                AlertTemplate.compile(bad);
+                fail("Compiled " + bad);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+}
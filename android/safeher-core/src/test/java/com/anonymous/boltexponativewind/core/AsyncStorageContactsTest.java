@@ -0,0 +1,24 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class AsyncStorageContactsTest {
+    @Test
+    public void extractsPhonesFromDump() {
+        String dump = "\u0000junk@safeher_user{\"phone\":\"+10\"}\u0001@safeher_emergency_contacts"
+                + "[{\"id\":\"1\",\"name\":\"Asha \\\"Didi\\\"\",\"phone\":\"+919876543210\"},"
+                + "{\"id\":\"2\",\"name\":\"Ravi\",\"phone\" : \"9123456789\"}]\u0002{\"phone\":\"+99\"}";
+        assertEquals(Arrays.asList("+919876543210", "9123456789"), AsyncStorageContacts.parse(dump));
+    }
+
+    @Test
+    public void missingKeyGivesNothing() {
+        assertTrue(AsyncStorageContacts.parse("{\"phone\":\"+1\"}").isEmpty());
+        assertTrue(AsyncStorageContacts.parse(null).isEmpty());
+    }
+}
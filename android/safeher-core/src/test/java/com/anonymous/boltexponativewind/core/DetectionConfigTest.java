@@ -0,0 +1,39 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class DetectionConfigTest {
+    @Test
+    public void emptyValuesGiveDefaults() {
+        DetectionConfig config = DetectionConfig.from(new HashMap<>());
+        assertEquals(ShakeDetector.THRESHOLD_GRAVITY, config.thresholdG, 0f);
+        assertEquals(ShakeDetector.SLOP_TIME_MS, config.slopMs);
+        assertEquals(ShakeDetector.COUNT_RESET_TIME_MS, config.resetMs);
+        assertEquals(ShakeDetector.COUNT_THRESHOLD, config.count);
+        assertEquals(DetectionConfig.MODE_MAGNITUDE, config.mode);
+        assertEquals(DetectionConfig.DEFAULT_SAMPLING_US, config.samplingPeriodUs);
+    }
+
+    @Test
+    public void badValuesFallBackOneByOne() {
+        Map<String, String> values = new HashMap<>();
+        values.put(DetectionConfig.KEY_THRESHOLD_G, " 2.2 ");
+        values.put(DetectionConfig.KEY_SLOP_MS, "abc");
+        values.put(DetectionConfig.KEY_RESET_MS, "400"); // shorter than the slop
+        values.put(DetectionConfig.KEY_COUNT, "4");
+        values.put(DetectionConfig.KEY_MODE, "wobble");
+        values.put(DetectionConfig.KEY_SAMPLING_US, "20000");
+        DetectionConfig config = DetectionConfig.from(values);
+        assertEquals(2.2f, config.thresholdG, 0f);
+        assertEquals(ShakeDetector.SLOP_TIME_MS, config.slopMs);
+        assertEquals(ShakeDetector.COUNT_RESET_TIME_MS, config.resetMs);
+        assertEquals(4, config.count);
+        assertEquals(DetectionConfig.MODE_MAGNITUDE, config.mode);
+        assertEquals(20_000, config.samplingPeriodUs);
+    }
+}
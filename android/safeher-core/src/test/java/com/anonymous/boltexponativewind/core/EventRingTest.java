@@ -0,0 +1,46 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class EventRingTest {
+    private static final EventRing.Formatter FORMAT =
+            (out, event, a, b) -> out.append("e").append(event).append(' ').append(a).append(' ').append(b);
+
+    private final FakeClock clock = new FakeClock();
+
+    private static String roundTrip(EventRing ring) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ring.writeTo(new DataOutputStream(bytes));
+        StringBuilder out = new StringBuilder();
+        EventRing.decode(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), FORMAT, out);
+        return out.toString();
+    }
+
+    @Test
+    public void decodesRecordsInOrder() throws IOException {
+        EventRing ring = new EventRing(clock, 8);
+        ring.record(1, 3, 3);
+        clock.advance(250);
+        ring.record(2, -1, 0);
+        assertEquals("2023-11-14T22:13:20.000Z e1 3 3\n2023-11-14T22:13:20.250Z e2 -1 0\n", roundTrip(ring));
+    }
+
+    @Test
+    public void wrapsKeepingNewest() throws IOException {
+        EventRing ring = new EventRing(clock, 2);
+        ring.record(1, 0, 0);
+        ring.record(2, 0, 0);
+        ring.record(3, 0, 0);
+        assertEquals(2, ring.size());
+        assertEquals("… 1 older event(s) overwritten\n"
+                + "2023-11-14T22:13:20.000Z e2 0 0\n2023-11-14T22:13:20.000Z e3 0 0\n", roundTrip(ring));
+    }
+}
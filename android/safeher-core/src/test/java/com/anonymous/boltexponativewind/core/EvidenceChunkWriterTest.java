@@ -0,0 +1,103 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EvidenceChunkWriterTest {
+    private static final int RATE = 8_000;
+    private static final long START_MS = 1_700_000_000_000L;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private SecretKey key;
+    private final List<File> chunks = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        key = generator.generateKey();
+    }
+
+    @Test
+    public void pooledCaptureSplitsIntoSelfContainedChunks() throws Exception {
+        short[] source = ImaAdpcmTest.sine(RATE, 300, RATE * 5 + 1234); // 5.15 s
+        PcmPool pool = new PcmPool(2, 800);
+        EvidenceChunkWriter writer = new EvidenceChunkWriter(tmp.getRoot(), "alert", key, RATE, 2,
+                (chunk, seq, samples) -> chunks.add(chunk));
+
+        for (int offset = 0; offset < source.length; ) {
+            PcmPool.Buffer buffer = pool.acquire();
+            buffer.length = Math.min(buffer.samples.length, source.length - offset);
+            System.arraycopy(source, offset, buffer.samples, 0, buffer.length);
+            buffer.capturedAtMs = START_MS + offset * 1000L / RATE;
+            pool.submit(buffer);
+            offset += buffer.length;
+
+            PcmPool.Buffer captured = pool.take(0);
+            writer.write(captured.samples, captured.length, captured.capturedAtMs);
+            pool.release(captured);
+        }
+        writer.close();
+
+        assertEquals(3, chunks.size());
+        assertEquals(0, tmp.getRoot().listFiles((dir, name) -> name.endsWith(".part")).length);
+        short[] decoded = new short[source.length];
+        int at = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            EvidenceChunkWriter.Chunk chunk = EvidenceChunkWriter.read(chunks.get(i), key);
+            assertEquals(i, chunk.seq);
+            assertEquals(START_MS + i * 2000L, chunk.startMs);
+            System.arraycopy(chunk.decode(), 0, decoded, at, chunk.samples);
+            at += chunk.samples;
+        }
+        assertEquals(source.length, at);
+        assertTrue(ImaAdpcmTest.snrDb(source, decoded, 200) > 20);
+    }
+
+    @Test
+    public void exhaustedPoolDropsInsteadOfGrowing() {
+        PcmPool pool = new PcmPool(2, 16);
+        PcmPool.Buffer first = pool.acquire();
+        pool.acquire();
+        assertNull(pool.acquire());
+        pool.release(first);
+        assertEquals(first, pool.acquire());
+    }
+
+    @Test
+    public void alteredChunkFailsAuthentication() throws Exception {
+        EvidenceChunkWriter writer = new EvidenceChunkWriter(tmp.getRoot(), "alert", key, RATE, 1,
+                (chunk, seq, samples) -> chunks.add(chunk));
+        short[] pcm = ImaAdpcmTest.sine(RATE, 300, 500);
+        writer.write(pcm, pcm.length, START_MS);
+        writer.close();
+
+        try (RandomAccessFile file = new RandomAccessFile(chunks.get(0), "rw")) {
+            file.seek(13); // inside the start time, which is authenticated but not encrypted
+            file.write(0x7f);
+        }
+        try {
+            EvidenceChunkWriter.read(chunks.get(0), key);
+            fail("altered chunk was accepted");
+        } catch (IOException expected) {
+        }
+    }
+}
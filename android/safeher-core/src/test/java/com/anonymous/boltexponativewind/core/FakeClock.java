@@ -0,0 +1,22 @@
+package com.anonymous.boltexponativewind.core;
+
+/** Clock the test moves by hand. */
+class FakeClock implements Clock {
+    private long elapsed;
+    private long wall = 1_700_000_000_000L;
+
+    void advance(long ms) {
+        elapsed += ms;
+        wall += ms;
+    }
+
+    @Override
+    public long elapsedRealtime() {
+        return elapsed;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return wall;
+    }
+}
@@ -0,0 +1,48 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class ImaAdpcmTest {
+    @Test
+    public void sineSurvivesRoundTripAcrossBuffers() {
+        short[] pcm = sine(16_000, 440, 8_001);
+        ImaAdpcm encoder = new ImaAdpcm();
+        ByteBuffer out = ByteBuffer.allocate(ImaAdpcm.encodedBytes(pcm.length));
+        // Odd-sized pieces, so nibbles straddle encode() calls
+        for (int offset = 0; offset < pcm.length; offset += 333) {
+            encoder.encode(pcm, offset, Math.min(333, pcm.length - offset), out);
+        }
+        encoder.flush(out);
+        assertEquals(ImaAdpcm.encodedBytes(pcm.length), out.position());
+
+        out.flip();
+        short[] decoded = new short[pcm.length];
+        new ImaAdpcm().decode(out, decoded, 0, decoded.length);
+        assertTrue("SNR " + snrDb(pcm, decoded, 200), snrDb(pcm, decoded, 200) > 20);
+    }
+
+    static short[] sine(int sampleRate, double hz, int samples) {
+        short[] pcm = new short[samples];
+        for (int i = 0; i < samples; i++) {
+            pcm[i] = (short) (12_000 * Math.sin(2 * Math.PI * hz * i / sampleRate));
+        }
+        return pcm;
+    }
+
+    /** Signal-to-noise ratio after the first skip samples, while the step size adapts. */
+    static double snrDb(short[] expected, short[] actual, int skip) {
+        double signal = 0;
+        double noise = 0;
+        for (int i = skip; i < expected.length; i++) {
+            signal += (double) expected[i] * expected[i];
+            double error = expected[i] - actual[i];
+            noise += error * error;
+        }
+        return 10 * Math.log10(signal / Math.max(noise, 1));
+    }
+}
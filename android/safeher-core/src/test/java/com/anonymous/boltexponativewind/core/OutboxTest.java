@@ -0,0 +1,46 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class OutboxTest {
+    @Test
+    public void lowerTiersStartQueued() {
+        Outbox outbox = new Outbox(TieredContacts.parse("+1;1,+2;2"));
+        assertEquals(Outbox.PENDING, outbox.state("+1"));
+        assertEquals(Outbox.QUEUED, outbox.state("+2"));
+    }
+
+    @Test
+    public void statesOnlyMoveForward() {
+        Outbox outbox = Outbox.untiered(Arrays.asList("+1"));
+        assertTrue(outbox.transition("+1", Outbox.SUBMITTED));
+        assertTrue(outbox.transition("+1", Outbox.DELIVERED));
+        // A late SMS_SENT for another part must not undo delivery
+        assertFalse(outbox.transition("+1", Outbox.SENT));
+        assertFalse(outbox.transition("+1", Outbox.FAILED));
+        assertEquals(Outbox.DELIVERED, outbox.state("+1"));
+    }
+
+    @Test
+    public void callbackMayOvertakeSubmit() {
+        Outbox outbox = Outbox.untiered(Arrays.asList("+1"));
+        assertTrue(outbox.transition("+1", Outbox.SENT));
+        assertFalse(outbox.transition("+1", Outbox.SUBMITTED));
+    }
+
+    @Test
+    public void cancelOnlyBeforeSend() {
+        assertTrue(Outbox.canTransition(Outbox.QUEUED, Outbox.CANCELLED));
+        assertFalse(Outbox.canTransition(Outbox.SUBMITTED, Outbox.CANCELLED));
+        assertFalse(Outbox.canTransition(Outbox.CANCELLED, Outbox.SUBMITTED));
+        assertTrue(Outbox.canTransition(Outbox.SENT, Outbox.FAILED));
+        assertFalse(Outbox.canTransition(Outbox.FAILED, Outbox.SENT));
+        assertFalse(Outbox.canTransition(Outbox.PENDING, "bogus"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SendSchedulerTest {
+    @Test
+    public void burstThenRefill() {
+        FakeClock clock = new FakeClock();
+        SendScheduler scheduler = new SendScheduler(clock);
+        for (int i = 0; i < SendScheduler.BURST; i++) {
+            assertTrue(scheduler.tryAcquire(1));
+        }
+        assertFalse(scheduler.tryAcquire(1));
+        clock.advance(SendScheduler.REFILL_MS);
+        assertTrue(scheduler.tryAcquire(1));
+        assertFalse(scheduler.tryAcquire(1));
+    }
+
+    @Test
+    public void neverExceedsPlatformQuotaInAWindow() {
+        FakeClock clock = new FakeClock();
+        SendScheduler scheduler = new SendScheduler(clock);
+        int sent = 0;
+        for (long t = 0; t < SendScheduler.PLATFORM_WINDOW_MS; t += 1000) {
+            while (scheduler.tryAcquire(1)) sent++;
+            clock.advance(1000);
+        }
+        assertTrue("sent " + sent, sent <= SendScheduler.PLATFORM_QUOTA);
+    }
+
+    @Test
+    public void estimateCoversDeficit() {
+        FakeClock clock = new FakeClock();
+        SendScheduler scheduler = new SendScheduler(clock);
+        assertEquals(0, scheduler.estimateWaitMs(SendScheduler.BURST));
+        assertEquals(3 * SendScheduler.REFILL_MS, scheduler.estimateWaitMs(SendScheduler.BURST + 3));
+    }
+
+    @Test
+    public void acquireReturnsAtOnceWithinBurst() throws InterruptedException {
+        SendScheduler scheduler = new SendScheduler(new FakeClock());
+        scheduler.acquire(SendScheduler.BURST);
+        assertFalse(scheduler.tryAcquire(1));
+    }
+}
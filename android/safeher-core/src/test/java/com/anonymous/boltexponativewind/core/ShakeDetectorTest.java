@@ -0,0 +1,102 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShakeDetectorTest {
+    private static final float HARD = 30f; // ~3.1 g, above the threshold
+    private static final float SOFT = 9.8f;
+
+    private int triggers;
+    private int samples;
+    private ShakeDetector detector;
+
+    @Before
+    public void setUp() {
+        detector = new ShakeDetector(new ShakeDetector.Listener() {
+            @Override
+            public void onSample(long timestampMs, int shakeCount) {
+                samples++;
+            }
+
+            @Override
+            public void onShake(int shakeCount) {
+            }
+
+            @Override
+            public void onTripleShake() {
+                triggers++;
+            }
+        });
+    }
+
+    @Test
+    public void threeSpacedShakesTrigger() {
+        detector.onAcceleration(1000, HARD, 0, 0);
+        detector.onAcceleration(1600, 0, HARD, 0);
+        detector.onAcceleration(2200, 0, 0, HARD);
+        assertEquals(1, triggers);
+        assertEquals(0, detector.shakeCount());
+        assertEquals(3, samples);
+    }
+
+    @Test
+    public void shakesWithinSlopCountOnce() {
+        detector.onAcceleration(1000, HARD, 0, 0);
+        detector.onAcceleration(1100, HARD, 0, 0);
+        detector.onAcceleration(1200, HARD, 0, 0);
+        assertEquals(1, detector.shakeCount());
+        assertEquals(0, triggers);
+    }
+
+    @Test
+    public void countResetsAfterPause() {
+        detector.onAcceleration(1000, HARD, 0, 0);
+        detector.onAcceleration(1600, HARD, 0, 0);
+        detector.onAcceleration(5000, HARD, 0, 0);
+        assertEquals(1, detector.shakeCount());
+        assertEquals(0, triggers);
+    }
+
+    @Test
+    public void gravityAloneNeverCounts() {
+        for (long t = 0; t < 10_000; t += 60) {
+            detector.onAcceleration(t, 0, 0, SOFT);
+        }
+        assertEquals(0, detector.shakeCount());
+        assertEquals(0, triggers);
+    }
+
+    @Test
+    public void configSwapAppliesFromNextSample() {
+        detector.onAcceleration(1000, HARD, 0, 0);
+        detector.onAcceleration(1600, HARD, 0, 0);
+        detector.setConfig(new DetectionConfig(2.7f, 500, 3000, 4, DetectionConfig.MODE_MAGNITUDE,
+                DetectionConfig.DEFAULT_SAMPLING_US));
+        detector.onAcceleration(2200, HARD, 0, 0);
+        assertEquals(0, triggers);
+        assertEquals(3, detector.shakeCount());
+        detector.onAcceleration(2800, HARD, 0, 0);
+        assertEquals(1, triggers);
+    }
+
+    @Test
+    public void linearModeIgnoresSteadyAcceleration() {
+        float steady = 13f; // ~1.3 g held, e.g. a phone on a braking bike
+        detector.setConfig(new DetectionConfig(1.2f, 500, 3000, 3, DetectionConfig.MODE_LINEAR,
+                DetectionConfig.DEFAULT_SAMPLING_US));
+        for (long t = 0; t < 10_000; t += 60) {
+            detector.onAcceleration(t, 0, 0, steady);
+        }
+        assertEquals(0, triggers);
+
+        detector.setConfig(new DetectionConfig(1.2f, 500, 3000, 3, DetectionConfig.MODE_MAGNITUDE,
+                DetectionConfig.DEFAULT_SAMPLING_US));
+        for (long t = 10_000; t < 12_000; t += 60) {
+            detector.onAcceleration(t, 0, 0, steady);
+        }
+        assertEquals(1, triggers);
+    }
+}
@@ -0,0 +1,41 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class SmsSegmenterTest {
+    private static String repeat(String s, int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) sb.append(s);
+        return sb.toString();
+    }
+
+    @Test
+    public void gsmLimits() {
+        assertEquals(1, SmsSegmenter.divide(repeat("a", 160)).size());
+        List<String> parts = SmsSegmenter.divide(repeat("a", 161));
+        assertEquals(2, parts.size());
+        assertEquals(153, parts.get(0).length());
+    }
+
+    @Test
+    public void extensionCharactersCountDouble() {
+        assertTrue(SmsSegmenter.isGsm7("[x]"));
+        assertEquals(2, SmsSegmenter.divide(repeat("[", 81)).size());
+    }
+
+    @Test
+    public void emojiSwitchesToUcs2WithoutSplittingPairs() {
+        String text = repeat("a", 66) + "🚨" + repeat("b", 10);
+        assertFalse(SmsSegmenter.isGsm7(text));
+        List<String> parts = SmsSegmenter.divide(text);
+        assertEquals(2, parts.size());
+        assertEquals(66, parts.get(0).length()); // the emoji moved whole to part 2
+        assertEquals(text, parts.get(0) + parts.get(1));
+    }
+}
@@ -0,0 +1,101 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TaskRuntimeTest {
+    private final TaskRuntime runtime = new TaskRuntime(Clock.SYSTEM);
+
+    @Test
+    public void syncWaitsForEmergencyWork() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        TaskRuntime.Task emergency = runtime.submit(TaskRuntime.Lane.EMERGENCY, "dispatch", 5_000, task -> {
+            release.await(5, TimeUnit.SECONDS);
+            order.add("dispatch");
+        });
+        TaskRuntime.Task sync = runtime.submit(TaskRuntime.Lane.SYNC, "upload", 5_000, task -> order.add("upload"));
+
+        assertFalse(sync.await(200));
+        assertTrue(order.isEmpty());
+        release.countDown();
+        assertTrue(emergency.await(2_000));
+        assertTrue(sync.await(2_000));
+        assertEquals(List.of("dispatch", "upload"), order);
+        assertEquals(TaskRuntime.DONE, sync.state());
+    }
+
+    @Test
+    public void cancelInterruptsAndExpiredTasksAreSkipped() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        TaskRuntime.Task blocking = runtime.submit(TaskRuntime.Lane.HOUSEKEEPING, "sleep", 60_000, task -> {
+            started.countDown();
+            Thread.sleep(60_000);
+        });
+        TaskRuntime.Task expired = runtime.submit(TaskRuntime.Lane.HOUSEKEEPING, "late", 1, task -> {
+            throw new AssertionError("ran past its deadline");
+        });
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        Thread.sleep(20);
+        blocking.cancel();
+
+        assertTrue(blocking.await(2_000));
+        assertTrue(expired.await(2_000));
+        assertEquals(TaskRuntime.CANCELLED, blocking.state());
+        assertEquals(TaskRuntime.TIMED_OUT, expired.state());
+        Map<String, String> stats = runtime.stats();
+        assertEquals("1", stats.get("housekeeping_cancelled"));
+        assertEquals("1", stats.get("housekeeping_timed_out"));
+        assertEquals("1", stats.get("housekeeping_max_queue_depth"));
+    }
+
+    @Test
+    public void deadlineInterruptsARunningTask() throws Exception {
+        TaskRuntime.Task slow = runtime.submit(TaskRuntime.Lane.HOUSEKEEPING, "stuck", 100,
+                task -> Thread.sleep(60_000));
+
+        assertTrue(slow.await(2_000));
+        assertEquals(TaskRuntime.TIMED_OUT, slow.state());
+    }
+
+    @Test
+    public void fullEmergencyQueueRunsOnASpareThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 3 + 16; i++) {
+            runtime.submit(TaskRuntime.Lane.EMERGENCY, "hold", 5_000, task -> release.await(5, TimeUnit.SECONDS));
+        }
+        Thread caller = Thread.currentThread();
+        List<Thread> ranOn = Collections.synchronizedList(new ArrayList<>());
+        TaskRuntime.Task overflow = runtime.submit(TaskRuntime.Lane.EMERGENCY, "overflow", 5_000,
+                task -> ranOn.add(Thread.currentThread()));
+        assertTrue(overflow.await(2_000));
+        assertEquals(TaskRuntime.DONE, overflow.state());
+        assertNotEquals(caller, ranOn.get(0));
+        release.countDown();
+        assertTrue(runtime.awaitEmergencyIdle(2_000));
+    }
+
+    @Test
+    public void pacedWorkDoesNotHoldBackSync() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        TaskRuntime.Task stream = runtime.submit(TaskRuntime.Lane.PACED, "tier_stream", 5_000,
+                task -> release.await(5, TimeUnit.SECONDS));
+        TaskRuntime.Task sync = runtime.submit(TaskRuntime.Lane.SYNC, "upload", 5_000, task -> { });
+
+        assertTrue(sync.await(2_000));
+        assertTrue(stream.state() <= TaskRuntime.RUNNING);
+        release.countDown();
+        assertTrue(stream.await(2_000));
+    }
+}
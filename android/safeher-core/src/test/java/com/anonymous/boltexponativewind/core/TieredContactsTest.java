@@ -0,0 +1,36 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TieredContactsTest {
+    @Test
+    public void normalizesAndOrdersByTier() {
+        List<TieredContacts.Contact> contacts =
+                TieredContacts.parse(" 9876543210;2, +447700900123 ,9123456789");
+        assertEquals(Arrays.asList("+447700900123", "+919123456789", "+919876543210"),
+                TieredContacts.phones(contacts));
+        assertArrayEquals(new int[] { 1, 1, 2 }, TieredContacts.tiers(contacts));
+    }
+
+    @Test
+    public void duplicateKeepsBestTier() {
+        List<TieredContacts.Contact> contacts = TieredContacts.parse("9876543210;3,+919876543210;2");
+        assertEquals(1, contacts.size());
+        assertEquals(2, contacts.get(0).tier);
+    }
+
+    @Test
+    public void badTierAndEmptyEntriesAreTolerated() {
+        List<TieredContacts.Contact> contacts = TieredContacts.parse("9876543210;x,, ;2,9123456789;0");
+        assertEquals(2, contacts.size());
+        assertEquals(TieredContacts.TIER_IMMEDIATE, contacts.get(0).tier);
+        assertEquals(TieredContacts.TIER_IMMEDIATE, contacts.get(1).tier);
+        assertEquals(0, TieredContacts.parse(null).size());
+    }
+}
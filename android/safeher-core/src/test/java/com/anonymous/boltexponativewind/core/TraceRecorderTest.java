@@ -0,0 +1,52 @@
+package com.anonymous.boltexponativewind.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TraceRecorderTest {
+    private final FakeClock clock = new FakeClock();
+
+    @Test
+    public void exportsChromeTraceEvents() {
+        TraceRecorder recorder = new TraceRecorder(clock, 16);
+        recorder.begin("compose", 7);
+        clock.advance(3);
+        recorder.end(7);
+        recorder.beginAsync("sms", 0x2a);
+        recorder.instant("trigger", 7);
+
+        String json = recorder.toJson(123, "detector");
+        assertTrue(json.startsWith("{\"traceEvents\":[{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":123"));
+        assertTrue(json.contains("{\"ph\":\"B\",\"name\":\"compose\",\"ts\":0.000,\"pid\":123,\"tid\":7}"));
+        assertTrue(json.contains("{\"ph\":\"E\",\"ts\":3000.000,\"pid\":123,\"tid\":7}"));
+        assertTrue(json.contains("\"ph\":\"b\",\"name\":\"sms\",\"ts\":3000.000,\"pid\":123,\"tid\":0,\"cat\":\"safeher\",\"id\":\"0x2a\"}"));
+        assertTrue(json.contains("\"ph\":\"i\",\"name\":\"trigger\""));
+        assertTrue(json.endsWith("],\"displayTimeUnit\":\"ms\"}"));
+    }
+
+    @Test
+    public void ringKeepsNewestAndDropsOrphanedEnds() {
+        TraceRecorder recorder = new TraceRecorder(clock, 4);
+        recorder.begin("old", 1);
+        recorder.instant("a", 1);
+        recorder.instant("b", 1);
+        recorder.instant("c", 1);
+        recorder.end(1); // its BEGIN is overwritten by now
+        assertEquals(4, recorder.size());
+
+        StringBuilder out = new StringBuilder();
+        assertEquals(3, recorder.appendEvents(out, 1, null));
+        assertFalse(out.toString().contains("\"old\""));
+        assertFalse(out.toString().contains("\"ph\":\"E\""));
+    }
+
+    @Test
+    public void escapesNames() {
+        TraceRecorder recorder = new TraceRecorder(clock, 2);
+        recorder.instant("say \"hi\"\n", 1);
+        assertTrue(recorder.toJson(1, null).contains("\"name\":\"say \\\"hi\\\"\\u000a\""));
+    }
+}
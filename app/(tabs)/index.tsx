@@ -11,15 +11,37 @@ import {
 } from "react-native";
 import { Shield, MapPin, MessageSquare, AlertCircle } from "lucide-react-native";
 import * as Haptics from "expo-haptics";
-import { sendEmergencyAlert } from "@/services/emergencyService";
+import {
+  sendEmergencyAlert,
+  subscribeToSmsJobEvents,
+  cancelSmsJob,
+  SmsJobEventType,
+} from "@/services/emergencyService";
 import { useShakeDetection } from "@/hooks/useShakeDetection";
 import { authService } from "@/services/authService";
 import { router } from "expo-router";
 
+interface SmsJobState {
+  id: string;
+  total: number;
+  statuses: Record<string, SmsJobEventType>;
+  finished: boolean;
+}
+
+const summarizeSmsJob = (job: SmsJobState): string => {
+  const statuses = Object.values(job.statuses);
+  const delivered = statuses.filter(s => s === 'delivered').length;
+  const sent = statuses.filter(s => s === 'sent').length;
+  const failed = statuses.filter(s => s === 'failed' || s === 'cancelled').length;
+  const waiting = Math.max(0, job.total - delivered - sent - failed);
+  return `Delivered ${delivered} · Sent ${sent} · Failed ${failed}` + (waiting > 0 ? ` · Waiting ${waiting}` : '');
+};
+
 export default function HomeScreen() {
   const [isAuthenticated, setIsAuthenticated] = useState(false);
   const [loading, setLoading] = useState(true);
   const [sending, setSending] = useState(false);
+  const [smsJob, setSmsJob] = useState<SmsJobState | null>(null);
 
   // Enable shake detection
   useShakeDetection(() => {
@@ -30,6 +52,21 @@ export default function HomeScreen() {
     checkAuthStatus();
   }, []);
 
+  // Live per-recipient status of the last alert
+  useEffect(() => {
+    const subscription = subscribeToSmsJobEvents((event) => {
+      setSmsJob((job) => {
+        if (!job || job.id !== event.jobId) return job;
+        if (event.type === 'done' || event.type === 'cancelled') return { ...job, finished: true };
+        if (!event.phone) return job;
+        // A late per-part 'sent' must not downgrade 'delivered'
+        if (job.statuses[event.phone] === 'delivered') return job;
+        return { ...job, statuses: { ...job.statuses, [event.phone]: event.type } };
+      });
+    });
+    return () => subscription.remove();
+  }, []);
+
 
   const { SafeHerStorage } = NativeModules;
   
@@ -120,6 +157,9 @@ export default function HomeScreen() {
       
       if (result.success) {
         console.log('✅ Emergency alert sent successfully');
+        if (result.jobId) {
+          setSmsJob({ id: result.jobId, total: result.sentTo ?? 0, statuses: {}, finished: false });
+        }
         
         // Success haptic
         if (Platform.OS !== 'web') {
@@ -130,7 +170,9 @@ export default function HomeScreen() {
 
         Alert.alert(
           '✅ Alert Sent!',
-          `Emergency message sent to ${result.sentTo || 'your'} contact${result.sentTo !== 1 ? 's' : ''}.`,
+          result.jobId === null
+            ? 'An emergency alert is already being sent to your contacts.'
+            : `Emergency message sending to ${result.sentTo || 'your'} contact${result.sentTo !== 1 ? 's' : ''}.`,
           [{ text: 'OK' }]
         );
       } else {
@@ -211,6 +253,17 @@ export default function HomeScreen() {
           </View>
         </TouchableOpacity>
 
+        {smsJob && (
+          <View style={styles.deliveryCard}>
+            <Text style={styles.deliveryText}>{summarizeSmsJob(smsJob)}</Text>
+            {!smsJob.finished && (
+              <TouchableOpacity onPress={() => cancelSmsJob(smsJob.id)}>
+                <Text style={styles.deliveryCancel}>Stop sending</Text>
+              </TouchableOpacity>
+            )}
+          </View>
+        )}
+
         <View style={styles.featuresContainer}>
           <View style={styles.feature}>
             <MapPin size={24} color="#2563EB" />
@@ -321,6 +374,27 @@ const styles = StyleSheet.create({
     marginTop: 8,
     textAlign: 'center',
   },
+  deliveryCard: {
+    flexDirection: 'row',
+    justifyContent: 'space-between',
+    alignItems: 'center',
+    backgroundColor: '#FFFFFF',
+    borderRadius: 12,
+    padding: 12,
+    marginTop: 16,
+    borderWidth: 1,
+    borderColor: '#E5E7EB',
+  },
+  deliveryText: {
+    fontSize: 13,
+    fontWeight: '600',
+    color: '#374151',
+  },
+  deliveryCancel: {
+    fontSize: 13,
+    fontWeight: '600',
+    color: '#DC2626',
+  },
   instructionsCard: {
     flexDirection: 'row',
     backgroundColor: '#FEF2F2',
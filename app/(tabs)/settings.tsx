@@ -6,6 +6,7 @@ import {
   TouchableOpacity,
   Switch,
   Alert,
+  AppState,
 } from 'react-native';
 import { 
   Bell, 
@@ -13,10 +14,18 @@ import {
   MessageSquare, 
   LogOut, 
   Shield,
+  Timer,
   Settings as SettingsIcon 
 } from 'lucide-react-native';
 import { permissionsService } from '@/services/permissionsService';
 import { authService } from '@/services/authService';
+import {
+  AUTO_DISPATCH_DEFAULT_SECONDS,
+  checkExactAlarms,
+  getAutoDispatchSeconds,
+  requestExactAlarms,
+  setAutoDispatchSeconds,
+} from '@/services/emergencyService';
 import { router } from 'expo-router';
 
 export default function SettingsScreen() {
@@ -25,11 +34,29 @@ export default function SettingsScreen() {
     location: false,
     sms: false,
   });
+  const [autoDispatchSeconds, setAutoDispatchSecondsState] = useState(0);
+  const [exactAlarms, setExactAlarms] = useState(true);
 
   useEffect(() => {
     checkPermissions();
+    getAutoDispatchSeconds().then(setAutoDispatchSecondsState);
+  }, []);
+
+  useEffect(() => {
+    checkExactAlarms().then(setExactAlarms);
+    // Again on return from the system's exact alarm page
+    const subscription = AppState.addEventListener('change', (state) => {
+      if (state === 'active') checkExactAlarms().then(setExactAlarms);
+    });
+    return () => subscription.remove();
   }, []);
 
+  const handleAutoDispatchToggle = (enabled: boolean) => {
+    const seconds = enabled ? AUTO_DISPATCH_DEFAULT_SECONDS : 0;
+    setAutoDispatchSeconds(seconds);
+    setAutoDispatchSecondsState(seconds);
+  };
+
   const checkPermissions = async () => {
     try {
       const notificationStatus = await permissionsService.checkNotificationPermission();
@@ -166,6 +193,44 @@ export default function SettingsScreen() {
           </View>
         </View>
 
+        <View style={styles.section}>
+          <Text style={styles.sectionTitle}>Emergency</Text>
+
+          <View style={styles.permissionsContainer}>
+            <View style={styles.permissionItem}>
+              <View style={styles.permissionIcon}>
+                <Timer size={24} color="#2563EB" />
+              </View>
+              <View style={styles.permissionContent}>
+                <Text style={styles.permissionTitle}>Auto-send countdown</Text>
+                <Text style={styles.permissionDescription}>
+                  {autoDispatchSeconds > 0
+                    ? `After a triple shake, the alert is sent in ${autoDispatchSeconds} s unless you tap NO`
+                    : 'After a triple shake, wait until you tap YES'}
+                </Text>
+              </View>
+              <Switch
+                trackColor={{ false: '#D1D5DB', true: '#DC2626' }}
+                thumbColor={autoDispatchSeconds > 0 ? '#FFFFFF' : '#F3F4F6'}
+                value={autoDispatchSeconds > 0}
+                onValueChange={handleAutoDispatchToggle}
+              />
+            </View>
+            {autoDispatchSeconds > 0 && !exactAlarms && (
+              <TouchableOpacity
+                style={styles.permissionItem}
+                onPress={requestExactAlarms}>
+                <View style={styles.permissionContent}>
+                  <Text style={styles.permissionTitle}>Allow exact alarms</Text>
+                  <Text style={styles.permissionDescription}>
+                    Without them, an auto-send may be delayed if the app is stopped during the countdown
+                  </Text>
+                </View>
+              </TouchableOpacity>
+            )}
+          </View>
+        </View>
+
         <View style={styles.section}>
           <Text style={styles.sectionTitle}>Account</Text>
           
@@ -0,0 +1,70 @@
+// services/alertHistoryService.ts
+import { NativeModules, Platform } from 'react-native';
+
+const { AlertHistory } = NativeModules;
+
+export interface AlertRecipient {
+  phone: string;
+  // 'queued' = waiting for SMS quota behind higher tiers
+  status: 'pending' | 'queued' | 'submitted' | 'sent' | 'delivered' | 'failed';
+  updatedAt: number;
+  // Channel that confirmed this recipient first ('sms' | 'relay') and how long it took
+  channel: string | null;
+  confirmedMs: number | null;
+  tier: number;
+  // Place in the send order for this alert
+  queuePosition: number | null;
+}
+
+export interface AlertRecord {
+  id: number;
+  createdAt: number;
+  // null when the alert had no location fix
+  latitude: number | null;
+  longitude: number | null;
+  address: string | null;
+  source: string;
+  status: 'sending' | 'sent' | 'failed';
+  synced: boolean;
+  // Passive-location path before the alert, as a Google encoded polyline
+  trail: string | null;
+  recipients: AlertRecipient[];
+}
+
+export interface AlertPage {
+  alerts: AlertRecord[];
+  // Pass back to getAlerts() for the next (older) page; null when there is nothing older
+  nextCursor: number | null;
+}
+
+/**
+ * Reads the native alert history, which also contains alerts sent while the JS app was not running.
+ */
+export const getAlerts = async (cursor: number | null = null, limit = 20): Promise<AlertPage> => {
+  if (Platform.OS !== 'android' || !AlertHistory?.getAlerts) {
+    return { alerts: [], nextCursor: null };
+  }
+  try {
+    return await AlertHistory.getAlerts(cursor ?? 0, limit);
+  } catch (error) {
+    console.error('❌ Failed to load alert history:', error);
+    return { alerts: [], nextCursor: null };
+  }
+};
+
+export const getUnsyncedCount = async (): Promise<number> => {
+  if (Platform.OS !== 'android' || !AlertHistory?.getUnsyncedCount) {
+    return 0;
+  }
+  try {
+    return await AlertHistory.getUnsyncedCount();
+  } catch (error) {
+    console.error('❌ Failed to count unsynced alerts:', error);
+    return 0;
+  }
+};
+
+export const alertHistoryService = {
+  getAlerts,
+  getUnsyncedCount,
+};
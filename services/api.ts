@@ -1,10 +1,18 @@
 // services/api.ts
 import AsyncStorage from '@react-native-async-storage/async-storage';
+import { NativeModules, Platform } from 'react-native';
+
+const { SafeHerStorage } = NativeModules;
 
 // use your computer's LAN IP (not localhost!)
 const DEFAULT_BASE = "http://192.168.0.111:5000";
 export const API_BASE = (process.env.BACKEND_URL as string) || DEFAULT_BASE;
 
+// The native AlertSyncWorker uploads alert history without the JS app, so it needs the base URL too
+if (Platform.OS === 'android' && SafeHerStorage?.setValue) {
+  SafeHerStorage.setValue('api_base', API_BASE);
+}
+
 export async function apiFetch(path: string, options: RequestInit = {}) {
   const token = await AsyncStorage.getItem('auth_token');
   const headers: Record<string, string> = {
@@ -1,5 +1,15 @@
 // services/authService.ts
 import AsyncStorage from "@react-native-async-storage/async-storage";
+import { NativeModules, Platform } from "react-native";
+
+const { SafeHerStorage } = NativeModules;
+
+// Mirror the token for native background work (AlertSyncWorker)
+const mirrorAuthToken = (token: string) => {
+  if (Platform.OS === "android" && SafeHerStorage?.setValue) {
+    SafeHerStorage.setValue("auth_token", token);
+  }
+};
 
 const API_URL = "https://safeher-backend-1.onrender.com/api/auth";
 
@@ -38,6 +48,7 @@ export const authService = {
 
       if (data.success && data.token) {
         await AsyncStorage.setItem("authToken", data.token);
+        mirrorAuthToken(data.token);
       }
       return data;
     } catch (err) {
@@ -53,5 +64,6 @@ export const authService = {
   logout: async (): Promise<void> => {
     await AsyncStorage.removeItem("authToken");
     await AsyncStorage.removeItem("sessionId");
+    mirrorAuthToken("");
   },
 };
@@ -8,6 +8,8 @@ export interface EmergencyContact {
   id: string;
   name: string;
   phone: string;
+  // 1 = alerted immediately (default); higher tiers are messaged afterwards, paced under the SMS quota
+  tier?: number;
 }
 
 class ContactsService {
@@ -34,7 +36,10 @@ class ContactsService {
 
       // ✅ CORRECTED LOGIC: Directly call the native module
       if (Platform.OS === 'android' && SafeHerStorage?.setValue) {
-        const phoneNumbers = contacts.map(c => c.phone.trim()).join(',');
+        // "phone" for tier 1, "phone;tier" otherwise (parsed by TieredContacts on the native side)
+        const phoneNumbers = contacts
+          .map(c => (c.tier && c.tier > 1 ? `${c.phone.trim()};${c.tier}` : c.phone.trim()))
+          .join(',');
         console.log(`📤 Attempting to mirror contacts to native storage: "${phoneNumbers}"`);
         SafeHerStorage.setValue('emergency_contacts', phoneNumbers);
       } else if (Platform.OS === 'android') {
@@ -92,13 +97,31 @@ class ContactsService {
       if (index === -1) {
         return false;
       }
-      contacts[index] = { id, name: name.trim(), phone: phone.trim() };
+      contacts[index] = { ...contacts[index], id, name: name.trim(), phone: phone.trim() };
       return await this.saveContacts(contacts);
     } catch (error) {
       console.error('❌ Error updating contact:', error);
       return false;
     }
   }
+
+  /**
+   * Set a contact's priority tier (1 = immediate)
+   */
+  async setContactTier(id: string, tier: number): Promise<boolean> {
+    try {
+      const contacts = await this.getContacts();
+      const index = contacts.findIndex(c => c.id === id);
+      if (index === -1) {
+        return false;
+      }
+      contacts[index] = { ...contacts[index], tier: Math.max(1, Math.floor(tier)) };
+      return await this.saveContacts(contacts);
+    } catch (error) {
+      console.error('❌ Error updating contact tier:', error);
+      return false;
+    }
+  }
 }
 
 export const contactsService = new ContactsService();
\ No newline at end of file
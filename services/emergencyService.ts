@@ -17,7 +17,7 @@ import { contactsService } from "./contactsService";
 // 1. NATIVE MODULE SETUP (CRITICAL)
 // =================================================================
 
-const { AutoSmsModule, ShakeControlModule } = NativeModules;
+const { AutoSmsModule, ShakeControlModule, SafeHerStorage } = NativeModules;
 
 interface EmergencyContact {
   id: string;
@@ -29,6 +29,22 @@ interface EmergencyResult {
   success: boolean;
   error?: string;
   sentTo?: number;
+  // Native send job; follow it with subscribeToSmsJobEvents(). Null when the alert
+  // was coalesced into one already going out.
+  jobId?: string | null;
+}
+
+export type SmsJobEventType =
+  | 'submitted' | 'sent' | 'delivered' | 'failed' | 'cancelled' | 'done';
+
+export interface SmsJobEvent {
+  jobId: string;
+  type: SmsJobEventType;
+  // Set for per-recipient events; null for the final 'done' / 'cancelled' job event
+  phone: string | null;
+  alertId: number;
+  submitted?: number;
+  total?: number;
 }
 
 // -----------------------------------------------------------------
@@ -236,9 +252,9 @@ const getCurrentLocation = async (): Promise<Location.LocationObject | null> =>
 };
 
 /**
- * Sends an SMS message using the native AutoSmsModule for silent delivery
+ * Starts a native SMS job for silent delivery and returns its id without waiting for the sends
  */
-const sendSmsLogic = async (phoneNumbers: string[], message: string): Promise<void> => {
+const sendSmsLogic = async (phoneNumbers: string[], message: string): Promise<string | null> => {
     if (Platform.OS === 'android') {
         if (!AutoSmsModule) {
             throw new Error('AutoSmsModule not available. Native module not registered.');
@@ -251,9 +267,10 @@ const sendSmsLogic = async (phoneNumbers: string[], message: string): Promise<vo
         console.log('📱 Sending SMS to', phoneNumbers.length, 'contacts via native module...');
         
         try {
-            // The native module returns a Promise
-            const result = await AutoSmsModule.sendSms(phoneNumbers, message);
-            console.log('✅ SMS send result:', result);
+            // Resolves as soon as the job is queued; progress arrives as onSmsJobEvent
+            const jobId: string | null = await AutoSmsModule.sendSms(phoneNumbers, message);
+            console.log(jobId ? `✅ SMS job started: ${jobId}` : '🔗 Alert already in progress; coalesced');
+            return jobId;
         } catch (error: any) {
             console.error('❌ Native SMS send failed:', error);
             throw new Error(`SMS send failed: ${error.message || error}`);
@@ -267,7 +284,19 @@ const sendSmsLogic = async (phoneNumbers: string[], message: string): Promise<vo
 // 4. EXPORTED EMERGENCY ALERT FUNCTIONS (UNCHANGED)
 // =================================================================
 
-export const sendEmergencyAlert = async (): Promise<EmergencyResult> => {
+// Overlapping calls (double taps, shake + button) share one send instead of racing
+let inFlightAlert: Promise<EmergencyResult> | null = null;
+
+export const sendEmergencyAlert = (): Promise<EmergencyResult> => {
+  if (!inFlightAlert) {
+    inFlightAlert = sendEmergencyAlertOnce().finally(() => {
+      inFlightAlert = null;
+    });
+  }
+  return inFlightAlert;
+};
+
+const sendEmergencyAlertOnce = async (): Promise<EmergencyResult> => {
   try {
     console.log("🚨 === EMERGENCY ALERT INITIATED ===");
 
@@ -366,10 +395,10 @@ Please check on me right away or call emergency services!
     console.log('Message prepared, length:', message.length);
 
     // 6. Send SMS via Native Module
-    await sendSmsLogic(phoneNumbers, message);
+    const jobId = await sendSmsLogic(phoneNumbers, message);
 
     console.log('✅ === EMERGENCY ALERT SENT SUCCESSFULLY ===');
-    return { success: true, sentTo: phoneNumbers.length };
+    return { success: true, sentTo: phoneNumbers.length, jobId };
 
   } catch (error: any) {
     console.error("❌ Emergency alert failed:", error);
@@ -529,12 +558,159 @@ export const requestBatteryOptimizationExemption = async (): Promise<boolean> =>
     }
 };
 
+/**
+ * Whether the auto-send countdown's backstop alarm can be exact. Without it the countdown still
+ * runs in the detector service, but if that process dies Doze may delay the alert.
+ */
+export const checkExactAlarms = async (): Promise<boolean> => {
+    if (Platform.OS !== 'android' || !ShakeControlModule?.checkExactAlarms) {
+        return true;
+    }
+    try {
+        return await ShakeControlModule.checkExactAlarms();
+    } catch (error) {
+        console.error('❌ Failed to check exact alarms:', error);
+        return true;
+    }
+};
+
+export const requestExactAlarms = async (): Promise<boolean> => {
+    if (Platform.OS !== 'android' || !ShakeControlModule?.requestExactAlarms) {
+        return true;
+    }
+    try {
+        return await ShakeControlModule.requestExactAlarms();
+    } catch (error) {
+        console.error('❌ Failed to open exact alarm settings:', error);
+        return false;
+    }
+};
+
+/**
+ * Per-recipient progress of native SMS jobs: submitted, then sent / delivered / failed as
+ * the radio reports (multipart messages report 'sent' once per part), and finally 'done'
+ * or 'cancelled' for the job.
+ */
+export const subscribeToSmsJobEvents = (callback: (event: SmsJobEvent) => void) => {
+    if (Platform.OS === 'android') {
+        return DeviceEventEmitter.addListener('onSmsJobEvent', callback);
+    }
+    return { remove: () => {} };
+};
+
+export const cancelSmsJob = async (jobId: string): Promise<boolean> => {
+    if (Platform.OS !== 'android' || !AutoSmsModule?.cancelSmsJob) {
+        return false;
+    }
+    try {
+        return await AutoSmsModule.cancelSmsJob(jobId);
+    } catch (error) {
+        console.error('❌ Failed to cancel SMS job:', error);
+        return false;
+    }
+};
+
+// Seconds the triple-shake confirmation waits before sending on its own; 0 waits for YES
+export const AUTO_DISPATCH_DEFAULT_SECONDS = 15;
+
+export const getAutoDispatchSeconds = async (): Promise<number> => {
+    if (Platform.OS !== 'android' || !SafeHerStorage?.getValue) {
+        return 0;
+    }
+    try {
+        const value = parseInt(await SafeHerStorage.getValue('auto_dispatch_seconds'), 10);
+        return Number.isFinite(value) ? value : 0;
+    } catch (error) {
+        console.error('❌ Failed to read auto-dispatch countdown:', error);
+        return 0;
+    }
+};
+
+export const setAutoDispatchSeconds = (seconds: number): void => {
+    if (Platform.OS === 'android' && SafeHerStorage?.setValue) {
+        SafeHerStorage.setValue('auto_dispatch_seconds', String(Math.max(0, Math.round(seconds))));
+    }
+};
+
+// Detection tuning; the running service applies it from the next sample without restarting.
+// Unset or out-of-range values keep the native defaults (2.7 g, 500 ms, 3000 ms, 3 shakes).
+export interface DetectionConfig {
+    thresholdG?: number;
+    slopMs?: number;
+    resetMs?: number;
+    count?: number;
+    mode?: 'magnitude' | 'linear';
+    samplingUs?: number;
+}
+
+const DETECTION_KEYS: Record<keyof DetectionConfig, string> = {
+    thresholdG: 'shake_threshold_g',
+    slopMs: 'shake_slop_ms',
+    resetMs: 'shake_reset_ms',
+    count: 'shake_count',
+    mode: 'shake_mode',
+    samplingUs: 'shake_sampling_us',
+};
+
+export const setDetectionConfig = (config: DetectionConfig): void => {
+    if (Platform.OS !== 'android' || !SafeHerStorage?.setValue) {
+        return;
+    }
+    (Object.keys(DETECTION_KEYS) as (keyof DetectionConfig)[]).forEach((field) => {
+        const value = config[field];
+        if (value !== undefined) {
+            SafeHerStorage.setValue(DETECTION_KEYS[field], String(value));
+        }
+    });
+};
+
+// Custom alert SMS text. Slots: {time} {coords} {address} {maps} {trail} {note}; {#trail}...{/trail}
+// is kept only when that slot has a value, {{ and }} are literal braces. Pass one text, or texts by
+// language tag ('hi-IN', 'hi', 'default'); an empty value or an invalid template uses the built-in one.
+export const setAlertTemplate = (template: string | Record<string, string>): void => {
+    if (Platform.OS === 'android' && SafeHerStorage?.setValue) {
+        SafeHerStorage.setValue('alert_template', typeof template === 'string' ? template : JSON.stringify(template));
+    }
+};
+
+// A line of the user's own for the {note} slot, e.g. a medical condition; empty to leave it out
+export const setAlertNote = (note: string): void => {
+    if (Platform.OS === 'android' && SafeHerStorage?.setValue) {
+        SafeHerStorage.setValue('alert_note', note.trim());
+    }
+};
+
+// Optional audio evidence while an alert is active; needs the microphone permission first
+export const setEvidenceRecording = async (enabled: boolean): Promise<boolean> => {
+    if (Platform.OS !== 'android' || !SafeHerStorage?.setValue) {
+        return false;
+    }
+    if (enabled) {
+        const result = await PermissionsAndroid.request(PermissionsAndroid.PERMISSIONS.RECORD_AUDIO);
+        if (result !== PermissionsAndroid.RESULTS.GRANTED) {
+            return false;
+        }
+    }
+    SafeHerStorage.setValue('record_evidence', String(enabled));
+    return enabled;
+};
+
 export const emergencyService = { 
     sendEmergencyAlert, 
     startBackgroundShakeDetection,
     stopBackgroundShakeDetection,
     subscribeToShakeEvents,
     subscribeToEmergencyConfirmation,
+    subscribeToSmsJobEvents,
+    cancelSmsJob,
+    getAutoDispatchSeconds,
+    setAutoDispatchSeconds,
+    checkExactAlarms,
+    requestExactAlarms,
+    setDetectionConfig,
+    setEvidenceRecording,
+    setAlertTemplate,
+    setAlertNote,
     requestLocationPermissions,
     checkLocationPermissions,
   checkBatteryOptimization,          // NEW
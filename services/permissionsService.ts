@@ -117,6 +117,9 @@ export const requestSMSPermission = async (): Promise<boolean> => {
     const result = granted === PermissionsAndroid.RESULTS.GRANTED;
     if (!result) {
         console.warn('❌ SMS permission denied.');
+    } else {
+        // Optional: lets alerts use every SIM on dual-SIM phones and fail over between them
+        await PermissionsAndroid.request(PermissionsAndroid.PERMISSIONS.READ_PHONE_STATE);
     }
     return result;
   } catch (error) {